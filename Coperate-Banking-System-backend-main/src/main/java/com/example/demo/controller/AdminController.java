@@ -1,12 +1,22 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.PageResponse;
+import com.example.demo.dto.RiskRescoreResult;
+import com.example.demo.dto.SimulationJob;
+import com.example.demo.dto.SimulationRequest;
 import com.example.demo.model.User;
+import com.example.demo.security.AuthRateLimiter;
+import com.example.demo.security.TokenCache;
+import com.example.demo.service.ExposureLedger;
+import com.example.demo.service.OutboxRelay;
+import com.example.demo.service.PortfolioSimulationService;
+import com.example.demo.service.RiskRescoreService;
 import com.example.demo.service.UserService;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -16,11 +26,31 @@ public class AdminController {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private TokenCache tokenCache;
+    
+    @Autowired
+    private AuthRateLimiter authRateLimiter;
+    
+    @Autowired
+    private OutboxRelay outboxRelay;
+    
+    @Autowired
+    private RiskRescoreService riskRescoreService;
+    
+    @Autowired
+    private ExposureLedger exposureLedger;
+    
+    @Autowired
+    private PortfolioSimulationService portfolioSimulationService;
+    
     @GetMapping("/users")
-    public ResponseEntity<List<User>> getAllUsers() {
-        List<User> users = userService.getAllUsers();
+    public ResponseEntity<PageResponse<User>> getAllUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        PageResponse<User> users = userService.getAllUsers(cursor, limit);
         // Remove passwords before sending
-        users.forEach(user -> user.setPassword(null));
+        users.getItems().forEach(user -> user.setPassword(null));
         return ResponseEntity.ok(users);
     }
     
@@ -34,4 +64,46 @@ public class AdminController {
         user.setPassword(null);
         return ResponseEntity.ok(user);
     }
-}
\ No newline at end of file
+    
+    @GetMapping("/token-cache/stats")
+    public ResponseEntity<Map<String, Long>> getTokenCacheStats() {
+        return ResponseEntity.ok(tokenCache.getStats());
+    }
+    
+    @GetMapping("/rate-limit/stats")
+    public ResponseEntity<Map<String, Long>> getRateLimitStats() {
+        return ResponseEntity.ok(authRateLimiter.getStats());
+    }
+    
+    @GetMapping("/outbox/stats")
+    public ResponseEntity<Map<String, Long>> getOutboxStats() {
+        return ResponseEntity.ok(outboxRelay.getStats());
+    }
+    
+    @GetMapping("/exposure/stats")
+    public ResponseEntity<Map<String, Long>> getExposureStats() {
+        return ResponseEntity.ok(exposureLedger.getStats());
+    }
+    
+    // Re-scores every pending request not yet scored by the current risk model
+    @PostMapping("/risk/rescore")
+    public ResponseEntity<RiskRescoreResult> rescorePendingRequests() {
+        return ResponseEntity.ok(riskRescoreService.rescorePending());
+    }
+    
+    // Starts a Monte Carlo loss simulation over approved requests; poll the returned job for progress
+    @PostMapping("/portfolio/simulations")
+    public ResponseEntity<SimulationJob> startSimulation(@Valid @RequestBody SimulationRequest request) {
+        return ResponseEntity.accepted().body(portfolioSimulationService.start(request));
+    }
+    
+    @GetMapping("/portfolio/simulations/{id}")
+    public ResponseEntity<SimulationJob> getSimulation(@PathVariable String id) {
+        return ResponseEntity.ok(portfolioSimulationService.getJob(id));
+    }
+    
+    @DeleteMapping("/portfolio/simulations/{id}")
+    public ResponseEntity<SimulationJob> cancelSimulation(@PathVariable String id) {
+        return ResponseEntity.ok(portfolioSimulationService.cancel(id));
+    }
+}
@@ -1,16 +1,30 @@
 package com.example.demo.controller;
 
 
+import com.example.demo.dto.AmortizationSummary;
+import com.example.demo.dto.BulkDecisionRequest;
+import com.example.demo.dto.BulkDecisionResult;
+import com.example.demo.dto.PageResponse;
 import com.example.demo.dto.UpdateStatusRequest;
+import com.example.demo.dto.WorkQueueRequest;
 import com.example.demo.model.CreditRequest;
+import com.example.demo.security.JwtPrincipal;
+import com.example.demo.service.AmortizationService;
+import com.example.demo.service.CreditRequestClaimService;
+import com.example.demo.service.CreditRequestEventHub;
 import com.example.demo.service.CreditRequestService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
+
 @RestController
 @RequestMapping("/api/analyst")
 public class AnalystController {
@@ -18,12 +32,40 @@ public class AnalystController {
     @Autowired
     private CreditRequestService creditRequestService;
     
+    @Autowired
+    private CreditRequestClaimService claimService;
+    
+    @Autowired
+    private CreditRequestEventHub eventHub;
+    
+    @Autowired
+    private AmortizationService amortizationService;
+    
     @GetMapping("/credit-requests")
-    public ResponseEntity<List<CreditRequest>> getAllCreditRequests() {
-        List<CreditRequest> requests = creditRequestService.getAllCreditRequests();
+    public ResponseEntity<PageResponse<CreditRequest>> getAllCreditRequests(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        PageResponse<CreditRequest> requests = creditRequestService.getAllCreditRequests(cursor, limit);
         return ResponseEntity.ok(requests);
     }
     
+    @GetMapping("/queue")
+    public ResponseEntity<PageResponse<CreditRequest>> getWorkQueue(@Valid WorkQueueRequest request) {
+        PageResponse<CreditRequest> queue = creditRequestService.getWorkQueue(request);
+        return ResponseEntity.ok(queue);
+    }
+    
+    // Optional stage narrows the stream to one approval queue; decisions are always sent so clients can drop them
+    @GetMapping(value = "/credit-requests/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamCreditRequests(
+            @RequestParam(required = false) String stage,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        
+        return eventHub.subscribe(request -> stage == null
+                || stage.equals(request.getStage())
+                || !"Pending".equals(request.getStatus()), lastEventId);
+    }
+    
     @GetMapping("/credit-requests/{id}")
     public ResponseEntity<CreditRequest> getCreditRequestById(@PathVariable String id) {
         CreditRequest request = creditRequestService.getCreditRequestById(id);
@@ -32,10 +74,76 @@ public class AnalystController {
     
     @PutMapping("/credit-requests/{id}")
     public ResponseEntity<CreditRequest> updateCreditRequestStatus(
+            @AuthenticationPrincipal JwtPrincipal principal,
             @PathVariable String id,
             @Valid @RequestBody UpdateStatusRequest request) {
         
-        CreditRequest creditRequest = creditRequestService.updateCreditRequestStatus(id, request);
+        CreditRequest creditRequest = creditRequestService.updateCreditRequestStatus(id, request, principal.getUserId());
         return ResponseEntity.ok(creditRequest);
     }
-}
\ No newline at end of file
+    
+    @PostMapping("/credit-requests/bulk-decisions")
+    public ResponseEntity<List<BulkDecisionResult>> bulkUpdateStatus(
+            @AuthenticationPrincipal JwtPrincipal principal,
+            @Valid @RequestBody BulkDecisionRequest request) {
+        
+        List<BulkDecisionResult> results = creditRequestService.bulkUpdateStatus(request, principal.getUserId());
+        return ResponseEntity.ok(results);
+    }
+    
+    @GetMapping("/claims")
+    public ResponseEntity<List<CreditRequest>> getMyClaims(
+            @AuthenticationPrincipal JwtPrincipal principal) {
+        
+        List<CreditRequest> claims = claimService.getActiveClaims(principal.getUserId());
+        return ResponseEntity.ok(claims);
+    }
+    
+    @PostMapping("/claims")
+    public ResponseEntity<List<CreditRequest>> claim(
+            @AuthenticationPrincipal JwtPrincipal principal,
+            @RequestParam(defaultValue = "1") int count) {
+        
+        List<CreditRequest> claims = claimService.claim(principal.getUserId(), count);
+        return ResponseEntity.ok(claims);
+    }
+    
+    @PutMapping("/claims/{id}")
+    public ResponseEntity<CreditRequest> renewClaim(
+            @AuthenticationPrincipal JwtPrincipal principal,
+            @PathVariable String id) {
+        
+        CreditRequest request = claimService.renew(id, principal.getUserId());
+        return ResponseEntity.ok(request);
+    }
+    
+    @DeleteMapping("/claims/{id}")
+    public ResponseEntity<Void> releaseClaim(
+            @AuthenticationPrincipal JwtPrincipal principal,
+            @PathVariable String id) {
+        
+        claimService.release(id, principal.getUserId());
+        return ResponseEntity.noContent().build();
+    }
+    
+    // method is REDUCING (default) or FLAT; annualRate is a percentage, e.g. 10.5
+    @GetMapping("/credit-requests/{id}/amortization")
+    public ResponseEntity<AmortizationSummary> getAmortization(
+            @PathVariable String id,
+            @RequestParam Double annualRate,
+            @RequestParam(required = false) String method) {
+        return ResponseEntity.ok(amortizationService.summarize(id, method, annualRate));
+    }
+    
+    // Full schedule as CSV, written period by period rather than built in memory
+    @GetMapping(value = "/credit-requests/{id}/amortization/schedule", produces = "text/csv")
+    public ResponseEntity<StreamingResponseBody> getAmortizationSchedule(
+            @PathVariable String id,
+            @RequestParam Double annualRate,
+            @RequestParam(required = false) String method) {
+        AmortizationService.ScheduleWriter writer = amortizationService.prepareSchedule(id, method, annualRate);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("text/csv"))
+                .body(writer::writeTo);
+    }
+}
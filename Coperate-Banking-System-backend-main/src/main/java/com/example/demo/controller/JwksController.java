@@ -0,0 +1,26 @@
+package com.example.demo.controller;
+
+import com.example.demo.security.JwtKeyRing;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+public class JwksController {
+    
+    @Autowired
+    private JwtKeyRing keyRing;
+    
+    // Lets other services verify our tokens locally without the shared secret
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, List<Map<String, Object>>>> getJwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(JwtKeyRing.JWKS_CACHE).cachePublic())
+                .body(Map.of("keys", keyRing.publicJwks()));
+    }
+}
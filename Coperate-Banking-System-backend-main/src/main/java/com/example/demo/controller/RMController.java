@@ -1,17 +1,28 @@
 package com.example.demo.controller;
 
 
+import com.example.demo.dto.ClientGroupSummary;
 import com.example.demo.dto.ClientRequest;
+import com.example.demo.dto.ClientSearchRequest;
+import com.example.demo.dto.ClientSuggestion;
 import com.example.demo.dto.CreditRequestDto;
+import com.example.demo.dto.ExposureSummary;
+import com.example.demo.dto.PageResponse;
 import com.example.demo.model.Client;
 import com.example.demo.model.CreditRequest;
-import com.example.demo.security.JwtUtil;
+import com.example.demo.security.JwtPrincipal;
 import com.example.demo.service.ClientService;
+import com.example.demo.service.CreditRequestEventHub;
 import com.example.demo.service.CreditRequestService;
+import com.example.demo.service.ExposureLedger;
+import com.example.demo.service.IdempotencyService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -22,51 +33,83 @@ public class RMController {
     @Autowired
     private ClientService clientService;
     
+    @Autowired
+    private CreditRequestEventHub eventHub;
+    
     @Autowired
     private CreditRequestService creditRequestService;
     
     @Autowired
-    private JwtUtil jwtUtil;
+    private IdempotencyService idempotencyService;
     
-    // Extract RM ID from JWT token
-    private String extractRmId(String authHeader) {
-        String token = authHeader.substring(7);
-        return jwtUtil.extractUserId(token);
-    }
+    @Autowired
+    private ExposureLedger exposureLedger;
     
 
     @PostMapping("/clients")
     public ResponseEntity<Client> createClient(
             @Valid @RequestBody ClientRequest request,
-            @RequestHeader("Authorization") String authHeader) {
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @AuthenticationPrincipal JwtPrincipal principal) {
         
-        String rmId = extractRmId(authHeader);
-        Client client = clientService.createClient(request, rmId);
+        String rmId = principal.getUserId();
+        Client client = idempotencyService.execute("clients", rmId, idempotencyKey, request,
+                () -> clientService.createClient(request, rmId), Client::getId, clientService::getClientById);
         return ResponseEntity.ok(client);
     }
     
     @GetMapping("/clients")
-    public ResponseEntity<List<Client>> getMyClients(
-            @RequestHeader("Authorization") String authHeader) {
+    public ResponseEntity<PageResponse<Client>> getMyClients(
+            @AuthenticationPrincipal JwtPrincipal principal,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         
-        String rmId = extractRmId(authHeader);
-        List<Client> clients = clientService.getClientsByRm(rmId);
+        String rmId = principal.getUserId();
+        PageResponse<Client> clients = clientService.getClientsByRm(rmId, cursor, limit);
         return ResponseEntity.ok(clients);
     }
     
+    @GetMapping("/clients/search")
+    public ResponseEntity<PageResponse<Client>> searchClients(@Valid ClientSearchRequest request) {
+        PageResponse<Client> page = clientService.searchClients(request);
+        return ResponseEntity.ok(page);
+    }
+    
+    @GetMapping("/clients/typeahead")
+    public ResponseEntity<List<ClientSuggestion>> typeahead(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "10") int limit) {
+        
+        List<ClientSuggestion> suggestions = clientService.typeahead(query, limit);
+        return ResponseEntity.ok(suggestions);
+    }
+    
     @GetMapping("/clients/{id}")
     public ResponseEntity<Client> getClientById(@PathVariable String id) {
         Client client = clientService.getClientById(id);
         return ResponseEntity.ok(client);
     }
     
+    // Pending and approved amounts against the client's limit, as checked when a request is submitted
+    @GetMapping("/clients/{id}/exposure")
+    public ResponseEntity<ExposureSummary> getClientExposure(@PathVariable String id) {
+        Client client = clientService.getClientById(id);
+        return ResponseEntity.ok(exposureLedger.getClientExposure(id, client.getAnnualTurnover()));
+    }
+    
+    // Turnover and exposure summed over the client's corporate group, parent companies and subsidiaries alike
+    @GetMapping("/clients/{id}/group")
+    public ResponseEntity<ClientGroupSummary> getClientGroup(@PathVariable String id) {
+        return ResponseEntity.ok(clientService.getClientGroup(id));
+    }
+    
     @PutMapping("/clients/{id}")
     public ResponseEntity<Client> updateClient(
             @PathVariable String id,
             @Valid @RequestBody ClientRequest request,
-            @RequestHeader("Authorization") String authHeader) {
+            @AuthenticationPrincipal JwtPrincipal principal) {
         
-        String rmId = extractRmId(authHeader);
+        String rmId = principal.getUserId();
         Client client = clientService.updateClient(id, request, rmId);
         return ResponseEntity.ok(client);
     }
@@ -75,22 +118,36 @@ public class RMController {
     @PostMapping("/credit-requests")
     public ResponseEntity<CreditRequest> createCreditRequest(
             @Valid @RequestBody CreditRequestDto dto,
-            @RequestHeader("Authorization") String authHeader) {
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @AuthenticationPrincipal JwtPrincipal principal) {
         
-        String rmId = extractRmId(authHeader);
-        CreditRequest creditRequest = creditRequestService.createCreditRequest(dto, rmId);
+        String rmId = principal.getUserId();
+        CreditRequest creditRequest = idempotencyService.execute("credit-requests", rmId, idempotencyKey, dto,
+                () -> creditRequestService.createCreditRequest(dto, rmId), CreditRequest::getId,
+                creditRequestService::getCreditRequestById);
         return ResponseEntity.ok(creditRequest);
     }
     
     @GetMapping("/credit-requests")
-    public ResponseEntity<List<CreditRequest>> getMyCreditRequests(
-            @RequestHeader("Authorization") String authHeader) {
+    public ResponseEntity<PageResponse<CreditRequest>> getMyCreditRequests(
+            @AuthenticationPrincipal JwtPrincipal principal,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         
-        String rmId = extractRmId(authHeader);
-        List<CreditRequest> requests = creditRequestService.getCreditRequestsByRm(rmId);
+        String rmId = principal.getUserId();
+        PageResponse<CreditRequest> requests = creditRequestService.getCreditRequestsByRm(rmId, cursor, limit);
         return ResponseEntity.ok(requests);
     }
     
+    @GetMapping(value = "/credit-requests/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMyCreditRequests(
+            @AuthenticationPrincipal JwtPrincipal principal,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        
+        String rmId = principal.getUserId();
+        return eventHub.subscribe(request -> rmId.equals(request.getSubmittedBy()), lastEventId);
+    }
+    
     @GetMapping("/credit-requests/{id}")
     public ResponseEntity<CreditRequest> getCreditRequestById(@PathVariable String id) {
         CreditRequest request = creditRequestService.getCreditRequestById(id);
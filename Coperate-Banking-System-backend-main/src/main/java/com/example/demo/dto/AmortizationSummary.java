@@ -0,0 +1,20 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Amounts are in rupees, rounded to paise
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AmortizationSummary {
+    private String creditRequestId;
+    private String method;
+    private Double annualRate;
+    private Integer tenureMonths;
+    private Double principal;
+    private Double installment;
+    private Double totalInterest;
+    private Double totalPayment;
+}
@@ -13,4 +13,5 @@ public class AuthResponse {
     private String email;
     private String role;
     private String userId;
+    private String refreshToken;
 }
\ No newline at end of file
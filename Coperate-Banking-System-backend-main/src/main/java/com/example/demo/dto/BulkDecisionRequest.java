@@ -0,0 +1,29 @@
+package com.example.demo.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkDecisionRequest {
+    
+    @NotEmpty(message = "At least one decision is required")
+    private List<@Valid Decision> decisions;
+    
+    @Data
+    public static class Decision {
+        
+        @NotBlank(message = "Credit request ID is required")
+        private String id;
+        
+        @NotBlank(message = "Status is required")
+        private String status;
+        
+        private String remarks;
+        
+        private Long expectedVersion;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BulkDecisionResult {
+    
+    private String id;
+    private Outcome outcome;
+    
+    public enum Outcome {
+        APPLIED,
+        CONFLICT,
+        NOT_FOUND
+    }
+}
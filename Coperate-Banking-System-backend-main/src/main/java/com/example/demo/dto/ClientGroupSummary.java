@@ -0,0 +1,17 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A client's whole corporate group, identified by its head; amounts are in rupees
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClientGroupSummary {
+    private String headId;
+    private int members;
+    private Double annualTurnover;
+    private Double pending;
+    private Double approved;
+}
@@ -25,6 +25,10 @@ public class ClientRequest {
     
     private Boolean documentsSubmitted = false;
     
+    // Optional parent company, making this client a subsidiary in its group. On update, leaving it out keeps
+    // the current parent and an empty value detaches the client.
+    private String parentId;
+    
     @Data
     public static class PrimaryContactDto {
         @NotBlank(message = "Contact name is required")
@@ -0,0 +1,23 @@
+package com.example.demo.dto;
+
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Data;
+
+@Data
+public class ClientSearchRequest {
+    
+    private String companyName;
+    private String industry;
+    private String rmId;
+    
+    @PositiveOrZero(message = "Minimum turnover cannot be negative")
+    private Double minTurnover;
+    
+    @PositiveOrZero(message = "Maximum turnover cannot be negative")
+    private Double maxTurnover;
+    
+    private Boolean documentsSubmitted;
+    
+    private String cursor;
+    private Integer limit;
+}
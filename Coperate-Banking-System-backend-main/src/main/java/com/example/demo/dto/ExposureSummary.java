@@ -0,0 +1,16 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Amounts are in rupees; limit is null when none applies
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExposureSummary {
+    private String clientId;
+    private Double pending;
+    private Double approved;
+    private Double limit;
+}
@@ -0,0 +1,16 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Sum of open credit request amounts for one (client, RM, status) combination
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExposureTotal {
+    private String clientId;
+    private String rmId;
+    private String status;
+    private Double amount;
+}
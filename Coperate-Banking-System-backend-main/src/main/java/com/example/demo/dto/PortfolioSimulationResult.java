@@ -0,0 +1,31 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Amounts are in rupees; rerunning with the same seed over the same approved book reproduces every figure
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortfolioSimulationResult {
+    private long seed;
+    private long scenarios;
+    private int exposures;
+    private LossEstimate portfolio;
+    private List<LossEstimate> byIndustry;
+    private List<LossEstimate> byRm;
+    private long simulationMs;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LossEstimate {
+        private String key;
+        private double exposure;
+        private double expectedLoss;
+        private double valueAtRisk99;
+    }
+}
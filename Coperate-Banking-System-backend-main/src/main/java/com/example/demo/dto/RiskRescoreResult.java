@@ -0,0 +1,15 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RiskRescoreResult {
+    private String modelVersion;
+    private long scored;
+    private long scoringMs; // time spent in the parallel scoring passes alone
+    private long totalMs;
+}
@@ -0,0 +1,14 @@
+package com.example.demo.dto;
+
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+// Both optional: the scenario count defaults from configuration and a missing seed is drawn at random
+@Data
+public class SimulationRequest {
+    
+    @Positive(message = "Scenario count must be positive")
+    private Long scenarios;
+    
+    private Long seed;
+}
@@ -1,15 +1,17 @@
 package com.example.demo.dto;
 
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.Pattern;
 import lombok.Data;
 
 @Data
 public class UpdateStatusRequest {
     
+    // Checked against the configured transitions rather than a fixed list
     @NotBlank(message = "Status is required")
-    @Pattern(regexp = "Pending|Approved|Rejected", message = "Status must be Pending, Approved, or Rejected")
     private String status;
     
     private String remarks;
+    
+    // Version the analyst saw; the update is refused if the request changed since
+    private Long expectedVersion;
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.example.demo.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Data;
+
+@Data
+public class WorkQueueRequest {
+    
+    @NotBlank(message = "Status is required")
+    private String status = "Pending";
+    
+    private String stage; // approval stage queue, e.g. SECOND_APPROVER
+    
+    @PositiveOrZero(message = "Minimum amount cannot be negative")
+    private Double minAmount;
+    
+    @PositiveOrZero(message = "Maximum amount cannot be negative")
+    private Double maxAmount;
+    
+    @Positive(message = "Minimum tenure must be positive")
+    private Integer minTenure;
+    
+    @Positive(message = "Maximum tenure must be positive")
+    private Integer maxTenure;
+    
+    private String cursor;
+    private Integer limit;
+}
@@ -0,0 +1,9 @@
+package com.example.demo.exception;
+
+// A write failed in a way that leaves open whether it was stored; callers must not undo its side effects
+public class WriteOutcomeUnknownException extends ServiceUnavailableException {
+public WriteOutcomeUnknownException(String message, Throwable cause) {
+   super(message);
+   initCause(cause);
+}
+}
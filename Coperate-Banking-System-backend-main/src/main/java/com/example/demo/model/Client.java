@@ -1,16 +1,36 @@
 package com.example.demo.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "clients")
-public class Client {
+@CompoundIndexes({
+    // Case-insensitive collation, matching the one used by ClientRepositoryImpl.search
+    @CompoundIndex(name = "rm_industry_name", def = "{ 'rmId': 1, 'industry': 1, 'companyName': 1, '_id': 1 }",
+                   collation = "{ 'locale': 'en', 'strength': 2 }"),
+    @CompoundIndex(name = "rm_name", def = "{ 'rmId': 1, 'companyName': 1, '_id': 1 }",
+                   collation = "{ 'locale': 'en', 'strength': 2 }"),
+    @CompoundIndex(name = "industry_name", def = "{ 'industry': 1, 'companyName': 1, '_id': 1 }",
+                   collation = "{ 'locale': 'en', 'strength': 2 }"),
+    @CompoundIndex(name = "name", def = "{ 'companyName': 1, '_id': 1 }",
+                   collation = "{ 'locale': 'en', 'strength': 2 }"),
+    @CompoundIndex(name = "outbox_pending", def = "{ 'outboxLeaseUntil': 1 }",
+                   partialFilter = "{ 'outbox.0': { $exists: true } }")
+})
+public class Client implements OutboxAggregate {
     
     @Id
     private String id;
@@ -26,6 +46,14 @@ public class Client {
     
     private String rmId; // Relationship Manager ID
     
+    private String parentId; // Parent company within a corporate group; null for a group head
+    
+    @JsonIgnore
+    private List<OutboxEvent> outbox = new ArrayList<>();
+    
+    @JsonIgnore
+    private LocalDateTime outboxLeaseUntil;
+    
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -1,19 +1,42 @@
 package com.example.demo.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "creditRequests")
-public class CreditRequest {
+@CompoundIndexes({
+    @CompoundIndex(name = "submitted_created", def = "{ 'submittedBy': 1, 'createdAt': -1, '_id': -1 }"),
+    @CompoundIndex(name = "created", def = "{ 'createdAt': -1, '_id': -1 }"),
+    @CompoundIndex(name = "status_created", def = "{ 'status': 1, 'createdAt': 1, '_id': 1 }"),
+    @CompoundIndex(name = "status_stage_created", def = "{ 'status': 1, 'stage': 1, 'createdAt': 1, '_id': 1 }"),
+    @CompoundIndex(name = "status_risk_model", def = "{ 'status': 1, 'riskModelVersion': 1, '_id': 1 }"),
+    @CompoundIndex(name = "claimed_lease", def = "{ 'claimedBy': 1, 'leaseExpiresAt': 1 }"),
+    // One lease per slot and analyst, so racing claims cannot push an analyst past credit.lease.max-active
+    @CompoundIndex(name = "claimed_slot", def = "{ 'claimedBy': 1, 'claimSlot': 1 }", unique = true,
+                   partialFilter = "{ 'claimSlot': { $exists: true } }"),
+    // Only documents with undelivered events are indexed, so the relay's poll stays cheap
+    @CompoundIndex(name = "outbox_pending", def = "{ 'outboxLeaseUntil': 1 }",
+                   partialFilter = "{ 'outbox.0': { $exists: true } }")
+})
+public class CreditRequest implements OutboxAggregate {
+    
+    // Approval only takes effect once every stage of the request's route has approved
+    public static final String APPROVED = "Approved";
     
     @Id
     private String id;
@@ -26,8 +49,48 @@ public class CreditRequest {
     private String purpose;
     
     private String status = "Pending"; // Pending, Approved, Rejected
+    
+    @JsonIgnore
+    private String previousStatus; // status before the latest decision, so the exposure ledger knows what it left
     private String remarks = "";
     
     @CreatedDate
     private LocalDateTime createdAt;
-}
\ No newline at end of file
+    
+    @Version
+    private Long version; // bumped on every status transition
+    
+    private String stage; // approval stage currently reviewing, null once decided
+    private List<String> nextStages = new ArrayList<>(); // stages still required after the current one
+    private List<StageDecision> stageHistory = new ArrayList<>();
+    
+    private Integer riskScore; // 0 (safest) to 100, see CreditRiskScorer
+    private List<String> riskReasons = new ArrayList<>();
+    private String riskModelVersion; // model that produced the score; pending requests are re-scored when it changes
+    
+    private String claimedBy; // analyst user ID holding the review lease
+    private LocalDateTime leaseExpiresAt; // the request returns to the pool after this
+    
+    @JsonIgnore
+    private Integer claimSlot; // which of the analyst's max-active lease slots this lease occupies
+    
+    @JsonIgnore
+    private String decisionBatch; // bulk decision that last moved this request, used to read back per-item outcomes
+    
+    @JsonIgnore
+    private List<OutboxEvent> outbox = new ArrayList<>(); // events written with the change, drained by OutboxRelay
+    
+    @JsonIgnore
+    private LocalDateTime outboxLeaseUntil; // relay instance currently draining the outbox holds it until then
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StageDecision {
+        private String stage;
+        private String decision; // status chosen at this stage
+        private String decidedBy; // analyst user ID
+        private String remarks;
+        private LocalDateTime decidedAt;
+    }
+}
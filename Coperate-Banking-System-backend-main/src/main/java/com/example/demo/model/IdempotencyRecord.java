@@ -0,0 +1,33 @@
+package com.example.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "idempotencyKeys")
+public class IdempotencyRecord {
+    
+    public static final String IN_PROGRESS = "InProgress";
+    public static final String COMPLETED = "Completed";
+    
+    @Id
+    private String id; // SHA-256 of scope, user and the client's Idempotency-Key
+    
+    private String requestHash; // fingerprint of the first request body, a reused key must carry the same one
+    
+    private String status;
+    
+    private String resourceId; // created document returned to every replay
+    
+    // While in progress this is a short lock that another instance may take over once it lapses
+    @Indexed(expireAfter = "0s")
+    private Instant expiresAt;
+}
@@ -0,0 +1,36 @@
+package com.example.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "jwtKeys")
+public class JwtKey {
+    
+    @Id
+    private String id; // the "kid", derived from the algorithm and rotation period so nodes agree on it
+    
+    private String algorithm;
+    
+    private String keyType; // JCA key family, EC or RSA
+    
+    private String publicKey; // Base64 X.509
+    
+    private String privateKey; // Base64 PKCS#8, AES-GCM encrypted with a key derived from jwt.secret
+    
+    private Instant activatesAt; // signs from here; published in the JWKS before that
+    
+    private Instant signsUntil;
+    
+    // Verification ends once the last token this key signed has expired
+    @Indexed(expireAfter = "0s")
+    private Instant expiresAt;
+}
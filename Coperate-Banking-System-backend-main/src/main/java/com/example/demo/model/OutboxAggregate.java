@@ -0,0 +1,11 @@
+package com.example.demo.model;
+
+import java.util.List;
+
+// Document that carries its own pending domain events, so they are written atomically with the change
+public interface OutboxAggregate {
+    
+    String getId();
+    
+    List<OutboxEvent> getOutbox();
+}
@@ -0,0 +1,37 @@
+package com.example.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Domain event waiting in its aggregate's outbox until the relay has delivered it
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+    
+    public static final String CREDIT_REQUEST_CREATED = "CreditRequestCreated";
+    public static final String CREDIT_REQUEST_UPDATED = "CreditRequestUpdated";
+    public static final String CLIENT_CREATED = "ClientCreated";
+    public static final String CLIENT_UPDATED = "ClientUpdated";
+    
+    private String eventId;
+    private String type;
+    private LocalDateTime occurredAt;
+    
+    public static OutboxEvent of(String type) {
+        return new OutboxEvent(UUID.randomUUID().toString(), type, LocalDateTime.now());
+    }
+    
+    // Outbox with one more event, tolerating documents saved before outboxes existed
+    public static List<OutboxEvent> append(List<OutboxEvent> outbox, String type) {
+        List<OutboxEvent> events = outbox != null ? outbox : new ArrayList<>();
+        events.add(of(type));
+        return events;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "refreshTokens")
+public class RefreshToken {
+    
+    @Id
+    private String id;
+    
+    @Indexed(unique = true)
+    private String tokenHash; // SHA-256 of the opaque token, the raw value is never stored
+    
+    @Indexed
+    private String userId;
+    
+    @Indexed
+    private String familyId; // Shared by every token produced through rotation of one login
+    
+    private Boolean used = false;
+    
+    @Indexed(expireAfter = "0s")
+    private Instant expiresAt;
+}
@@ -2,13 +2,21 @@ package com.example.demo.repository;
 
 import com.example.demo.model.Client;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface ClientRepository extends MongoRepository<Client, String> {
+public interface ClientRepository extends MongoRepository<Client, String>, ClientRepositoryCustom {
     List<Client> findByRmId(String rmId);
     List<Client> findByCompanyNameContainingIgnoreCase(String companyName);
     List<Client> findByIndustryIgnoreCase(String industry);
+    
+    @Query(value = "{}", fields = "{ 'companyName': 1 }")
+    Stream<Client> streamCompanyNames();
+    
+    @Query(value = "{}", fields = "{ 'parentId': 1, 'annualTurnover': 1 }")
+    Stream<Client> streamGroupLinks();
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.ClientSearchRequest;
+import com.example.demo.model.Client;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ClientRepositoryCustom {
+    // Filtered page ordered by (companyName, id), starting after the given keyset when present
+    List<Client> search(ClientSearchRequest criteria, String afterCompanyName, String afterId, int limit);
+    
+    // Only the fields risk scoring reads, for the given clients
+    List<Client> findRiskProfiles(Collection<String> ids);
+    
+    // Sets the editable fields of one RM's client and queues CLIENT_UPDATED with $push, leaving the outbox and its
+    // lease to the relay; the parent link is only written when relink is set. Null when the RM has no such client.
+    Client updateDetails(String id, String rmId, Client details, boolean relink);
+}
@@ -0,0 +1,103 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.ClientSearchRequest;
+import com.example.demo.model.Client;
+import com.example.demo.model.OutboxEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Collation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Pattern;
+
+public class ClientRepositoryImpl implements ClientRepositoryCustom {
+    
+    // Must match the collation of the search indexes declared on Client, otherwise they are not used
+    public static final Collation SEARCH_COLLATION =
+            Collation.of("en").strength(Collation.ComparisonLevel.secondary());
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Override
+    public List<Client> search(ClientSearchRequest criteria, String afterCompanyName, String afterId, int limit) {
+        List<Criteria> filters = new ArrayList<>();
+        
+        // Equality filters first so they line up with the compound index prefixes
+        if (hasText(criteria.getRmId())) {
+            filters.add(Criteria.where("rmId").is(criteria.getRmId()));
+        }
+        if (hasText(criteria.getIndustry())) {
+            filters.add(Criteria.where("industry").is(criteria.getIndustry()));
+        }
+        if (criteria.getDocumentsSubmitted() != null) {
+            filters.add(Criteria.where("documentsSubmitted").is(criteria.getDocumentsSubmitted()));
+        }
+        if (criteria.getMinTurnover() != null || criteria.getMaxTurnover() != null) {
+            Criteria turnover = Criteria.where("annualTurnover");
+            if (criteria.getMinTurnover() != null) {
+                turnover = turnover.gte(criteria.getMinTurnover());
+            }
+            if (criteria.getMaxTurnover() != null) {
+                turnover = turnover.lte(criteria.getMaxTurnover());
+            }
+            filters.add(turnover);
+        }
+        if (hasText(criteria.getCompanyName())) {
+            filters.add(Criteria.where("companyName").regex(Pattern.quote(criteria.getCompanyName().trim()), "i"));
+        }
+        if (afterId != null) {
+            filters.add(Keyset.after("companyName", afterCompanyName, afterId));
+        }
+        
+        Query query = new Query();
+        if (!filters.isEmpty()) {
+            query.addCriteria(new Criteria().andOperator(filters));
+        }
+        query.with(Sort.by(Sort.Order.asc("companyName"), Sort.Order.asc("id")))
+                .collation(SEARCH_COLLATION)
+                .limit(limit);
+        
+        return mongoTemplate.find(query, Client.class);
+    }
+    
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+    
+    @Override
+    public List<Client> findRiskProfiles(Collection<String> ids) {
+        Query query = new Query(Criteria.where("id").in(ids));
+        query.fields().include("industry", "annualTurnover", "documentsSubmitted");
+        return mongoTemplate.find(query, Client.class);
+    }
+    
+    @Override
+    public Client updateDetails(String id, String rmId, Client details, boolean relink) {
+        Query query = new Query(Criteria.where("id").is(id).and("rmId").is(rmId));
+        Update update = new Update()
+                .set("companyName", details.getCompanyName())
+                .set("industry", details.getIndustry())
+                .set("address", details.getAddress())
+                .set("primaryContact", details.getPrimaryContact())
+                .set("annualTurnover", details.getAnnualTurnover())
+                .set("documentsSubmitted", details.getDocumentsSubmitted())
+                .push("outbox", OutboxEvent.of(OutboxEvent.CLIENT_UPDATED));
+        if (relink) {
+            if (details.getParentId() != null) {
+                update.set("parentId", details.getParentId());
+            } else {
+                update.unset("parentId");
+            }
+        }
+        return mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Client.class);
+    }
+}
@@ -7,7 +7,7 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface CreditRequestRepository extends MongoRepository<CreditRequest, String> {
+public interface CreditRequestRepository extends MongoRepository<CreditRequest, String>, CreditRequestRepositoryCustom {
     List<CreditRequest> findBySubmittedBy(String submittedBy);
     List<CreditRequest> findByClientId(String clientId);
     List<CreditRequest> findByStatus(String status);
@@ -0,0 +1,73 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.BulkDecisionRequest;
+import com.example.demo.dto.ExposureTotal;
+import com.example.demo.dto.WorkQueueRequest;
+import com.example.demo.model.CreditRequest;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public interface CreditRequestRepositoryCustom {
+    // Newest first by (createdAt, id), optionally limited to one RM, starting after the given keyset when present
+    List<CreditRequest> findPage(String submittedBy, LocalDateTime beforeCreatedAt, String beforeId, int limit);
+    
+    // Oldest first by (createdAt, id) within one status, starting after the given keyset when present
+    List<CreditRequest> findQueue(WorkQueueRequest criteria, LocalDateTime afterCreatedAt, String afterId, int limit);
+    
+    // Moves the request to the decided status in one findAndModify if it is still in one of the source statuses
+    // and, when given, still at the expected version, recording the decision against the current stage.
+    // With finalStageOnly the request must also be on its last stage and not yet decided by the same analyst.
+    // Returns the updated request or null when the precondition fails.
+    CreditRequest transition(String id, Set<String> fromStatuses, Long expectedVersion,
+                             CreditRequest.StageDecision decision, boolean finalStageOnly);
+    
+    // Records an approval at decision.stage and moves the request on to nextStage, if it is still at that stage and version
+    CreditRequest advanceStage(String id, Long version, CreditRequest.StageDecision decision,
+                               String nextStage, List<String> remainingStages);
+    
+    // Applies the decisions as one unordered bulkWrite of the same conditional updates as transition, each tagged
+    // with the batch id; approvals only match requests on their last stage. Returns how many matched.
+    long bulkTransition(List<BulkDecisionRequest.Decision> decisions, Map<String, Set<String>> sourcesByStatus,
+                        String decidedBy, String batchId);
+    
+    // Ids and decision batch tags of the given requests, for reading back bulk outcomes
+    List<CreditRequest> findDecisionBatches(Collection<String> ids);
+    
+    // Leases the oldest unleased Pending request the analyst has not already decided, in the given lease slot,
+    // in one findAndModify; null when none is free. Throws DuplicateKeyException when the slot is taken.
+    CreditRequest claimNext(String analystId, int slot, LocalDateTime now, LocalDateTime leaseUntil);
+    
+    // Extends a lease the analyst still holds; null when it has expired or belongs to someone else
+    CreditRequest renewLease(String id, String analystId, LocalDateTime now, LocalDateTime leaseUntil);
+    
+    // Returns a held request to the pool; false when the analyst did not hold it
+    boolean releaseLease(String id, String analystId);
+    
+    // Frees the slots of the analyst's lapsed leases for reuse
+    void releaseExpiredSlots(String analystId, LocalDateTime now);
+    
+    // Pending requests the analyst currently holds a live lease on, oldest first
+    List<CreditRequest> findActiveClaims(String analystId, LocalDateTime now);
+    
+    // Pending requests scored by another model version (or never), in id order after afterId, with scoring inputs only
+    List<CreditRequest> findUnscored(String modelVersion, String afterId, int limit);
+    
+    // Writes scores for still-pending requests in one unordered bulkWrite; returns how many matched
+    long saveScores(List<String> ids, int[] scores, List<List<String>> reasons, String modelVersion);
+    
+    // Pending and approved amounts grouped by client, RM and status; restricted to requests of the client or
+    // submitted by the RM when either is given
+    List<ExposureTotal> sumOpenExposure(String clientId, String rmId);
+    
+    // Client, RM, amount, status and previous status of the given requests, for applying bulk outcomes to the
+    // exposure ledger
+    List<CreditRequest> findExposureInputs(Collection<String> ids);
+    
+    // Every approved request with only the fields portfolio loss simulation reads; the caller closes the stream
+    Stream<CreditRequest> streamApprovedExposures();
+}
@@ -0,0 +1,313 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.BulkDecisionRequest;
+import com.example.demo.dto.ExposureTotal;
+import com.example.demo.dto.WorkQueueRequest;
+import com.example.demo.model.CreditRequest;
+import com.example.demo.model.OutboxEvent;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public class CreditRequestRepositoryImpl implements CreditRequestRepositoryCustom {
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Override
+    public List<CreditRequest> findPage(String submittedBy, LocalDateTime beforeCreatedAt, String beforeId, int limit) {
+        Query query = new Query();
+        if (submittedBy != null) {
+            query.addCriteria(Criteria.where("submittedBy").is(submittedBy));
+        }
+        if (beforeId != null) {
+            query.addCriteria(Keyset.before("createdAt", beforeCreatedAt, beforeId));
+        }
+        query.with(Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id")))
+                .limit(limit);
+        return mongoTemplate.find(query, CreditRequest.class);
+    }
+    
+    @Override
+    public List<CreditRequest> findQueue(WorkQueueRequest criteria, LocalDateTime afterCreatedAt, String afterId, int limit) {
+        // Status (and stage) equality plus the createdAt sort walk the status_created or status_stage_created index;
+        // the bands are residual filters
+        Query query = new Query(Criteria.where("status").is(criteria.getStatus()));
+        if (criteria.getStage() != null && !criteria.getStage().isBlank()) {
+            query.addCriteria(Criteria.where("stage").is(criteria.getStage()));
+        }
+        if (criteria.getMinAmount() != null || criteria.getMaxAmount() != null) {
+            Criteria amount = Criteria.where("requestAmount");
+            if (criteria.getMinAmount() != null) {
+                amount = amount.gte(criteria.getMinAmount());
+            }
+            if (criteria.getMaxAmount() != null) {
+                amount = amount.lte(criteria.getMaxAmount());
+            }
+            query.addCriteria(amount);
+        }
+        if (criteria.getMinTenure() != null || criteria.getMaxTenure() != null) {
+            Criteria tenure = Criteria.where("tenureMonths");
+            if (criteria.getMinTenure() != null) {
+                tenure = tenure.gte(criteria.getMinTenure());
+            }
+            if (criteria.getMaxTenure() != null) {
+                tenure = tenure.lte(criteria.getMaxTenure());
+            }
+            query.addCriteria(tenure);
+        }
+        if (afterId != null) {
+            query.addCriteria(Keyset.after("createdAt", afterCreatedAt, afterId));
+        }
+        query.with(Sort.by(Sort.Order.asc("createdAt"), Sort.Order.asc("id")))
+                .limit(limit);
+        return mongoTemplate.find(query, CreditRequest.class);
+    }
+    
+    @Override
+    public CreditRequest transition(String id, Set<String> fromStatuses, Long expectedVersion,
+                                    CreditRequest.StageDecision decision, boolean finalStageOnly) {
+        return mongoTemplate.findAndModify(
+                transitionQuery(id, fromStatuses, expectedVersion, decision.getDecidedBy(), finalStageOnly),
+                transitionUpdate(decision, null),
+                FindAndModifyOptions.options().returnNew(true), CreditRequest.class);
+    }
+    
+    @Override
+    public CreditRequest advanceStage(String id, Long version, CreditRequest.StageDecision decision,
+                                      String nextStage, List<String> remainingStages) {
+        Query query = new Query(Criteria.where("id").is(id).and("version").is(version)
+                .and("status").is("Pending").and("stage").is(decision.getStage()));
+        Update update = new Update()
+                .set("stage", nextStage)
+                .set("nextStages", remainingStages)
+                .set("previousStatus", "Pending")
+                .push("stageHistory", decision)
+                .push("outbox", OutboxEvent.of(OutboxEvent.CREDIT_REQUEST_UPDATED))
+                .inc("version", 1)
+                .unset("claimedBy")
+                .unset("leaseExpiresAt")
+                .unset("claimSlot");
+        if (decision.getRemarks() != null) {
+            update.set("remarks", decision.getRemarks());
+        }
+        return mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), CreditRequest.class);
+    }
+    
+    @Override
+    public long bulkTransition(List<BulkDecisionRequest.Decision> decisions, Map<String, Set<String>> sourcesByStatus,
+                               String decidedBy, String batchId) {
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CreditRequest.class);
+        for (BulkDecisionRequest.Decision decision : decisions) {
+            CreditRequest.StageDecision entry = new CreditRequest.StageDecision(
+                    null, decision.getStatus(), decidedBy, decision.getRemarks(), now);
+            bulk.updateOne(
+                    transitionQuery(decision.getId(), sourcesByStatus.get(decision.getStatus()),
+                            decision.getExpectedVersion(), decidedBy, CreditRequest.APPROVED.equals(decision.getStatus())),
+                    transitionUpdate(entry, batchId));
+        }
+        return bulk.execute().getMatchedCount();
+    }
+    
+    @Override
+    public List<CreditRequest> findDecisionBatches(Collection<String> ids) {
+        Query query = new Query(Criteria.where("id").in(ids));
+        query.fields().include("decisionBatch");
+        return mongoTemplate.find(query, CreditRequest.class);
+    }
+    
+    @Override
+    public CreditRequest claimNext(String analystId, int slot, LocalDateTime now, LocalDateTime leaseUntil) {
+        // Requests the analyst already decided at an earlier stage need someone else
+        Query query = new Query(Criteria.where("status").is("Pending")
+                .and("stageHistory.decidedBy").ne(analystId)
+                .orOperator(Criteria.where("leaseExpiresAt").is(null), Criteria.where("leaseExpiresAt").lt(now)));
+        query.with(Sort.by(Sort.Order.asc("createdAt"), Sort.Order.asc("id")));
+        Update update = new Update()
+                .set("claimedBy", analystId)
+                .set("leaseExpiresAt", leaseUntil)
+                .set("claimSlot", slot);
+        return mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), CreditRequest.class);
+    }
+    
+    @Override
+    public CreditRequest renewLease(String id, String analystId, LocalDateTime now, LocalDateTime leaseUntil) {
+        Query query = new Query(Criteria.where("id").is(id).and("status").is("Pending")
+                .and("claimedBy").is(analystId).and("leaseExpiresAt").gt(now));
+        return mongoTemplate.findAndModify(query, new Update().set("leaseExpiresAt", leaseUntil),
+                FindAndModifyOptions.options().returnNew(true), CreditRequest.class);
+    }
+    
+    @Override
+    public boolean releaseLease(String id, String analystId) {
+        Query query = new Query(Criteria.where("id").is(id).and("claimedBy").is(analystId));
+        Update update = new Update().unset("claimedBy").unset("leaseExpiresAt").unset("claimSlot");
+        return mongoTemplate.updateFirst(query, update, CreditRequest.class).getModifiedCount() > 0;
+    }
+    
+    @Override
+    public void releaseExpiredSlots(String analystId, LocalDateTime now) {
+        Query query = new Query(Criteria.where("claimedBy").is(analystId)
+                .and("claimSlot").exists(true).and("leaseExpiresAt").lte(now));
+        mongoTemplate.updateMulti(query, new Update().unset("claimSlot"), CreditRequest.class);
+    }
+    
+    @Override
+    public List<CreditRequest> findActiveClaims(String analystId, LocalDateTime now) {
+        Query query = new Query(Criteria.where("claimedBy").is(analystId)
+                .and("leaseExpiresAt").gt(now).and("status").is("Pending"));
+        query.with(Sort.by(Sort.Order.asc("createdAt"), Sort.Order.asc("id")));
+        return mongoTemplate.find(query, CreditRequest.class);
+    }
+    
+    @Override
+    public List<CreditRequest> findUnscored(String modelVersion, String afterId, int limit) {
+        Query query = new Query(Criteria.where("status").is("Pending").and("riskModelVersion").ne(modelVersion));
+        if (afterId != null) {
+            query.addCriteria(Criteria.where("id").gt(afterId));
+        }
+        query.fields().include("clientId", "requestAmount", "tenureMonths");
+        query.with(Sort.by("id")).limit(limit);
+        return mongoTemplate.find(query, CreditRequest.class);
+    }
+    
+    @Override
+    public long saveScores(List<String> ids, int[] scores, List<List<String>> reasons, String modelVersion) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CreditRequest.class);
+        for (int i = 0; i < ids.size(); i++) {
+            // Scores are not a decision, so the version is left alone and analysts' expectedVersion stays valid
+            bulk.updateOne(new Query(Criteria.where("id").is(ids.get(i)).and("status").is("Pending")),
+                    new Update().set("riskScore", scores[i])
+                            .set("riskReasons", reasons.get(i))
+                            .set("riskModelVersion", modelVersion));
+        }
+        return bulk.execute().getMatchedCount();
+    }
+    
+    @Override
+    public List<ExposureTotal> sumOpenExposure(String clientId, String rmId) {
+        Criteria match = Criteria.where("status").in("Pending", CreditRequest.APPROVED);
+        if (clientId != null || rmId != null) {
+            List<Criteria> scope = new ArrayList<>();
+            if (clientId != null) {
+                scope.add(Criteria.where("clientId").is(clientId));
+            }
+            if (rmId != null) {
+                scope.add(Criteria.where("submittedBy").is(rmId));
+            }
+            match = match.orOperator(scope);
+        }
+        // Amounts are summed in paise, the unit the ledger counts in
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(match),
+                Aggregation.group("clientId", "submittedBy", "status")
+                        .sum(ArithmeticOperators.Round.roundValueOf(
+                                ArithmeticOperators.Multiply.valueOf("requestAmount").multiplyBy(100)))
+                        .as("amount"),
+                Aggregation.project("amount")
+                        .and("_id.clientId").as("clientId")
+                        .and("_id.submittedBy").as("rmId")
+                        .and("_id.status").as("status")
+                        .andExclude("_id"));
+        List<ExposureTotal> totals = mongoTemplate.aggregate(aggregation, CreditRequest.class, ExposureTotal.class)
+                .getMappedResults();
+        totals.forEach(total -> total.setAmount(total.getAmount() != null ? total.getAmount() / 100 : 0.0));
+        return totals;
+    }
+    
+    @Override
+    public List<CreditRequest> findExposureInputs(Collection<String> ids) {
+        Query query = new Query(Criteria.where("id").in(ids));
+        query.fields().include("clientId", "submittedBy", "requestAmount", "status", "previousStatus");
+        return mongoTemplate.find(query, CreditRequest.class);
+    }
+    
+    @Override
+    public Stream<CreditRequest> streamApprovedExposures() {
+        Query query = new Query(Criteria.where("status").is(CreditRequest.APPROVED));
+        query.fields().include("clientId", "submittedBy", "requestAmount", "riskScore");
+        return mongoTemplate.stream(query, CreditRequest.class);
+    }
+    
+    private static Query transitionQuery(String id, Set<String> fromStatuses, Long expectedVersion,
+                                         String decidedBy, boolean finalStageOnly) {
+        Query query = new Query(Criteria.where("id").is(id).and("status").in(fromStatuses));
+        if (expectedVersion != null) {
+            query.addCriteria(Criteria.where("version").is(expectedVersion));
+        }
+        if (finalStageOnly) {
+            // Requests created before staged approval have no nextStages at all
+            query.addCriteria(new Criteria().orOperator(
+                    Criteria.where("nextStages").exists(false), Criteria.where("nextStages").size(0)));
+            query.addCriteria(Criteria.where("stageHistory.decidedBy").ne(decidedBy));
+        }
+        return query;
+    }
+    
+    // Pipeline update so the history entry can copy the document's current stage without reading it first
+    private static AggregationUpdate transitionUpdate(CreditRequest.StageDecision decision, String batchId) {
+        Document entry = new Document("stage", "$stage")
+                .append("decision", literal(decision.getDecision()))
+                .append("decidedBy", literal(decision.getDecidedBy()))
+                .append("remarks", literal(decision.getRemarks()))
+                .append("decidedAt", literal(Date.from(decision.getDecidedAt().atZone(ZoneId.systemDefault()).toInstant())));
+        // Expressions in a $set stage read the document as it was, so previousStatus gets the status being left
+        Document set = new Document("previousStatus", "$status")
+                .append("status", literal(decision.getDecision()))
+                .append("version", new Document("$add", List.of(new Document("$ifNull", Arrays.asList("$version", 0)), 1)))
+                .append("stageHistory", new Document("$concatArrays", List.of(
+                        new Document("$ifNull", Arrays.asList("$stageHistory", List.of())),
+                        List.of(entry))))
+                // The event lands in the same write as the decision, so the relay can never miss or invent one
+                .append("outbox", new Document("$concatArrays", List.of(
+                        new Document("$ifNull", Arrays.asList("$outbox", List.of())),
+                        List.of(outboxEntry(OutboxEvent.of(OutboxEvent.CREDIT_REQUEST_UPDATED))))));
+        if (decision.getRemarks() != null) {
+            set.append("remarks", literal(decision.getRemarks()));
+        }
+        if (batchId != null) {
+            set.append("decisionBatch", literal(batchId));
+        }
+        
+        // A decision ends the approval route and any review lease on the request
+        Document unset = new Document("$unset", List.of("stage", "nextStages", "claimedBy", "leaseExpiresAt", "claimSlot"));
+        return AggregationUpdate.from(List.<AggregationOperation>of(
+                context -> new Document("$set", set),
+                context -> unset));
+    }
+    
+    private static Document outboxEntry(OutboxEvent event) {
+        return new Document("eventId", literal(event.getEventId()))
+                .append("type", literal(event.getType()))
+                .append("occurredAt", literal(Date.from(event.getOccurredAt().atZone(ZoneId.systemDefault()).toInstant())));
+    }
+    
+    // User-supplied values must not be read as field paths or operators inside a pipeline
+    private static Document literal(Object value) {
+        return new Document("$literal", value);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.JwtKey;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface JwtKeyRepository extends MongoRepository<JwtKey, String> {
+}
@@ -0,0 +1,26 @@
+package com.example.demo.repository;
+
+import org.springframework.data.mongodb.core.query.Criteria;
+
+// Seek predicates for keyset pagination over (sortField, id)
+final class Keyset {
+    
+    private Keyset() {
+    }
+    
+    // Rows strictly after (value, id) in ascending order
+    static Criteria after(String field, Object value, String id) {
+        return new Criteria().orOperator(
+                Criteria.where(field).gt(value),
+                Criteria.where(field).is(value).and("id").gt(id)
+        );
+    }
+    
+    // Rows strictly after (value, id) in descending order
+    static Criteria before(String field, Object value, String id) {
+        return new Criteria().orOperator(
+                Criteria.where(field).lt(value),
+                Criteria.where(field).is(value).and("id").lt(id)
+        );
+    }
+}
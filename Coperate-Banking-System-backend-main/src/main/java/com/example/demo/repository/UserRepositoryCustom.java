@@ -0,0 +1,10 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.User;
+
+import java.util.List;
+
+public interface UserRepositoryCustom {
+    // Users ordered by (username, id) without password hashes, starting after the given keyset when present
+    List<User> findPage(String afterUsername, String afterId, int limit);
+}
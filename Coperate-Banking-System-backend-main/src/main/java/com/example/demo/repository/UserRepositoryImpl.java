@@ -0,0 +1,27 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+public class UserRepositoryImpl implements UserRepositoryCustom {
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Override
+    public List<User> findPage(String afterUsername, String afterId, int limit) {
+        Query query = new Query();
+        if (afterId != null) {
+            query.addCriteria(Keyset.after("username", afterUsername, afterId));
+        }
+        query.fields().exclude("password");
+        query.with(Sort.by(Sort.Order.asc("username"), Sort.Order.asc("id")))
+                .limit(limit);
+        return mongoTemplate.find(query, User.class);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.demo.security;
+
+import com.example.demo.exception.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Token buckets per client IP and per username, checked before any DB lookup or password hashing. Username
+// buckets are kept per client IP as well, so guessing at an account from one address cannot lock its owner out
+// everywhere else. The client IP is the address behind any trusted proxy (server.forward-headers-strategy).
+@Component
+public class AuthRateLimiter {
+    
+    @Value("${security.rate-limit.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${security.rate-limit.ip.capacity:20}")
+    private int ipCapacity;
+    
+    @Value("${security.rate-limit.ip.refill-per-minute:20}")
+    private int ipRefillPerMinute;
+    
+    @Value("${security.rate-limit.username.capacity:5}")
+    private int usernameCapacity;
+    
+    @Value("${security.rate-limit.username.refill-per-minute:5}")
+    private int usernameRefillPerMinute;
+    
+    @Value("${security.rate-limit.max-buckets:100000}")
+    private int maxBuckets;
+    
+    private final Map<String, Bucket> ipBuckets = new ConcurrentHashMap<>();
+    private final Map<String, Bucket> usernameBuckets = new ConcurrentHashMap<>();
+    
+    private final LongAdder ipRejections = new LongAdder();
+    private final LongAdder usernameRejections = new LongAdder();
+    
+    public void acquire(String clientIp, String username) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        
+        // A new address while the map is full is turned away rather than sharing a bucket with every other one
+        Bucket ipBucket = bucket(ipBuckets, clientIp);
+        if (ipBucket == null || !ipBucket.tryConsume(now, ipCapacity, ipRefillPerMinute)) {
+            ipRejections.increment();
+            throw new TooManyRequestsException("Too many attempts, please try again later");
+        }
+        
+        // Only reached once the IP bucket allowed the attempt; when the map is full the IP bucket alone applies
+        if (username != null) {
+            Bucket userBucket = bucket(usernameBuckets, username.toLowerCase(Locale.ROOT) + "|" + clientIp);
+            if (userBucket != null && !userBucket.tryConsume(now, usernameCapacity, usernameRefillPerMinute)) {
+                usernameRejections.increment();
+                throw new TooManyRequestsException("Too many attempts, please try again later");
+            }
+        }
+    }
+    
+    public Map<String, Long> getStats() {
+        return Map.of(
+                "ipBuckets", (long) ipBuckets.size(),
+                "usernameBuckets", (long) usernameBuckets.size(),
+                "ipRejections", ipRejections.sum(),
+                "usernameRejections", usernameRejections.sum()
+        );
+    }
+    
+    // Drops buckets that have been idle long enough to be full again
+    @Scheduled(fixedDelayString = "${security.rate-limit.cleanup-ms:60000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        ipBuckets.values().removeIf(bucket -> bucket.isIdle(now, ipCapacity, ipRefillPerMinute));
+        usernameBuckets.values().removeIf(bucket -> bucket.isIdle(now, usernameCapacity, usernameRefillPerMinute));
+    }
+    
+    // Null when the key is new and the map already holds max-buckets, so memory stays bounded
+    private Bucket bucket(Map<String, Bucket> buckets, String key) {
+        Bucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxBuckets) {
+            return null;
+        }
+        return buckets.computeIfAbsent(key, k -> new Bucket());
+    }
+    
+    // Each bucket is its own lock, so contention is limited to attempts on the same key
+    static class Bucket {
+        private double tokens = -1;
+        private long lastRefill;
+        
+        synchronized boolean tryConsume(long now, int capacity, int refillPerMinute) {
+            refill(now, capacity, refillPerMinute);
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+        
+        synchronized boolean isIdle(long now, int capacity, int refillPerMinute) {
+            refill(now, capacity, refillPerMinute);
+            return tokens >= capacity;
+        }
+        
+        private void refill(long now, int capacity, int refillPerMinute) {
+            if (tokens < 0) {
+                tokens = capacity;
+            } else {
+                double elapsedMinutes = (now - lastRefill) / 60_000_000_000.0;
+                tokens = Math.min(capacity, tokens + elapsedMinutes * refillPerMinute);
+            }
+            lastRefill = now;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.demo.security;
+
+import com.example.demo.exception.ServiceUnavailableException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs BCrypt on its own fixed pool so a login storm cannot occupy every request thread. BCrypt cannot be
+// interrupted, so work is bounded before it starts: a task still queued after timeoutMs is dropped unhashed.
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+    
+    private final BCryptPasswordEncoder delegate;
+    private final int strength;
+    private final long timeoutNanos;
+    private final ThreadPoolExecutor executor;
+    
+    public BoundedPasswordEncoder(int strength, int threads, int queueCapacity, long timeoutMs) {
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.strength = strength;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+    
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> delegate.encode(rawPassword));
+    }
+    
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+    
+    // True when the stored hash was produced with a different work factor than the configured one
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$') {
+            return false;
+        }
+        try {
+            int storedStrength = Integer.parseInt(encodedPassword.substring(4, 6));
+            return storedStrength != strength;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+    
+    private <T> T submit(Callable<T> task) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                if (System.nanoTime() - deadline > 0) {
+                    throw new ServiceUnavailableException("Too many authentication requests, please retry shortly");
+                }
+                return task.call();
+            });
+        } catch (RejectedExecutionException e) {
+            throw new ServiceUnavailableException("Too many authentication requests, please retry shortly");
+        }
+        
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Password hashing interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+    
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -22,32 +22,48 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtil jwtUtil;
     
+    @Autowired
+    private TokenCache tokenCache;
+    
+    @Autowired
+    private RevocationRegistry revocationRegistry;
+    
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
                                     FilterChain filterChain) throws ServletException, IOException {
         
         String authHeader = request.getHeader("Authorization");
-        String token = null;
-        String username = null;
         
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
+        if (authHeader != null && authHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String token = authHeader.substring(7);
+            JwtPrincipal principal = null;
             try {
-                username = jwtUtil.extractUsername(token);
+                if (tokenCache.isEnabled()) {
+                    principal = tokenCache.get(token);
+                }
+                if (principal == null) {
+                    // Signature and expiry are checked by the parser in a single pass
+                    principal = jwtUtil.parseToken(token);
+                    if (tokenCache.isEnabled()) {
+                        tokenCache.put(token, principal);
+                    }
+                }
             } catch (Exception e) {
                 logger.error("JWT Token extraction failed", e);
             }
-        }
-        
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            if (jwtUtil.validateToken(token, username)) {
-                String role = jwtUtil.extractRole(token);
-                
+            
+            if (principal != null && revocationRegistry.isRevoked(principal.getUserId())) {
+                logger.debug("Rejected token of deactivated user " + principal.getUsername());
+                principal = null;
+            }
+            
+            if (principal != null && principal.getUsername() != null) {
                 UsernamePasswordAuthenticationToken authToken = 
                     new UsernamePasswordAuthenticationToken(
-                        username, 
+                        principal, 
                         null, 
-                        Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role))
+                        Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + principal.getRole()))
                     );
                 
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -57,4 +73,4 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,312 @@
+package com.example.demo.security;
+
+import com.example.demo.exception.ServiceUnavailableException;
+import com.example.demo.model.JwtKey;
+import com.example.demo.repository.JwtKeyRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Signing keys addressed by the "kid" header; retired keys keep verifying until their last token expires.
+ * Asymmetric keys live in the jwtKeys collection so every node signs and verifies with the same ones and
+ * they survive restarts. Each rotation period has one key whose ID every node derives the same way, so
+ * whichever node inserts it first wins. The next period's key is created publish-lead-ms before it starts
+ * signing, which gives JWKS consumers time to refresh their cached copy.
+ */
+@Component
+public class JwtKeyRing extends SigningKeyResolverAdapter {
+    
+    private static final Logger log = LoggerFactory.getLogger(JwtKeyRing.class);
+    
+    // Tokens issued before key IDs existed carry no "kid" and are checked against the shared secret
+    static final String LEGACY_KID = "hmac";
+    
+    // How long consumers may cache /.well-known/jwks.json
+    public static final Duration JWKS_CACHE = Duration.ofMinutes(5);
+    
+    private static final int GCM_IV_BYTES = 12;
+    private static final int GCM_TAG_BITS = 128;
+    
+    @Autowired
+    private JwtKeyRepository jwtKeyRepository;
+    
+    @Value("${jwt.secret}")
+    private String secret;
+    
+    @Value("${jwt.algorithm:HS256}")
+    private String algorithmName;
+    
+    @Value("${jwt.expiration}")
+    private Long expiration;
+    
+    @Value("${jwt.keys.rotation-ms:86400000}")
+    private long rotationMs = 86400000;
+    
+    @Value("${jwt.keys.publish-lead-ms:600000}")
+    private long publishLeadMs = 600000;
+    
+    @Value("${jwt.keys.refresh-ms:60000}")
+    private long refreshMs = 60000;
+    
+    // Once an asymmetric algorithm is configured, tokens signed with jwt.secret stop verifying after this
+    @Value("${jwt.keys.legacy-grace-ms:3600000}")
+    private long legacyGraceMs = 3600000;
+    
+    private final SecureRandom random = new SecureRandom();
+    
+    private SignatureAlgorithm algorithm;
+    private SigningKey legacyKey;
+    private SecretKeySpec wrappingKey;
+    private volatile Map<String, SigningKey> keys = Map.of();
+    
+    @PostConstruct
+    void init() {
+        algorithm = SignatureAlgorithm.forName(algorithmName);
+        // The only HMAC key is jwt.secret, which signs with HS256
+        if (algorithm.isHmac() && algorithm != SignatureAlgorithm.HS256) {
+            throw new IllegalStateException("jwt.algorithm " + algorithmName + " is not supported; use HS256 or an asymmetric algorithm");
+        }
+        boolean hmac = algorithm.isHmac();
+        legacyKey = new SigningKey(LEGACY_KID, SignatureAlgorithm.HS256, Keys.hmacShaKeyFor(secret.getBytes()),
+                null, 0, hmac ? Long.MAX_VALUE : System.currentTimeMillis() + legacyGraceMs);
+        keys = Map.of(LEGACY_KID, legacyKey);
+        if (hmac) {
+            return;
+        }
+        
+        if (publishLeadMs < JWKS_CACHE.toMillis() + refreshMs || publishLeadMs >= rotationMs) {
+            throw new IllegalStateException("jwt.keys.publish-lead-ms must cover the JWKS cache time plus " +
+                    "jwt.keys.refresh-ms and be shorter than jwt.keys.rotation-ms");
+        }
+        try {
+            wrappingKey = new SecretKeySpec(MessageDigest.getInstance("SHA-256")
+                    .digest(secret.getBytes(StandardCharsets.UTF_8)), "AES");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        refresh();
+        getActive();
+    }
+    
+    // Newest key whose signing period has started; keys only swap at period boundaries, identically on every node
+    public SigningKey getActive() {
+        if (algorithm.isHmac()) {
+            return legacyKey;
+        }
+        long now = System.currentTimeMillis();
+        SigningKey active = null;
+        for (SigningKey key : keys.values()) {
+            if (key.getPublicKey() != null && key.getActivatesAt() <= now
+                    && (active == null || key.getActivatesAt() > active.getActivatesAt())) {
+                active = key;
+            }
+        }
+        if (active == null) {
+            throw new ServiceUnavailableException("No JWT signing key is available");
+        }
+        return active;
+    }
+    
+    // Creates the current and, inside the publish lead, the next period's key if no node has yet,
+    // then reloads every key from MongoDB
+    @Scheduled(fixedDelayString = "${jwt.keys.refresh-ms:60000}",
+               initialDelayString = "${jwt.keys.refresh-ms:60000}")
+    public void refresh() {
+        if (algorithm.isHmac()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try {
+            long period = now / rotationMs;
+            ensure(period);
+            if ((period + 1) * rotationMs - now <= publishLeadMs) {
+                ensure(period + 1);
+            }
+            
+            Map<String, SigningKey> loaded = new HashMap<>();
+            for (JwtKey stored : jwtKeyRepository.findAll()) {
+                if (stored.getExpiresAt().toEpochMilli() < now) {
+                    continue;
+                }
+                SigningKey known = keys.get(stored.getId());
+                SigningKey key = known != null ? known : decode(stored);
+                if (key != null) {
+                    loaded.put(key.getKid(), key);
+                }
+            }
+            if (legacyKey.getRetiredAt() >= now) {
+                loaded.put(LEGACY_KID, legacyKey);
+            }
+            keys = loaded;
+        } catch (RuntimeException e) {
+            log.warn("JWT key refresh failed, keeping current keys", e);
+        }
+    }
+    
+    // jjwt 0.11 declares this with a raw JwsHeader, so JwsHeader<?> would not override it
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+        String kid = header.getKeyId() != null ? header.getKeyId() : LEGACY_KID;
+        SigningKey key = keys.get(kid);
+        if (key == null || key.getRetiredAt() < System.currentTimeMillis()
+                || !key.getAlgorithm().getValue().equals(header.getAlgorithm())) {
+            throw new SignatureException("Unknown signing key: " + kid);
+        }
+        return key.getVerificationKey();
+    }
+    
+    // Public halves of every asymmetric key, in RFC 7517 JWK form, including the next key before it signs
+    public List<Map<String, Object>> publicJwks() {
+        List<Map<String, Object>> jwks = new ArrayList<>();
+        for (SigningKey key : keys.values()) {
+            if (key.getVerificationKey() instanceof PublicKey publicKey) {
+                jwks.add(toJwk(key, publicKey));
+            }
+        }
+        return jwks;
+    }
+    
+    private void ensure(long period) {
+        String kid = algorithm.getValue() + "-" + period;
+        if (keys.containsKey(kid) || jwtKeyRepository.existsById(kid)) {
+            return;
+        }
+        KeyPair pair = Keys.keyPairFor(algorithm);
+        Instant activatesAt = Instant.ofEpochMilli(period * rotationMs);
+        Instant signsUntil = activatesAt.plusMillis(rotationMs);
+        JwtKey stored = new JwtKey(kid, algorithm.getValue(), pair.getPublic().getAlgorithm(),
+                Base64.getEncoder().encodeToString(pair.getPublic().getEncoded()),
+                Base64.getEncoder().encodeToString(encrypt(pair.getPrivate().getEncoded())),
+                activatesAt, signsUntil, signsUntil.plusMillis(expiration));
+        try {
+            jwtKeyRepository.insert(stored);
+            log.info("Created JWT signing key {} active from {}", kid, activatesAt);
+        } catch (DuplicateKeyException e) {
+            // Another node created it first
+        }
+    }
+    
+    private SigningKey decode(JwtKey stored) {
+        try {
+            KeyFactory factory = KeyFactory.getInstance(stored.getKeyType());
+            PublicKey publicKey = factory.generatePublic(
+                    new X509EncodedKeySpec(Base64.getDecoder().decode(stored.getPublicKey())));
+            Key privateKey = factory.generatePrivate(
+                    new PKCS8EncodedKeySpec(decrypt(Base64.getDecoder().decode(stored.getPrivateKey()))));
+            return new SigningKey(stored.getId(), SignatureAlgorithm.forName(stored.getAlgorithm()), privateKey,
+                    publicKey, stored.getActivatesAt().toEpochMilli(), stored.getExpiresAt().toEpochMilli());
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            log.error("JWT key {} cannot be decoded, was jwt.secret changed?", stored.getId(), e);
+            return null;
+        }
+    }
+    
+    // IV followed by ciphertext and tag
+    private byte[] encrypt(byte[] plain) {
+        try {
+            byte[] iv = new byte[GCM_IV_BYTES];
+            random.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, wrappingKey, new GCMParameterSpec(GCM_TAG_BITS, iv));
+            byte[] sealed = cipher.doFinal(plain);
+            return ByteBuffer.allocate(iv.length + sealed.length).put(iv).put(sealed).array();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot encrypt JWT signing key", e);
+        }
+    }
+    
+    private byte[] decrypt(byte[] sealed) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, wrappingKey, new GCMParameterSpec(GCM_TAG_BITS, sealed, 0, GCM_IV_BYTES));
+        return cipher.doFinal(sealed, GCM_IV_BYTES, sealed.length - GCM_IV_BYTES);
+    }
+    
+    private Map<String, Object> toJwk(SigningKey key, PublicKey publicKey) {
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        jwk.put("kid", key.getKid());
+        jwk.put("use", "sig");
+        jwk.put("alg", key.getAlgorithm().getValue());
+        if (publicKey instanceof ECPublicKey ecKey) {
+            int size = (ecKey.getParams().getCurve().getField().getFieldSize() + 7) / 8;
+            jwk.put("kty", "EC");
+            jwk.put("crv", "P-" + ecKey.getParams().getCurve().getField().getFieldSize());
+            jwk.put("x", base64Url(ecKey.getW().getAffineX(), size));
+            jwk.put("y", base64Url(ecKey.getW().getAffineY(), size));
+        } else if (publicKey instanceof RSAPublicKey rsaKey) {
+            jwk.put("kty", "RSA");
+            jwk.put("n", base64Url(rsaKey.getModulus(), (rsaKey.getModulus().bitLength() + 7) / 8));
+            jwk.put("e", base64Url(rsaKey.getPublicExponent(), (rsaKey.getPublicExponent().bitLength() + 7) / 8));
+        }
+        return jwk;
+    }
+    
+    // Unsigned big-endian encoding padded to the given length
+    private static String base64Url(BigInteger value, int length) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > length) {
+            bytes = Arrays.copyOfRange(bytes, bytes.length - length, bytes.length);
+        } else if (bytes.length < length) {
+            byte[] padded = new byte[length];
+            System.arraycopy(bytes, 0, padded, length - bytes.length, bytes.length);
+            bytes = padded;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+    
+    @Getter
+    @AllArgsConstructor
+    public static class SigningKey {
+        private final String kid;
+        private final SignatureAlgorithm algorithm;
+        private final Key signingKey;
+        private final Key publicKey;
+        private final long activatesAt;
+        private final long retiredAt;
+        
+        public Key getVerificationKey() {
+            return publicKey != null ? publicKey : signingKey;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.demo.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.security.Principal;
+import java.util.Date;
+
+// Claims of a verified JWT, stored as the principal of the SecurityContext
+@Getter
+@AllArgsConstructor
+public class JwtPrincipal implements Principal {
+    
+    private final String username;
+    private final String userId;
+    private final String role;
+    private final Date expiration;
+    
+    @Override
+    public String getName() {
+        return username;
+    }
+    
+    @Override
+    public String toString() {
+        return username;
+    }
+}
@@ -2,13 +2,13 @@ package com.example.demo.security;
 
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -16,14 +16,20 @@ import java.util.Map;
 @Component
 public class JwtUtil {
     
-    @Value("${jwt.secret}")
-    private String secret;
+    @Autowired
+    private JwtKeyRing keyRing;
     
     @Value("${jwt.expiration}")
     private Long expiration;
     
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    // The parser is thread-safe and looks up the verification key by "kid", so build it once
+    private JwtParser parser;
+    
+    @PostConstruct
+    void init() {
+        parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(keyRing)
+                .build();
     }
     
     public String generateToken(String username, String role, String userId) {
@@ -34,45 +40,33 @@ public class JwtUtil {
     }
     
     private String createToken(Map<String, Object> claims, String subject) {
+        JwtKeyRing.SigningKey key = keyRing.getActive();
+        Map<String, Object> header = new HashMap<>();
+        if (!JwtKeyRing.LEGACY_KID.equals(key.getKid())) {
+            header.put("kid", key.getKid());
+        }
         return Jwts.builder()
+                .setHeaderParams(header)
                 .setClaims(claims)
                 .setSubject(subject)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(key.getSigningKey(), key.getAlgorithm())
                 .compact();
     }
     
-    public String extractUsername(String token) {
-        return extractAllClaims(token).getSubject();
-    }
-    
-    public String extractRole(String token) {
-        return extractAllClaims(token).get("role", String.class);
-    }
-    
-    public String extractUserId(String token) {
-        return extractAllClaims(token).get("userId", String.class);
-    }
-    
-    public Date extractExpiration(String token) {
-        return extractAllClaims(token).getExpiration();
+    // Verifies signature and expiry once and returns every claim the app needs
+    public JwtPrincipal parseToken(String token) {
+        Claims claims = extractAllClaims(token);
+        return new JwtPrincipal(
+                claims.getSubject(),
+                claims.get("userId", String.class),
+                claims.get("role", String.class),
+                claims.getExpiration()
+        );
     }
     
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-    
-    public Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-    
-    public Boolean validateToken(String token, String username) {
-        final String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
+        return parser.parseClaimsJws(token).getBody();
     }
-}
\ No newline at end of file
+}
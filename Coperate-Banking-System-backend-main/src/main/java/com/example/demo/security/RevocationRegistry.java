@@ -0,0 +1,80 @@
+package com.example.demo.security;
+
+import com.example.demo.model.User;
+import com.example.demo.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// In-memory set of deactivated user IDs whose tokens must be rejected before they expire
+@Component
+public class RevocationRegistry {
+    
+    private static final Logger log = LoggerFactory.getLogger(RevocationRegistry.class);
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    private volatile Set<String> revokedUserIds = ConcurrentHashMap.newKeySet();
+    
+    // Local revokes (true) and restores (false) made while a reload queries, applied on top of its result so
+    // the swap cannot undo them; null when no reload is running. Guarded by this.
+    private Map<String, Boolean> changesDuringRefresh;
+    
+    public boolean isRevoked(String userId) {
+        return userId != null && revokedUserIds.contains(userId);
+    }
+    
+    public synchronized void revoke(String userId) {
+        revokedUserIds.add(userId);
+        if (changesDuringRefresh != null) {
+            changesDuringRefresh.put(userId, true);
+        }
+    }
+    
+    public synchronized void restore(String userId) {
+        revokedUserIds.remove(userId);
+        if (changesDuringRefresh != null) {
+            changesDuringRefresh.put(userId, false);
+        }
+    }
+    
+    // Reloads from the users collection so that changes made on other nodes show up within seconds
+    @Scheduled(initialDelay = 0, fixedDelayString = "${jwt.revocation.refresh-ms:5000}")
+    public void refresh() {
+        synchronized (this) {
+            changesDuringRefresh = new LinkedHashMap<>();
+        }
+        Set<String> latest;
+        try {
+            latest = userRepository.findInactiveUserIds().stream()
+                    .map(User::getId)
+                    .collect(Collectors.toCollection(ConcurrentHashMap::newKeySet));
+        } catch (Exception e) {
+            log.warn("Failed to refresh revoked users, keeping previous set", e);
+            synchronized (this) {
+                changesDuringRefresh = null;
+            }
+            return;
+        }
+        synchronized (this) {
+            changesDuringRefresh.forEach((userId, revoked) -> {
+                if (revoked) {
+                    latest.add(userId);
+                } else {
+                    latest.remove(userId);
+                }
+            });
+            changesDuringRefresh = null;
+            revokedUserIds = latest;
+        }
+    }
+}
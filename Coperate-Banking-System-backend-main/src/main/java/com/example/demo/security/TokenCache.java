@@ -0,0 +1,113 @@
+package com.example.demo.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded LRU cache of verified tokens, keyed by a SHA-256 digest of the raw token
+@Component
+public class TokenCache {
+    
+    @Value("${jwt.cache.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${jwt.cache.max-size:10000}")
+    private int maxSize;
+    
+    private static final int STRIPES = 32;
+    
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    
+    // Access-ordered LRU split into independently locked stripes, so concurrent requests rarely share a lock;
+    // each stripe holds an equal share of max-size
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    
+    {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public JwtPrincipal get(String token) {
+        String key = Digests.sha256Hex(token);
+        Stripe stripe = stripe(key);
+        JwtPrincipal principal;
+        synchronized (stripe) {
+            principal = stripe.get(key);
+            // Entries live only as long as the token itself
+            if (principal != null && principal.getExpiration().getTime() <= System.currentTimeMillis()) {
+                stripe.remove(key);
+                evictions.increment();
+                principal = null;
+            }
+        }
+        if (principal == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return principal;
+    }
+    
+    public void put(String token, JwtPrincipal principal) {
+        String key = Digests.sha256Hex(token);
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            stripe.put(key, principal);
+        }
+    }
+    
+    // Drops every cached token of a user, e.g. after deactivation
+    public void evictUser(String userId) {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.values().removeIf(principal -> userId.equals(principal.getUserId()));
+            }
+        }
+    }
+    
+    public Map<String, Long> getStats() {
+        long size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return Map.of(
+                "size", size,
+                "hits", hits.sum(),
+                "misses", misses.sum(),
+                "evictions", evictions.sum()
+        );
+    }
+    
+    private Stripe stripe(String key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+    
+    private final class Stripe extends LinkedHashMap<String, JwtPrincipal> {
+        
+        private Stripe() {
+            super(16, 0.75f, true);
+        }
+        
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, JwtPrincipal> eldest) {
+            if (size() > Math.max(1, (maxSize + STRIPES - 1) / STRIPES)) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
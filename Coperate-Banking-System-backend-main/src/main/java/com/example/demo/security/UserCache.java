@@ -0,0 +1,83 @@
+package com.example.demo.security;
+
+import com.example.demo.model.User;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Read-through cache of user projections by username; password hashes are never stored here
+@Component
+public class UserCache {
+    
+    @Value("${security.user-cache.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${security.user-cache.max-size:10000}")
+    private int maxSize;
+    
+    // Bounds staleness on other nodes, which do not see local invalidations
+    @Value("${security.user-cache.ttl-ms:300000}")
+    private long ttlMs;
+    
+    private final LinkedHashMap<String, Entry> entries =
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    return size() > maxSize;
+                }
+            };
+    
+    public User get(String username) {
+        if (!enabled) {
+            return null;
+        }
+        synchronized (entries) {
+            Entry entry = entries.get(username);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.getLoadedAt() + ttlMs < System.currentTimeMillis()) {
+                entries.remove(username);
+                return null;
+            }
+            return entry.toUser();
+        }
+    }
+    
+    public void put(User user) {
+        if (!enabled || user == null || user.getUsername() == null) {
+            return;
+        }
+        Entry entry = new Entry(user.getId(), user.getUsername(), user.getEmail(), user.getRole(),
+                user.getActive(), System.currentTimeMillis());
+        synchronized (entries) {
+            entries.put(user.getUsername(), entry);
+        }
+    }
+    
+    public void invalidate(String username) {
+        synchronized (entries) {
+            entries.remove(username);
+        }
+    }
+    
+    @Getter
+    @AllArgsConstructor
+    static class Entry {
+        private final String id;
+        private final String username;
+        private final String email;
+        private final String role;
+        private final Boolean active;
+        private final long loadedAt;
+        
+        // Fresh copy per call so callers cannot mutate the cached state
+        User toUser() {
+            return new User(id, username, email, null, role, active);
+        }
+    }
+}
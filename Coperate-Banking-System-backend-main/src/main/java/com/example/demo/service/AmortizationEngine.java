@@ -0,0 +1,67 @@
+package com.example.demo.service;
+
+// Repayment schedules in fixed-point minor units (paise). Periods are produced one at a time into a
+// primitive callback, so a schedule of any length allocates nothing per period.
+public final class AmortizationEngine {
+    
+    public enum Method {
+        REDUCING, // interest on the outstanding balance, equal installments (EMI)
+        FLAT      // interest on the original principal for the whole tenure, spread evenly
+    }
+    
+    @FunctionalInterface
+    public interface PeriodSink {
+        void period(int period, long installment, long principal, long interest, long balance);
+    }
+    
+    public static final PeriodSink DISCARD = (period, installment, principal, interest, balance) -> { };
+    
+    private AmortizationEngine() {
+    }
+    
+    public static long toMinorUnits(double amount) {
+        return Math.round(amount * 100);
+    }
+    
+    // Regular installment; the final one may differ by the rounding carried through the schedule
+    public static long installment(Method method, long principal, double annualRatePercent, int months) {
+        double monthlyRate = annualRatePercent / 1200;
+        if (method == Method.FLAT) {
+            long totalInterest = Math.round(principal * annualRatePercent / 100 * months / 12);
+            return (principal + totalInterest) / months;
+        }
+        if (monthlyRate == 0) {
+            return principal / months;
+        }
+        double growth = Math.pow(1 + monthlyRate, months);
+        return Math.round(principal * monthlyRate * growth / (growth - 1));
+    }
+    
+    // Emits every period in order and returns the total interest
+    public static long schedule(Method method, long principal, double annualRatePercent, int months, PeriodSink sink) {
+        long installment = installment(method, principal, annualRatePercent, months);
+        double monthlyRate = annualRatePercent / 1200;
+        long flatInterest = method == Method.FLAT ? Math.round(principal * annualRatePercent / 100 * months / 12) : 0;
+        long flatPrincipal = principal / months;
+        
+        long balance = principal;
+        long totalInterest = 0;
+        for (int period = 1; period <= months; period++) {
+            boolean last = period == months;
+            long interest;
+            long repaid;
+            if (method == Method.FLAT) {
+                // The last period takes the remainders of both even splits
+                interest = last ? flatInterest - totalInterest : flatInterest / months;
+                repaid = last ? balance : flatPrincipal;
+            } else {
+                interest = Math.round(balance * monthlyRate);
+                repaid = last ? balance : Math.min(installment - interest, balance);
+            }
+            balance -= repaid;
+            totalInterest += interest;
+            sink.period(period, repaid + interest, repaid, interest, balance);
+        }
+        return totalInterest;
+    }
+}
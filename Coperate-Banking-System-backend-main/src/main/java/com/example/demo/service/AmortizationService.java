@@ -0,0 +1,146 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.AmortizationSummary;
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.model.CreditRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+@Service
+public class AmortizationService {
+    
+    private static final byte[] CSV_HEADER = "period,installment,principal,interest,balance\n".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_TENURE_MONTHS = 1200;
+    
+    @Autowired
+    private CreditRequestService creditRequestService;
+    
+    public AmortizationSummary summarize(String requestId, String method, Double annualRate) {
+        CreditRequest request = creditRequestService.getCreditRequestById(requestId);
+        AmortizationEngine.Method parsed = parseMethod(method);
+        int months = tenureOf(request);
+        validateRate(annualRate);
+        
+        long principal = AmortizationEngine.toMinorUnits(request.getRequestAmount());
+        long installment = AmortizationEngine.installment(parsed, principal, annualRate, months);
+        long totalInterest = AmortizationEngine.schedule(parsed, principal, annualRate, months, AmortizationEngine.DISCARD);
+        return new AmortizationSummary(request.getId(), parsed.name(), annualRate, months, principal / 100.0,
+                installment / 100.0, totalInterest / 100.0, (principal + totalInterest) / 100.0);
+    }
+    
+    // Resolves and validates everything up front, so errors surface before the response starts streaming
+    public ScheduleWriter prepareSchedule(String requestId, String method, Double annualRate) {
+        CreditRequest request = creditRequestService.getCreditRequestById(requestId);
+        AmortizationEngine.Method parsed = parseMethod(method);
+        int months = tenureOf(request);
+        validateRate(annualRate);
+        long principal = AmortizationEngine.toMinorUnits(request.getRequestAmount());
+        return out -> new CsvSink(out).write(parsed, principal, annualRate, months);
+    }
+    
+    @FunctionalInterface
+    public interface ScheduleWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+    
+    private static AmortizationEngine.Method parseMethod(String method) {
+        try {
+            return method == null ? AmortizationEngine.Method.REDUCING
+                    : AmortizationEngine.Method.valueOf(method.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Amortization method must be REDUCING or FLAT");
+        }
+    }
+    
+    private static int tenureOf(CreditRequest request) {
+        Integer months = request.getTenureMonths();
+        if (months == null || months <= 0 || months > MAX_TENURE_MONTHS || request.getRequestAmount() == null) {
+            throw new BadRequestException("Credit request has no valid amount and tenure to amortize");
+        }
+        return months;
+    }
+    
+    private static void validateRate(Double annualRate) {
+        if (annualRate == null || annualRate < 0 || annualRate > 100) {
+            throw new BadRequestException("Annual rate must be between 0 and 100 percent");
+        }
+    }
+    
+    // Formats each period straight into one reused byte buffer, so streaming allocates nothing per row
+    private static final class CsvSink implements AmortizationEngine.PeriodSink {
+        
+        private final OutputStream out;
+        private final byte[] buffer = new byte[16 * 1024];
+        private int position;
+        
+        private CsvSink(OutputStream out) {
+            this.out = out;
+        }
+        
+        void write(AmortizationEngine.Method method, long principal, double annualRate, int months) throws IOException {
+            out.write(CSV_HEADER);
+            try {
+                AmortizationEngine.schedule(method, principal, annualRate, months, this);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.write(buffer, 0, position);
+            out.flush();
+        }
+        
+        @Override
+        public void period(int period, long installment, long principal, long interest, long balance) {
+            // A row is at most five 20-digit numbers plus separators
+            if (buffer.length - position < 128) {
+                try {
+                    out.write(buffer, 0, position);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                position = 0;
+            }
+            putLong(period);
+            buffer[position++] = ',';
+            putAmount(installment);
+            buffer[position++] = ',';
+            putAmount(principal);
+            buffer[position++] = ',';
+            putAmount(interest);
+            buffer[position++] = ',';
+            putAmount(balance);
+            buffer[position++] = '\n';
+        }
+        
+        // Minor units as rupees with two decimals, e.g. 8884879 -> 88848.79
+        private void putAmount(long minor) {
+            if (minor < 0) {
+                buffer[position++] = '-';
+                minor = -minor;
+            }
+            putLong(minor / 100);
+            long paise = minor % 100;
+            buffer[position++] = '.';
+            buffer[position++] = (byte) ('0' + paise / 10);
+            buffer[position++] = (byte) ('0' + paise % 10);
+        }
+        
+        private void putLong(long value) {
+            int start = position;
+            do {
+                buffer[position++] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value > 0);
+            for (int i = start, j = position - 1; i < j; i++, j--) {
+                byte digit = buffer[i];
+                buffer[i] = buffer[j];
+                buffer[j] = digit;
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.demo.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+// Decides which approval stages a credit request must pass, from rules such as
+// "amount>=25000000&industry=Real Estate->ANALYST,SECOND_APPROVER" separated by ';' (first match wins)
+@Component
+public class ApprovalRouter {
+    
+    static final List<String> DEFAULT_ROUTE = List.of("ANALYST");
+    
+    @Value("${credit.workflow.rules:amount>=100000000->ANALYST,SECOND_APPROVER,COMMITTEE;amount>=25000000->ANALYST,SECOND_APPROVER;*->ANALYST}")
+    private String rules;
+    
+    private DecisionTable table;
+    
+    @PostConstruct
+    void init() {
+        table = DecisionTable.compile(rules);
+    }
+    
+    // Ordered stages for a request; the returned list is shared and must not be modified
+    public List<String> route(Double amount, Integer tenureMonths, String industry) {
+        return table.route(amount, tenureMonths, industry);
+    }
+    
+    // Rules flattened into one cell per (amount band, tenure band, industry); routing never interprets a rule
+    static final class DecisionTable {
+        
+        private final double[] amountCuts;
+        private final int[] tenureCuts;
+        private final Map<String, Integer> industries;
+        private final int[] cells;
+        private final List<List<String>> routes;
+        
+        private DecisionTable(double[] amountCuts, int[] tenureCuts, Map<String, Integer> industries,
+                              int[] cells, List<List<String>> routes) {
+            this.amountCuts = amountCuts;
+            this.tenureCuts = tenureCuts;
+            this.industries = industries;
+            this.cells = cells;
+            this.routes = routes;
+        }
+        
+        List<String> route(Double amount, Integer tenureMonths, String industry) {
+            int a = band(amountCuts, amount != null ? amount : Double.NEGATIVE_INFINITY);
+            int t = band(tenureCuts, tenureMonths != null ? tenureMonths : Integer.MIN_VALUE);
+            Integer i = industry != null ? industries.get(industry.toLowerCase(Locale.ROOT)) : null;
+            int industryCount = industries.size() + 1;
+            int cell = (a * (tenureCuts.length + 1) + t) * industryCount + (i != null ? i : industryCount - 1);
+            return routes.get(cells[cell]);
+        }
+        
+        static DecisionTable compile(String spec) {
+            List<Rule> parsed = new ArrayList<>();
+            TreeSet<Double> amountCuts = new TreeSet<>();
+            TreeSet<Integer> tenureCuts = new TreeSet<>();
+            Map<String, Integer> industries = new LinkedHashMap<>();
+            for (String text : spec.split(";")) {
+                if (text.isBlank()) {
+                    continue;
+                }
+                Rule rule = Rule.parse(text.trim());
+                parsed.add(rule);
+                for (Condition condition : rule.conditions) {
+                    switch (condition.field) {
+                        case "amount" -> amountCuts.add(condition.threshold);
+                        case "tenure" -> tenureCuts.add((int) condition.threshold);
+                        case "industry" -> industries.putIfAbsent(condition.industry, industries.size());
+                        default -> { }
+                    }
+                }
+            }
+            
+            double[] amounts = amountCuts.stream().mapToDouble(Double::doubleValue).toArray();
+            int[] tenures = tenureCuts.stream().mapToInt(Integer::intValue).toArray();
+            String[] industryNames = industries.keySet().toArray(new String[0]);
+            int industryCount = industryNames.length + 1; // last slot is "any other industry"
+            long size = (long) (amounts.length + 1) * (tenures.length + 1) * industryCount;
+            if (size > 1_000_000) {
+                throw new IllegalStateException("Approval rules produce too many decision cells: " + size);
+            }
+            
+            // Each band is evaluated at its lower bound, which is exact because every threshold is a band edge
+            Map<List<String>, Integer> routeIds = new HashMap<>();
+            List<List<String>> routes = new ArrayList<>();
+            int[] cells = new int[(int) size];
+            int cell = 0;
+            for (int a = 0; a <= amounts.length; a++) {
+                double amount = a == 0 ? Double.NEGATIVE_INFINITY : amounts[a - 1];
+                for (int t = 0; t <= tenures.length; t++) {
+                    int tenure = t == 0 ? Integer.MIN_VALUE : tenures[t - 1];
+                    for (int i = 0; i < industryCount; i++) {
+                        String industry = i < industryNames.length ? industryNames[i] : null;
+                        List<String> route = DEFAULT_ROUTE;
+                        for (Rule rule : parsed) {
+                            if (rule.matches(amount, tenure, industry)) {
+                                route = rule.stages;
+                                break;
+                            }
+                        }
+                        List<String> chosen = route;
+                        cells[cell++] = routeIds.computeIfAbsent(route, r -> {
+                            routes.add(chosen);
+                            return routes.size() - 1;
+                        });
+                    }
+                }
+            }
+            return new DecisionTable(amounts, tenures, industries, cells, routes);
+        }
+        
+        private static int band(double[] cuts, double value) {
+            int i = Arrays.binarySearch(cuts, value);
+            return i >= 0 ? i + 1 : -i - 1;
+        }
+        
+        private static int band(int[] cuts, int value) {
+            int i = Arrays.binarySearch(cuts, value);
+            return i >= 0 ? i + 1 : -i - 1;
+        }
+    }
+    
+    private static final class Rule {
+        
+        private final List<Condition> conditions;
+        private final List<String> stages;
+        
+        private Rule(List<Condition> conditions, List<String> stages) {
+            this.conditions = conditions;
+            this.stages = stages;
+        }
+        
+        static Rule parse(String text) {
+            int arrow = text.indexOf("->");
+            if (arrow < 0) {
+                throw new IllegalStateException("Approval rule has no '->': " + text);
+            }
+            List<Condition> conditions = new ArrayList<>();
+            for (String condition : text.substring(0, arrow).split("&")) {
+                if (!condition.isBlank() && !condition.trim().equals("*")) {
+                    conditions.add(Condition.parse(condition.trim()));
+                }
+            }
+            List<String> stages = new ArrayList<>();
+            for (String stage : text.substring(arrow + 2).split(",")) {
+                if (!stage.isBlank()) {
+                    stages.add(stage.trim());
+                }
+            }
+            if (stages.isEmpty()) {
+                throw new IllegalStateException("Approval rule has no stages: " + text);
+            }
+            return new Rule(conditions, List.copyOf(stages));
+        }
+        
+        boolean matches(double amount, int tenure, String industry) {
+            for (Condition condition : conditions) {
+                if (!condition.matches(amount, tenure, industry)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+    
+    private static final class Condition {
+        
+        private final String field;
+        private final boolean atLeast; // ">=" when true, "<" otherwise
+        private final double threshold;
+        private final String industry;
+        
+        private Condition(String field, boolean atLeast, double threshold, String industry) {
+            this.field = field;
+            this.atLeast = atLeast;
+            this.threshold = threshold;
+            this.industry = industry;
+        }
+        
+        static Condition parse(String text) {
+            if (text.startsWith("industry=")) {
+                return new Condition("industry", false, 0, text.substring(9).trim().toLowerCase(Locale.ROOT));
+            }
+            String field = text.startsWith("amount") ? "amount" : text.startsWith("tenure") ? "tenure" : null;
+            if (field != null) {
+                String rest = text.substring(field.length()).trim();
+                try {
+                    if (rest.startsWith(">=")) {
+                        return new Condition(field, true, Double.parseDouble(rest.substring(2).trim()), null);
+                    }
+                    if (rest.startsWith("<")) {
+                        return new Condition(field, false, Double.parseDouble(rest.substring(1).trim()), null);
+                    }
+                } catch (NumberFormatException e) {
+                    // reported below
+                }
+            }
+            throw new IllegalStateException("Unsupported approval rule condition: " + text);
+        }
+        
+        boolean matches(double amount, int tenure, String industryName) {
+            switch (field) {
+                case "amount":
+                    return atLeast ? amount >= threshold : amount < threshold;
+                case "tenure":
+                    return atLeast ? tenure >= threshold : tenure < threshold;
+                default:
+                    return industry.equals(industryName);
+            }
+        }
+    }
+}
@@ -2,12 +2,14 @@ package com.example.demo.service;
 
 import com.example.demo.dto.AuthResponse;
 import com.example.demo.dto.LoginRequest;
+import com.example.demo.dto.RefreshRequest;
 import com.example.demo.dto.RegisterRequest;
 import com.example.demo.exception.BadRequestException;
 import com.example.demo.exception.UnauthorizedException;
 import com.example.demo.model.User;
 import com.example.demo.repository.UserRepository;
 import com.example.demo.security.JwtUtil;
+import com.example.demo.security.UserCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -24,6 +26,12 @@ public class AuthService {
     @Autowired
     private JwtUtil jwtUtil;
     
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+    
+    @Autowired
+    private UserCache userCache;
+    
     public AuthResponse login(LoginRequest request) {
         User user = userRepository.findByUsername(request.getUsername())
                 .orElseThrow(() -> new UnauthorizedException("Invalid credentials"));
@@ -36,9 +44,38 @@ public class AuthService {
             throw new UnauthorizedException("Invalid credentials");
         }
         
+        // Re-hash with the configured work factor while the raw password is at hand
+        if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+            user.setPassword(passwordEncoder.encode(request.getPassword()));
+            userRepository.save(user);
+        }
+        
+        // Warm the projection cache so the follow-up /me call stays in memory
+        userCache.put(user);
+        
+        String token = jwtUtil.generateToken(user.getUsername(), user.getRole(), user.getId());
+        String refreshToken = refreshTokenService.issue(user.getId());
+        
+        return new AuthResponse(token, user.getUsername(), user.getEmail(), user.getRole(), user.getId(),
+                                refreshToken);
+    }
+    
+    // Renews the access token without checking the password again
+    public AuthResponse refresh(RefreshRequest request) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(request.getRefreshToken());
+        
+        User user = userRepository.findById(rotation.getUserId())
+                .orElseThrow(() -> new UnauthorizedException("Invalid refresh token"));
+        
+        if (!user.getActive()) {
+            refreshTokenService.revokeAll(user.getId());
+            throw new UnauthorizedException("User account is deactivated");
+        }
+        
         String token = jwtUtil.generateToken(user.getUsername(), user.getRole(), user.getId());
         
-        return new AuthResponse(token, user.getUsername(), user.getEmail(), user.getRole(), user.getId());
+        return new AuthResponse(token, user.getUsername(), user.getEmail(), user.getRole(), user.getId(),
+                                rotation.getRefreshToken());
     }
     
     public AuthResponse register(RegisterRequest request) {
@@ -58,10 +95,12 @@ public class AuthService {
         user.setActive(true);
         
         User savedUser = userRepository.save(user);
+        userCache.invalidate(savedUser.getUsername());
         
         String token = jwtUtil.generateToken(savedUser.getUsername(), savedUser.getRole(), savedUser.getId());
+        String refreshToken = refreshTokenService.issue(savedUser.getId());
         
         return new AuthResponse(token, savedUser.getUsername(), savedUser.getEmail(), 
-                                savedUser.getRole(), savedUser.getId());
+                                savedUser.getRole(), savedUser.getId(), refreshToken);
     }
 }
\ No newline at end of file
@@ -0,0 +1,370 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Client;
+import com.example.demo.repository.ClientRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/*
+ * In-memory forest of corporate groups built from Client.parentId links. Every client maps
+ * straight to its group head, and every head to its members and summed turnover, so finding
+ * a client's group is one lookup however large the group is. Only re-parenting touches more
+ * than one client: the moved subtree is re-pointed at its new head. Pending and approved
+ * exposure are kept per head the same way, from changes ExposureLedger pushes per client.
+ */
+@Component
+public class ClientGroupIndex {
+    
+    private static final Logger log = LoggerFactory.getLogger(ClientGroupIndex.class);
+    
+    @Autowired
+    private ClientRepository clientRepository;
+    
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    private Forest forest = new Forest();
+    
+    // Saves made while a rebuild streams the collection, replayed in order into the new forest before the swap;
+    // null when no rebuild is running
+    private List<Put> putsDuringRebuild;
+    
+    private volatile boolean ready;
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        rebuild();
+    }
+    
+    // Full reload also picks up links written by other nodes
+    @Scheduled(initialDelayString = "${client.group.rebuild-ms:600000}",
+               fixedDelayString = "${client.group.rebuild-ms:600000}")
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            putsDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        List<Client> links = new ArrayList<>();
+        try (Stream<Client> clients = clientRepository.streamGroupLinks()) {
+            clients.forEach(links::add);
+        } catch (Exception e) {
+            log.warn("Client group index rebuild failed, keeping previous index", e);
+            lock.writeLock().lock();
+            try {
+                putsDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+        Forest fresh = new Forest();
+        int broken = fresh.load(links);
+        
+        lock.writeLock().lock();
+        try {
+            // The current forest has every save and exposure change so far, so the new one catches up from it
+            for (Put put : putsDuringRebuild) {
+                if (put.parentId != null && fresh.isAncestor(put.clientId, put.parentId)) {
+                    broken++; // another node linked the other way round in the meantime
+                    put = new Put(put.clientId, null, put.turnover);
+                }
+                fresh.put(put.clientId, put.parentId, put.turnover);
+            }
+            putsDuringRebuild = null;
+            fresh.setExposure(forest.exposureOf);
+            forest = fresh;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (broken > 0) {
+            log.warn("{} clients with a missing or cyclic parent were indexed as group heads", broken);
+        }
+        log.info("Client group index rebuilt with {} clients in {} ms",
+                links.size(), System.currentTimeMillis() - start);
+    }
+    
+    // Records a saved client's parent and turnover, moving its subtree when the parent changed
+    public void put(String clientId, String parentId, Double annualTurnover) {
+        lock.writeLock().lock();
+        try {
+            forest.put(clientId, parentId, toPaise(annualTurnover));
+            if (putsDuringRebuild != null) {
+                putsDuringRebuild.add(new Put(clientId, parentId, toPaise(annualTurnover)));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // Adds a change in one client's exposure, in paise, to its group's totals
+    public void addExposure(String clientId, long pending, long approved) {
+        lock.writeLock().lock();
+        try {
+            forest.addExposure(clientId, pending, approved);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // Replaces all exposure with reconciled per-client totals, {pending, approved} in paise
+    public void setExposure(Map<String, long[]> byClient) {
+        lock.writeLock().lock();
+        try {
+            forest.setExposure(byClient);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // True when linking clientId under parentId would make clientId its own ancestor
+    public boolean wouldCycle(String clientId, String parentId) {
+        lock.readLock().lock();
+        try {
+            return forest.isAncestor(clientId, parentId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public Group group(String clientId) {
+        lock.readLock().lock();
+        try {
+            return forest.group(clientId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Ids of every client in the group, head first; unlike group() this copies the whole membership
+    public List<String> members(String clientId) {
+        lock.readLock().lock();
+        try {
+            return forest.members(clientId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private static long toPaise(Double amount) {
+        return amount != null ? Math.round(amount * 100) : 0;
+    }
+    
+    @Getter
+    @AllArgsConstructor
+    public static class Group {
+        private final String headId;
+        private final int members; // including the head
+        private final double annualTurnover;
+        private final double pending;
+        private final double approved;
+    }
+    
+    private static final class Put {
+        private final String clientId;
+        private final String parentId;
+        private final long turnover;
+        
+        private Put(String clientId, String parentId, long turnover) {
+            this.clientId = clientId;
+            this.parentId = parentId;
+            this.turnover = turnover;
+        }
+    }
+    
+    private static final class Forest {
+        
+        private final Map<String, String> parentOf = new HashMap<>();
+        private final Map<String, Set<String>> childrenOf = new HashMap<>();
+        // Only clients below a head appear in these two; a client missing from headOf heads its own group
+        private final Map<String, String> headOf = new HashMap<>();
+        private final Map<String, Set<String>> membersOf = new HashMap<>();
+        private final Map<String, Long> turnoverOf = new HashMap<>();
+        private final Map<String, Long> groupTurnover = new HashMap<>();
+        // {pending, approved} in paise, per client and summed per head
+        private final Map<String, long[]> exposureOf = new HashMap<>();
+        private final Map<String, long[]> groupExposure = new HashMap<>();
+        
+        String head(String clientId) {
+            return headOf.getOrDefault(clientId, clientId);
+        }
+        
+        boolean isAncestor(String ancestor, String clientId) {
+            for (String at = clientId; at != null; at = parentOf.get(at)) {
+                if (at.equals(ancestor)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        Group group(String clientId) {
+            String head = head(clientId);
+            long[] exposure = groupExposure.getOrDefault(head, new long[2]);
+            return new Group(head, membersOf.getOrDefault(head, Set.of()).size() + 1,
+                    groupTurnover.getOrDefault(head, 0L) / 100.0, exposure[0] / 100.0, exposure[1] / 100.0);
+        }
+        
+        List<String> members(String clientId) {
+            String head = head(clientId);
+            Set<String> members = membersOf.getOrDefault(head, Set.of());
+            List<String> ids = new ArrayList<>(members.size() + 1);
+            ids.add(head);
+            ids.addAll(members);
+            return ids;
+        }
+        
+        void addExposure(String clientId, long pending, long approved) {
+            add(exposureOf, clientId, pending, approved);
+            add(groupExposure, head(clientId), pending, approved);
+        }
+        
+        void setExposure(Map<String, long[]> byClient) {
+            Map<String, long[]> copy = new HashMap<>(byClient);
+            exposureOf.clear();
+            groupExposure.clear();
+            copy.forEach((clientId, exposure) -> addExposure(clientId, exposure[0], exposure[1]));
+        }
+        
+        private static void add(Map<String, long[]> totals, String key, long pending, long approved) {
+            long[] total = totals.computeIfAbsent(key, k -> new long[2]);
+            total[0] += pending;
+            total[1] += approved;
+        }
+        
+        void put(String clientId, String parentId, long turnover) {
+            Long previous = turnoverOf.put(clientId, turnover);
+            groupTurnover.merge(head(clientId), turnover - (previous != null ? previous : 0), Long::sum);
+            
+            String oldParent = parentOf.get(clientId);
+            if (Objects.equals(oldParent, parentId)) {
+                return;
+            }
+            if (oldParent != null) {
+                unlink(clientId, oldParent);
+            }
+            if (parentId != null) {
+                link(clientId, parentId);
+            }
+            
+            String oldHead = head(clientId);
+            String newHead = parentId != null ? head(parentId) : clientId;
+            if (oldHead.equals(newHead)) {
+                return;
+            }
+            long moved = 0;
+            long[] movedExposure = new long[2];
+            for (String member : subtree(clientId)) {
+                moved += turnoverOf.getOrDefault(member, 0L);
+                long[] exposure = exposureOf.get(member);
+                if (exposure != null) {
+                    movedExposure[0] += exposure[0];
+                    movedExposure[1] += exposure[1];
+                }
+                Set<String> oldMembers = membersOf.get(oldHead);
+                if (oldMembers != null && oldMembers.remove(member) && oldMembers.isEmpty()) {
+                    membersOf.remove(oldHead);
+                }
+                if (member.equals(newHead)) {
+                    headOf.remove(member);
+                } else {
+                    headOf.put(member, newHead);
+                    membersOf.computeIfAbsent(newHead, k -> new HashSet<>()).add(member);
+                }
+            }
+            groupTurnover.merge(newHead, moved, Long::sum);
+            add(groupExposure, newHead, movedExposure[0], movedExposure[1]);
+            if (clientId.equals(oldHead)) {
+                groupTurnover.remove(oldHead); // the whole group moved under another head
+                groupExposure.remove(oldHead);
+            } else {
+                groupTurnover.merge(oldHead, -moved, Long::sum);
+                add(groupExposure, oldHead, -movedExposure[0], -movedExposure[1]);
+            }
+        }
+        
+        // Links are added one at a time, dropping any that is dangling or would close a cycle
+        int load(List<Client> clients) {
+            for (Client client : clients) {
+                turnoverOf.put(client.getId(), toPaise(client.getAnnualTurnover()));
+            }
+            int broken = 0;
+            for (Client client : clients) {
+                String parentId = client.getParentId();
+                if (parentId == null) {
+                    continue;
+                }
+                if (!turnoverOf.containsKey(parentId) || isAncestor(client.getId(), parentId)) {
+                    broken++;
+                } else {
+                    link(client.getId(), parentId);
+                }
+            }
+            for (String head : turnoverOf.keySet()) {
+                if (parentOf.containsKey(head)) {
+                    continue;
+                }
+                long total = 0;
+                for (String member : subtree(head)) {
+                    total += turnoverOf.get(member);
+                    if (!member.equals(head)) {
+                        headOf.put(member, head);
+                        membersOf.computeIfAbsent(head, k -> new HashSet<>()).add(member);
+                    }
+                }
+                groupTurnover.put(head, total);
+            }
+            return broken;
+        }
+        
+        private void link(String clientId, String parentId) {
+            parentOf.put(clientId, parentId);
+            childrenOf.computeIfAbsent(parentId, k -> new HashSet<>()).add(clientId);
+        }
+        
+        private void unlink(String clientId, String parentId) {
+            parentOf.remove(clientId);
+            Set<String> siblings = childrenOf.get(parentId);
+            if (siblings != null && siblings.remove(clientId) && siblings.isEmpty()) {
+                childrenOf.remove(parentId);
+            }
+        }
+        
+        private List<String> subtree(String root) {
+            List<String> nodes = new ArrayList<>();
+            Deque<String> pending = new ArrayDeque<>();
+            pending.add(root);
+            while (!pending.isEmpty()) {
+                String node = pending.poll();
+                nodes.add(node);
+                pending.addAll(childrenOf.getOrDefault(node, Set.of()));
+            }
+            return nodes;
+        }
+    }
+}
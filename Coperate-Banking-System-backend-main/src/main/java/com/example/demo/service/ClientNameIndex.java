@@ -0,0 +1,347 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ClientSuggestion;
+import com.example.demo.model.Client;
+import com.example.demo.repository.ClientRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/*
+ * In-memory trigram index over normalized company names for typeahead search.
+ * Names are lower-cased and reduced to letters, digits and single spaces. Every
+ * trigram of the name is indexed, plus a " x" bigram for each later word start so
+ * one- and two-character queries can match word prefixes. The start of the name
+ * has its own one- and two-character grams and whole names their own lookup, so
+ * candidates are gathered one rank at a time, best first, and the per-rank cap
+ * never lets weaker matches crowd out better ones.
+ */
+@Component
+public class ClientNameIndex {
+    
+    private static final Logger log = LoggerFactory.getLogger(ClientNameIndex.class);
+    
+    @Autowired
+    private ClientRepository clientRepository;
+    
+    // Upper bound on names verified per rank and query, keeping very common fragments like "ltd" cheap
+    @Value("${search.typeahead.max-candidates:10000}")
+    private int maxCandidates = 10000;
+    
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    private Snapshot snapshot = new Snapshot();
+    
+    // Names saved while a rebuild streams the collection, replayed into the new snapshot before the swap;
+    // null when no rebuild is running
+    private Map<String, String> putsDuringRebuild;
+    
+    private volatile boolean ready;
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        rebuild();
+    }
+    
+    // Full reload also picks up clients written by other nodes
+    @Scheduled(initialDelayString = "${search.typeahead.rebuild-ms:600000}",
+               fixedDelayString = "${search.typeahead.rebuild-ms:600000}")
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            putsDuringRebuild = new LinkedHashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Snapshot fresh = new Snapshot();
+        try (Stream<Client> clients = clientRepository.streamCompanyNames()) {
+            clients.forEach(client -> fresh.append(client.getId(), client.getCompanyName()));
+        } catch (Exception e) {
+            log.warn("Typeahead index rebuild failed, keeping previous index", e);
+            lock.writeLock().lock();
+            try {
+                putsDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+        
+        lock.writeLock().lock();
+        try {
+            putsDuringRebuild.forEach(fresh::append);
+            putsDuringRebuild = null;
+            snapshot = fresh;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Typeahead index rebuilt with {} clients in {} ms",
+                fresh.docByClientId.size(), System.currentTimeMillis() - start);
+    }
+    
+    public void put(String clientId, String companyName) {
+        lock.writeLock().lock();
+        try {
+            snapshot.append(clientId, companyName);
+            if (putsDuringRebuild != null) {
+                putsDuringRebuild.put(clientId, companyName);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public List<ClientSuggestion> search(String query, int limit) {
+        String q = normalize(query);
+        if (q.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        
+        lock.readLock().lock();
+        try {
+            Snapshot current = snapshot;
+            PriorityQueue<Hit> top = new PriorityQueue<>(Comparator.<Hit>naturalOrder().reversed());
+            // Every hit of a rank beats every hit of the next, so once the top is full later ranks cannot enter it
+            for (int rank = 0; rank <= 3 && top.size() < limit; rank++) {
+                for (int doc : current.candidates(q, rank, maxCandidates)) {
+                    if (current.deleted.get(doc)) {
+                        continue;
+                    }
+                    String name = current.normalizedNames.get(doc);
+                    if (rank(name, q) != rank) {
+                        continue; // no match, or found again under the rank it was already scored at
+                    }
+                    Hit hit = new Hit(doc, rank, name.length());
+                    if (top.size() < limit) {
+                        top.add(hit);
+                    } else if (hit.compareTo(top.peek()) < 0) {
+                        top.poll();
+                        top.add(hit);
+                    }
+                }
+            }
+            
+            Hit[] hits = top.toArray(new Hit[0]);
+            Arrays.sort(hits);
+            List<ClientSuggestion> suggestions = new ArrayList<>(hits.length);
+            for (Hit hit : hits) {
+                suggestions.add(new ClientSuggestion(current.clientIds.get(hit.doc),
+                        current.companyNames.get(hit.doc)));
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Lower rank is better: exact name, then name prefix, then word prefix, then anywhere; -1 when q is absent
+    private static int rank(String name, String q) {
+        int position = name.indexOf(q);
+        if (position < 0) {
+            return -1;
+        }
+        if (position == 0) {
+            return name.length() == q.length() ? 0 : 1;
+        }
+        if (name.charAt(position - 1) == ' ' || name.contains(" " + q)) {
+            return 2;
+        }
+        return 3;
+    }
+    
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder builder = new StringBuilder(value.length());
+        boolean space = true;
+        for (int i = 0; i < value.length(); i++) {
+            char c = Character.toLowerCase(value.charAt(i));
+            if (Character.isLetterOrDigit(c)) {
+                builder.append(c);
+                space = false;
+            } else if (!space) {
+                builder.append(' ');
+                space = true;
+            }
+        }
+        int length = builder.length();
+        if (length > 0 && builder.charAt(length - 1) == ' ') {
+            builder.setLength(length - 1);
+        }
+        return builder.toString();
+    }
+    
+    private static long gram(char a, char b) {
+        return (2L << 48) | ((long) a << 32) | ((long) b << 16);
+    }
+    
+    private static long gram(char a, char b, char c) {
+        return (3L << 48) | ((long) a << 32) | ((long) b << 16) | c;
+    }
+    
+    // Marks grams taken from the start of the whole name rather than of any word
+    private static final char NAME_START = '\0';
+    
+    // Documents are addressed by a dense int ID; updates tombstone the old slot and append a new one
+    private static class Snapshot {
+        private final List<String> clientIds = new ArrayList<>();
+        private final List<String> companyNames = new ArrayList<>();
+        private final List<String> normalizedNames = new ArrayList<>();
+        private final BitSet deleted = new BitSet();
+        private final Map<String, Integer> docByClientId = new HashMap<>();
+        private final Map<Long, IntList> postings = new HashMap<>();
+        private final Map<String, IntList> docsByName = new HashMap<>();
+        
+        void append(String clientId, String companyName) {
+            Integer previous = docByClientId.get(clientId);
+            if (previous != null) {
+                deleted.set(previous);
+            }
+            
+            String name = normalize(companyName);
+            int doc = clientIds.size();
+            clientIds.add(clientId);
+            companyNames.add(companyName);
+            normalizedNames.add(name);
+            docByClientId.put(clientId, doc);
+            docsByName.computeIfAbsent(name, n -> new IntList()).addIfAbsent(doc);
+            
+            if (!name.isEmpty()) {
+                addPosting(gram(NAME_START, name.charAt(0)), doc);
+            }
+            if (name.length() >= 2) {
+                addPosting(gram(NAME_START, name.charAt(0), name.charAt(1)), doc);
+            }
+            for (int i = 0; i + 3 <= name.length(); i++) {
+                addPosting(gram(name.charAt(i), name.charAt(i + 1), name.charAt(i + 2)), doc);
+            }
+            for (int i = 0; i + 2 <= name.length(); i++) {
+                if (name.charAt(i) == ' ') {
+                    addPosting(gram(' ', name.charAt(i + 1)), doc);
+                }
+            }
+        }
+        
+        private void addPosting(long gram, int doc) {
+            postings.computeIfAbsent(gram, g -> new IntList()).addIfAbsent(doc);
+        }
+        
+        // Documents that may match q at the given rank: the exact-name lookup, or the query's trigrams
+        // intersected with a name-start or word-start gram. One- and two-character queries only match
+        // at word starts, so they have no rank 3 candidates.
+        int[] candidates(String q, int rank, int maxCandidates) {
+            if (rank == 0) {
+                IntList exact = docsByName.get(q);
+                return exact != null ? Arrays.copyOf(exact.values, Math.min(exact.size, maxCandidates)) : new int[0];
+            }
+            List<IntList> lists = new ArrayList<>();
+            if (rank == 1 || rank == 2) {
+                char start = rank == 1 ? NAME_START : ' ';
+                lists.add(postings.get(q.length() == 1 ? gram(start, q.charAt(0)) : gram(start, q.charAt(0), q.charAt(1))));
+            } else if (q.length() < 3) {
+                return new int[0];
+            }
+            for (int i = 0; i + 3 <= q.length(); i++) {
+                lists.add(postings.get(gram(q.charAt(i), q.charAt(i + 1), q.charAt(i + 2))));
+            }
+            return intersect(lists, maxCandidates);
+        }
+        
+        // Intersects posting lists, rarest first, stopping after maxCandidates
+        private static int[] intersect(List<IntList> lists, int maxCandidates) {
+            if (lists.contains(null)) {
+                return new int[0];
+            }
+            lists.sort(Comparator.comparingInt(list -> list.size));
+            
+            // All lists are sorted, so a forward-only merge visits each posting at most once
+            IntList smallest = lists.get(0);
+            int[] cursors = new int[lists.size()];
+            int[] result = new int[Math.min(smallest.size, maxCandidates)];
+            int count = 0;
+            outer:
+            for (int i = 0; i < smallest.size && count < result.length; i++) {
+                int doc = smallest.values[i];
+                for (int j = 1; j < lists.size(); j++) {
+                    IntList other = lists.get(j);
+                    int cursor = cursors[j];
+                    while (cursor < other.size && other.values[cursor] < doc) {
+                        cursor++;
+                    }
+                    cursors[j] = cursor;
+                    if (cursor == other.size) {
+                        break outer;
+                    }
+                    if (other.values[cursor] != doc) {
+                        continue outer;
+                    }
+                }
+                result[count++] = doc;
+            }
+            return count == result.length ? result : Arrays.copyOf(result, count);
+        }
+    }
+    
+    // Growable sorted int array; doc IDs only ever increase, so appends keep it sorted
+    private static class IntList {
+        private int[] values = new int[4];
+        private int size;
+        
+        void addIfAbsent(int value) {
+            if (size > 0 && values[size - 1] == value) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+    
+    private static class Hit implements Comparable<Hit> {
+        private final int doc;
+        private final int rank;
+        private final int length;
+        
+        Hit(int doc, int rank, int length) {
+            this.doc = doc;
+            this.rank = rank;
+            this.length = length;
+        }
+        
+        @Override
+        public int compareTo(Hit other) {
+            if (rank != other.rank) {
+                return Integer.compare(rank, other.rank);
+            }
+            if (length != other.length) {
+                return Integer.compare(length, other.length);
+            }
+            return Integer.compare(doc, other.doc);
+        }
+    }
+}
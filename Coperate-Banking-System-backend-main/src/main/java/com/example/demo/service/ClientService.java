@@ -1,13 +1,23 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.ClientGroupSummary;
 import com.example.demo.dto.ClientRequest;
+import com.example.demo.dto.ClientSearchRequest;
+import com.example.demo.dto.ClientSuggestion;
+import com.example.demo.dto.PageResponse;
+import com.example.demo.exception.BadRequestException;
 import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.exception.ServiceUnavailableException;
 import com.example.demo.model.Client;
+import com.example.demo.model.OutboxEvent;
 import com.example.demo.repository.ClientRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
 
 @Service
 public class ClientService {
@@ -15,6 +25,21 @@ public class ClientService {
     @Autowired
     private ClientRepository clientRepository;
     
+    @Autowired
+    private ClientNameIndex clientNameIndex;
+    
+    @Autowired
+    private ClientGroupIndex clientGroupIndex;
+    
+    @Autowired
+    private Pagination pagination;
+    
+    @Value("${search.typeahead.max-limit:20}")
+    private int typeaheadMaxLimit;
+    
+    // Parent links are checked and written one at a time, so two racing re-parents cannot close a cycle
+    private final Object groupLinks = new Object();
+    
     public Client createClient(ClientRequest request, String rmId) {
         Client client = new Client();
         client.setCompanyName(request.getCompanyName());
@@ -30,12 +55,18 @@ public class ClientService {
         client.setAnnualTurnover(request.getAnnualTurnover());
         client.setDocumentsSubmitted(request.getDocumentsSubmitted());
         client.setRmId(rmId);
-        
-        return clientRepository.save(client);
+        client.setOutbox(OutboxEvent.append(client.getOutbox(), OutboxEvent.CLIENT_CREATED));
+        String parent = parentOf(request.getParentId());
+        client.setParentId(parent);
+        return linked(null, parent, parent != null, () -> clientRepository.save(client));
     }
     
-    public List<Client> getClientsByRm(String rmId) {
-        return clientRepository.findByRmId(rmId);
+    public PageResponse<Client> getClientsByRm(String rmId, String cursor, Integer size) {
+        ClientSearchRequest criteria = new ClientSearchRequest();
+        criteria.setRmId(rmId);
+        criteria.setCursor(cursor);
+        criteria.setLimit(size);
+        return page("clients/rm", criteria);
     }
     
     public Client getClientById(String clientId) {
@@ -52,28 +83,97 @@ public class ClientService {
             throw new ResourceNotFoundException("Client not found");
         }
         
-        client.setCompanyName(request.getCompanyName());
-        client.setIndustry(request.getIndustry());
-        client.setAddress(request.getAddress());
+        Client details = new Client();
+        details.setCompanyName(request.getCompanyName());
+        details.setIndustry(request.getIndustry());
+        details.setAddress(request.getAddress());
         
         Client.PrimaryContact contact = new Client.PrimaryContact();
         contact.setName(request.getPrimaryContact().getName());
         contact.setEmail(request.getPrimaryContact().getEmail());
         contact.setPhone(request.getPrimaryContact().getPhone());
-        client.setPrimaryContact(contact);
+        details.setPrimaryContact(contact);
         
-        client.setAnnualTurnover(request.getAnnualTurnover());
-        client.setDocumentsSubmitted(request.getDocumentsSubmitted());
+        details.setAnnualTurnover(request.getAnnualTurnover());
+        details.setDocumentsSubmitted(request.getDocumentsSubmitted());
+        // Without parentId the current link is kept; an empty one detaches the client from its group
+        details.setParentId(request.getParentId() != null ? parentOf(request.getParentId()) : client.getParentId());
         
-        return clientRepository.save(client);
+        // Only the edited fields are written, so events the outbox relay is delivering are never overwritten
+        boolean relink = !Objects.equals(details.getParentId(), client.getParentId());
+        return linked(clientId, details.getParentId(), relink,
+                () -> clientRepository.updateDetails(clientId, rmId, details, relink));
+    }
+    
+    // Aggregated turnover and exposure of the client's whole corporate group
+    public ClientGroupSummary getClientGroup(String clientId) {
+        getClientById(clientId);
+        if (!clientGroupIndex.isReady()) {
+            throw new ServiceUnavailableException("Client groups are still loading, please retry");
+        }
+        ClientGroupIndex.Group group = clientGroupIndex.group(clientId);
+        return new ClientGroupSummary(group.getHeadId(), group.getMembers(), group.getAnnualTurnover(),
+                group.getPending(), group.getApproved());
+    }
+    
+    // All filters are combined into one query; results come in (companyName, id) order, one page at a time
+    public PageResponse<Client> searchClients(ClientSearchRequest request) {
+        return page("clients/search", request);
+    }
+    
+    // Ranked company-name suggestions served from the in-memory trigram index
+    public List<ClientSuggestion> typeahead(String query, int limit) {
+        int cappedLimit = Math.max(1, Math.min(limit, typeaheadMaxLimit));
+        if (!clientNameIndex.isReady()) {
+            return clientRepository.findByCompanyNameContainingIgnoreCase(query).stream()
+                    .limit(cappedLimit)
+                    .map(client -> new ClientSuggestion(client.getId(), client.getCompanyName()))
+                    .toList();
+        }
+        return clientNameIndex.search(query, cappedLimit);
+    }
+    
+    private static String parentOf(String parentId) {
+        return parentId != null && !parentId.isBlank() ? parentId.trim() : null;
+    }
+    
+    // Runs the write, checking the new parent link first when it changes
+    private Client linked(String clientId, String parent, boolean relink, Supplier<Client> write) {
+        if (!relink) {
+            return indexed(write.get());
+        }
+        synchronized (groupLinks) {
+            if (parent != null) {
+                if (!clientGroupIndex.isReady()) {
+                    throw new ServiceUnavailableException("Client groups are still loading, please retry");
+                }
+                if (!clientRepository.existsById(parent)) {
+                    throw new BadRequestException("Parent client not found");
+                }
+                if (clientId != null && clientGroupIndex.wouldCycle(clientId, parent)) {
+                    throw new BadRequestException("A client cannot be placed under one of its own subsidiaries");
+                }
+            }
+            return indexed(write.get());
+        }
     }
     
-    public List<Client> searchClients(String companyName, String industry) {
-        if (companyName != null && !companyName.isEmpty()) {
-            return clientRepository.findByCompanyNameContainingIgnoreCase(companyName);
-        } else if (industry != null && !industry.isEmpty()) {
-            return clientRepository.findByIndustryIgnoreCase(industry);
+    private Client indexed(Client savedClient) {
+        if (savedClient == null) {
+            throw new ResourceNotFoundException("Client not found"); // deleted or reassigned since it was read
         }
-        return clientRepository.findAll();
+        clientNameIndex.put(savedClient.getId(), savedClient.getCompanyName());
+        clientGroupIndex.put(savedClient.getId(), savedClient.getParentId(), savedClient.getAnnualTurnover());
+        return savedClient;
+    }
+    
+    private PageResponse<Client> page(String scope, ClientSearchRequest criteria) {
+        int limit = pagination.pageSize(criteria.getLimit());
+        String[] after = pagination.decodeCursor(scope, criteria.getCursor(), 2);
+        
+        List<Client> clients = clientRepository.search(criteria,
+                after != null ? after[0] : null, after != null ? after[1] : null, limit + 1);
+        return PageResponse.of(clients, limit,
+                last -> pagination.encodeCursor(scope, last.getCompanyName(), last.getId()));
     }
 }
\ No newline at end of file
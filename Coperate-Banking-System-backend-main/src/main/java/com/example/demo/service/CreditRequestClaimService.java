@@ -0,0 +1,81 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.ConflictException;
+import com.example.demo.model.CreditRequest;
+import com.example.demo.repository.CreditRequestRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Review leases on Pending credit requests so analysts do not work the same request twice
+@Service
+public class CreditRequestClaimService {
+    
+    @Autowired
+    private CreditRequestRepository creditRequestRepository;
+    
+    @Value("${credit.lease.ttl-ms:900000}")
+    private long leaseTtlMs;
+    
+    // Live leases one analyst may hold at once, so a fast analyst cannot drain the pool
+    @Value("${credit.lease.max-active:10}")
+    private int maxActive;
+    
+    // Claims up to count of the oldest free requests, topping up to the per-analyst cap. Each lease takes one of
+    // the analyst's max-active slots and a unique index allows one lease per slot, so concurrent claims by the
+    // same analyst cannot together exceed the cap.
+    public List<CreditRequest> claim(String analystId, int count) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseUntil = now.plusNanos(leaseTtlMs * 1_000_000);
+        
+        creditRequestRepository.releaseExpiredSlots(analystId, now);
+        List<CreditRequest> claims = new ArrayList<>(creditRequestRepository.findActiveClaims(analystId, now));
+        Set<Integer> takenSlots = new HashSet<>();
+        claims.forEach(claim -> takenSlots.add(claim.getClaimSlot()));
+        int wanted = Math.min(count, maxActive - claims.size());
+        for (int slot = 0; slot < maxActive && wanted > 0; slot++) {
+            if (takenSlots.contains(slot)) {
+                continue;
+            }
+            CreditRequest claimed;
+            try {
+                claimed = creditRequestRepository.claimNext(analystId, slot, now, leaseUntil);
+            } catch (DuplicateKeyException e) {
+                continue; // a concurrent claim by the same analyst took this slot
+            }
+            if (claimed == null) {
+                break; // pool is empty
+            }
+            claims.add(claimed);
+            wanted--;
+        }
+        return claims;
+    }
+    
+    public CreditRequest renew(String requestId, String analystId) {
+        LocalDateTime now = LocalDateTime.now();
+        CreditRequest renewed = creditRequestRepository.renewLease(requestId, analystId, now,
+                now.plusNanos(leaseTtlMs * 1_000_000));
+        if (renewed == null) {
+            throw new ConflictException("Lease has expired or is held by another analyst");
+        }
+        return renewed;
+    }
+    
+    public void release(String requestId, String analystId) {
+        if (!creditRequestRepository.releaseLease(requestId, analystId)) {
+            throw new ConflictException("Lease is not held by you");
+        }
+    }
+    
+    public List<CreditRequest> getActiveClaims(String analystId) {
+        return creditRequestRepository.findActiveClaims(analystId, LocalDateTime.now());
+    }
+}
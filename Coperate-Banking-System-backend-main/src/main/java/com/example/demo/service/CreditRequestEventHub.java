@@ -0,0 +1,322 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.ServiceUnavailableException;
+import com.example.demo.model.CreditRequest;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+// Pushes credit request changes to dashboard SSE subscribers. Idle connections are parked servlet async
+// requests, so they hold no thread. One dispatcher thread orders events into each subscriber's bounded queue,
+// which lets replay and live delivery hand over without gaps or duplicates; it never writes to a socket.
+// A small sender pool drains the queues, one subscriber at a time per thread, so a stalled client ties up at
+// most one sender. A subscriber whose queue overflows, or whose send stays blocked past send-timeout-ms, is
+// dropped and resumes through Last-Event-ID when its client reconnects. Changes arrive through EventBroadcast,
+// which every node reads, so subscribers see changes whichever node made or relayed them. Event ids are the
+// broadcast sequence, the same on every node, so a client may resume on any node behind the load balancer.
+@Component
+public class CreditRequestEventHub implements DisposableBean {
+    
+    public static final String CREATED = "created";
+    public static final String UPDATED = "updated";
+    
+    @Value("${events.sse.replay-size:1000}")
+    private int replaySize = 1000;
+    
+    @Value("${events.sse.timeout-ms:1800000}")
+    private long timeoutMs = 1800000;
+    
+    @Value("${events.sse.max-subscribers:5000}")
+    private int maxSubscribers = 5000;
+    
+    // Frames one subscriber may have waiting before it is dropped as too slow
+    @Value("${events.sse.queue-capacity:256}")
+    private int queueCapacity = 256;
+    
+    @Value("${events.sse.senders:8}")
+    private int senderCount = 8;
+    
+    @Value("${events.sse.send-timeout-ms:10000}")
+    private long sendTimeoutMs = 10000;
+    
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "sse-dispatcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ExecutorService senders;
+    
+    // Guarded by itself; until EventBroadcast positions the hub every resumed id is a gap
+    private final Deque<Event> replay = new ArrayDeque<>();
+    private long lastId;
+    
+    @PostConstruct
+    void start() {
+        AtomicInteger counter = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(senderCount, r -> {
+            Thread thread = new Thread(r, "sse-sender-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    public SseEmitter subscribe(Predicate<CreditRequest> filter, String lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ServiceUnavailableException("Too many open event streams");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        register(emitter, filter, lastEventId);
+        return emitter;
+    }
+    
+    void register(SseEmitter emitter, Predicate<CreditRequest> filter, String lastEventId) {
+        Subscriber subscriber = new Subscriber(emitter, filter);
+        emitter.onCompletion(() -> close(subscriber));
+        emitter.onTimeout(() -> close(subscriber));
+        emitter.onError(e -> close(subscriber));
+        
+        Long resumeFrom = parseId(lastEventId);
+        List<Event> missed;
+        boolean gap;
+        synchronized (replay) {
+            long oldest = replay.isEmpty() ? lastId + 1 : replay.peekFirst().id;
+            gap = resumeFrom != null && (resumeFrom < oldest - 1 || resumeFrom > lastId);
+            long from = resumeFrom == null || gap ? lastId : resumeFrom;
+            missed = new ArrayList<>();
+            for (Event event : replay) {
+                if (event.id > from) {
+                    missed.add(event);
+                }
+            }
+            subscriber.lastDelivered = from;
+            
+            // Queued under the lock, so every event after 'from' is either replayed here or dispatched later
+            dispatcher.execute(() -> {
+                if (gap || missed.size() >= queueCapacity) {
+                    // Too far behind for the buffer or the queue: the client must reload its list
+                    if (!missed.isEmpty()) {
+                        subscriber.lastDelivered = missed.get(missed.size() - 1).id;
+                    }
+                    enqueue(subscriber, SseEmitter.event().name("reset").data(""));
+                } else {
+                    missed.forEach(event -> deliver(subscriber, event));
+                }
+                synchronized (subscriber) {
+                    if (!subscriber.closed) {
+                        subscribers.add(subscriber);
+                    }
+                }
+            });
+        }
+    }
+    
+    // Ids come from the broadcast sequence in increasing order; one already published is ignored
+    public void publish(long id, String type, CreditRequest request) {
+        synchronized (replay) {
+            if (id <= lastId) {
+                return;
+            }
+            lastId = id;
+            Event event = new Event(id, type, request);
+            replay.addLast(event);
+            if (replay.size() > replaySize) {
+                replay.removeFirst();
+            }
+            dispatcher.execute(() -> subscribers.forEach(subscriber -> deliver(subscriber, event)));
+        }
+    }
+    
+    // Tells every subscriber to reload after this node may have missed changes up to the given id. The replay
+    // buffer is emptied and the id moved on, so a client resuming from any earlier id is sent a reset as well.
+    public void resetAll(long upTo) {
+        synchronized (replay) {
+            replay.clear();
+            lastId = Math.max(lastId, upTo);
+            long resetId = lastId;
+            dispatcher.execute(() -> subscribers.forEach(subscriber -> {
+                subscriber.lastDelivered = resetId;
+                enqueue(subscriber, SseEmitter.event().name("reset").data(""));
+            }));
+        }
+    }
+    
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+    
+    // Comment lines keep proxies from closing idle streams and surface dead connections; a subscriber stuck in
+    // one send for longer than send-timeout-ms is dropped
+    @Scheduled(fixedDelayString = "${events.sse.heartbeat-ms:15000}")
+    public void heartbeat() {
+        dispatcher.execute(() -> {
+            long now = System.nanoTime();
+            for (Subscriber subscriber : subscribers) {
+                long since = subscriber.sendingSince;
+                if (since != 0 && now - since > TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs)) {
+                    drop(subscriber, new IOException("Event stream send timed out"));
+                } else {
+                    enqueue(subscriber, SseEmitter.event().comment("ping"));
+                }
+            }
+        });
+    }
+    
+    // Waits until everything queued so far has been dispatched and sent to every live subscriber;
+    // a subscriber stuck in a send keeps it waiting until that subscriber is dropped
+    void awaitDispatch() throws InterruptedException, ExecutionException {
+        dispatcher.submit(() -> { }).get();
+        while (subscribers.stream().anyMatch(subscriber -> !subscriber.isIdle())) {
+            Thread.sleep(1);
+        }
+    }
+    
+    @Override
+    public void destroy() {
+        dispatcher.shutdownNow();
+        if (senders != null) {
+            senders.shutdownNow();
+        }
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+    
+    private void deliver(Subscriber subscriber, Event event) {
+        if (event.id <= subscriber.lastDelivered) {
+            return; // already replayed
+        }
+        subscriber.lastDelivered = event.id;
+        if (subscriber.filter.test(event.request)) {
+            enqueue(subscriber, SseEmitter.event()
+                    .id(Long.toString(event.id))
+                    .name(event.type)
+                    .data(event.request, MediaType.APPLICATION_JSON));
+        }
+    }
+    
+    // Called on the dispatcher thread only, so frames enter each queue in event order
+    private void enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        boolean overflow = false;
+        boolean startDrain = false;
+        synchronized (subscriber) {
+            if (subscriber.closed) {
+                return;
+            }
+            if (subscriber.queue.size() >= queueCapacity) {
+                overflow = true;
+            } else {
+                subscriber.queue.addLast(event);
+                startDrain = !subscriber.draining;
+                subscriber.draining = true;
+            }
+        }
+        if (overflow) {
+            drop(subscriber, new IOException("Event stream fell too far behind"));
+        } else if (startDrain) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+    
+    // Sends a subscriber's queued frames in order; at most one drain runs per subscriber
+    private void drain(Subscriber subscriber) {
+        while (true) {
+            SseEmitter.SseEventBuilder event;
+            synchronized (subscriber) {
+                event = subscriber.queue.pollFirst();
+                if (event == null || subscriber.closed) {
+                    subscriber.draining = false;
+                    return;
+                }
+            }
+            subscriber.sendingSince = System.nanoTime();
+            try {
+                subscriber.emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                drop(subscriber, e);
+            } finally {
+                subscriber.sendingSince = 0;
+            }
+        }
+    }
+    
+    private void drop(Subscriber subscriber, Throwable cause) {
+        if (close(subscriber)) {
+            subscriber.emitter.completeWithError(cause);
+        }
+    }
+    
+    // True for the call that closed it
+    private boolean close(Subscriber subscriber) {
+        synchronized (subscriber) {
+            if (subscriber.closed) {
+                return false;
+            }
+            subscriber.closed = true;
+            subscriber.queue.clear();
+        }
+        subscribers.remove(subscriber);
+        return true;
+    }
+    
+    private static Long parseId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return 0L; // unknown id, treated as a gap
+        }
+    }
+    
+    private static final class Event {
+        private final long id;
+        private final String type;
+        private final CreditRequest request;
+        
+        private Event(long id, String type, CreditRequest request) {
+            this.id = id;
+            this.type = type;
+            this.request = request;
+        }
+    }
+    
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final Predicate<CreditRequest> filter;
+        private long lastDelivered; // only touched on the dispatcher thread after registration
+        
+        // Guarded by the subscriber itself
+        private final Deque<SseEmitter.SseEventBuilder> queue = new ArrayDeque<>();
+        private boolean draining;
+        private boolean closed;
+        
+        private volatile long sendingSince; // System.nanoTime() when the send in progress started, 0 when none
+        
+        private Subscriber(SseEmitter emitter, Predicate<CreditRequest> filter) {
+            this.emitter = emitter;
+            this.filter = filter;
+        }
+        
+        synchronized boolean isIdle() {
+            return !draining;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.ServiceUnavailableException;
+import com.example.demo.exception.WriteOutcomeUnknownException;
+import com.example.demo.model.CreditRequest;
+import jakarta.annotation.PostConstruct;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Group commit for credit request inserts: concurrent submissions arriving within a short window are
+// written with one insertMany, and each caller only returns once the batch is acknowledged, so a
+// returned request is exactly as durable as one written by save.
+@Component
+public class CreditRequestInsertBatcher implements DisposableBean {
+    
+    private static final Logger log = LoggerFactory.getLogger(CreditRequestInsertBatcher.class);
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Value("${credit.insert-batch.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${credit.insert-batch.window-ms:2}")
+    private long windowMs = 2;
+    
+    @Value("${credit.insert-batch.max-size:100}")
+    private int maxSize = 100;
+    
+    @Value("${credit.insert-batch.flushers:4}")
+    private int flusherCount = 4;
+    
+    @Value("${credit.insert-batch.queue-capacity:10000}")
+    private int queueCapacity = 10000;
+    
+    private BlockingQueue<Pending> queue;
+    private final List<Thread> flushers = new ArrayList<>();
+    private volatile boolean running;
+    
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder documents = new LongAdder();
+    
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        // Several flushers keep batches in flight while one waits on its round-trip
+        for (int i = 0; i < flusherCount; i++) {
+            Thread flusher = new Thread(this::run, "insert-batcher-" + i);
+            flusher.setDaemon(true);
+            flusher.start();
+            flushers.add(flusher);
+        }
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    // Blocks the caller until the batch holding this request has been written
+    public CreditRequest insert(CreditRequest request) {
+        Pending pending = new Pending(request);
+        if (!running || !queue.offer(pending)) {
+            throw new ServiceUnavailableException("Credit request intake is saturated, please retry");
+        }
+        try {
+            return pending.future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+    
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxSize);
+        while (running) {
+            try {
+                // The window opens with the first arrival, so a lone request waits at most window-ms
+                Pending first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(windowMs);
+                while (batch.size() < maxSize) {
+                    queue.drainTo(batch, maxSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxSize || remaining <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(batch);
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+        List<Pending> left = new ArrayList<>();
+        queue.drainTo(left);
+        fail(left);
+    }
+    
+    void flush(List<Pending> batch) {
+        List<CreditRequest> requests = batch.stream().map(pending -> pending.request).toList();
+        // Ids are assigned up front so a failed batch can be retried without writing anything twice
+        requests.forEach(request -> request.setId(new ObjectId().toHexString()));
+        try {
+            mongoTemplate.insertAll(requests);
+            batches.increment();
+            documents.add(requests.size());
+            batch.forEach(pending -> pending.future.complete(pending.request));
+        } catch (RuntimeException e) {
+            // An ordered insert stops at the first bad document, and a lost reply hides what landed. Each request is
+            // inserted again singly: a duplicate key on its own id means the batch wrote it, so only the bad one fails.
+            log.warn("Batched insert of {} credit requests failed, retrying individually", requests.size(), e);
+            for (Pending pending : batch) {
+                try {
+                    pending.future.complete(mongoTemplate.insert(pending.request));
+                } catch (DuplicateKeyException written) {
+                    pending.future.complete(pending.request);
+                } catch (DataAccessResourceFailureException | TransientDataAccessException unreachable) {
+                    // Still unreachable, so the batch may or may not have written it
+                    unreachable.addSuppressed(e);
+                    pending.future.completeExceptionally(new WriteOutcomeUnknownException(
+                            "The credit request may have been saved; check before submitting it again", unreachable));
+                } catch (RuntimeException single) {
+                    pending.future.completeExceptionally(single);
+                }
+            }
+        }
+    }
+    
+    private static void fail(List<Pending> pending) {
+        pending.forEach(p -> p.future.completeExceptionally(
+                new ServiceUnavailableException("Server is shutting down, please retry")));
+    }
+    
+    // Average batch size shows how much coalescing the window is actually buying
+    public long getBatchCount() {
+        return batches.sum();
+    }
+    
+    public long getDocumentCount() {
+        return documents.sum();
+    }
+    
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        for (Thread flusher : flushers) {
+            flusher.interrupt();
+        }
+        for (Thread flusher : flushers) {
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+    
+    static final class Pending {
+        private final CreditRequest request;
+        private final CompletableFuture<CreditRequest> future = new CompletableFuture<>();
+        
+        Pending(CreditRequest request) {
+            this.request = request;
+        }
+    }
+}
@@ -1,16 +1,33 @@
 package com.example.demo.service;
 
 
+import com.example.demo.dto.BulkDecisionRequest;
+import com.example.demo.dto.BulkDecisionResult;
 import com.example.demo.dto.CreditRequestDto;
+import com.example.demo.dto.PageResponse;
 import com.example.demo.dto.UpdateStatusRequest;
+import com.example.demo.dto.WorkQueueRequest;
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.exception.ConflictException;
 import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.exception.WriteOutcomeUnknownException;
+import com.example.demo.model.Client;
 import com.example.demo.model.CreditRequest;
+import com.example.demo.model.OutboxEvent;
+import com.example.demo.repository.ClientRepository;
 import com.example.demo.repository.CreditRequestRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 @Service
 public class CreditRequestService {
@@ -18,6 +35,30 @@ public class CreditRequestService {
     @Autowired
     private CreditRequestRepository creditRequestRepository;
     
+    @Autowired
+    private Pagination pagination;
+    
+    @Autowired
+    private CreditRequestStateMachine stateMachine;
+    
+    @Autowired
+    private ApprovalRouter approvalRouter;
+    
+    @Autowired
+    private ClientRepository clientRepository;
+    
+    @Autowired
+    private CreditRequestInsertBatcher insertBatcher;
+    
+    @Autowired
+    private CreditRiskScorer riskScorer;
+    
+    @Autowired
+    private ExposureLedger exposureLedger;
+    
+    @Value("${credit.bulk.max-items:200}")
+    private int bulkMaxItems;
+    
     public CreditRequest createCreditRequest(CreditRequestDto dto, String rmId) {
         CreditRequest creditRequest = new CreditRequest();
         creditRequest.setClientId(dto.getClientId());
@@ -29,15 +70,57 @@ public class CreditRequestService {
         creditRequest.setRemarks("");
         creditRequest.setCreatedAt(LocalDateTime.now());
         
-        return creditRequestRepository.save(creditRequest);
+        Client client = clientRepository.findById(dto.getClientId())
+                .orElseThrow(() -> new ResourceNotFoundException("Client not found"));
+        List<String> route = approvalRouter.route(dto.getRequestAmount(), dto.getTenureMonths(), client.getIndustry());
+        creditRequest.setStage(route.get(0));
+        creditRequest.setNextStages(new ArrayList<>(route.subList(1, route.size())));
+        
+        CreditRiskScorer.Assessment risk = riskScorer.assess(dto.getRequestAmount(), dto.getTenureMonths(),
+                client.getAnnualTurnover(), client.getIndustry(), client.getDocumentsSubmitted());
+        creditRequest.setRiskScore(risk.getScore());
+        creditRequest.setRiskReasons(risk.getReasons());
+        creditRequest.setRiskModelVersion(risk.getModelVersion());
+        creditRequest.setOutbox(OutboxEvent.append(creditRequest.getOutbox(), OutboxEvent.CREDIT_REQUEST_CREATED));
+        
+        // Rejects the request before anything is written when it would take the client or RM over its limit
+        exposureLedger.reserve(dto.getClientId(), rmId, dto.getRequestAmount(), client.getAnnualTurnover());
+        CreditRequest saved;
+        try {
+            // Under bursty load concurrent submissions can share one insertMany; either way the call returns once written
+            saved = insertBatcher.isEnabled() ? insertBatcher.insert(creditRequest) : creditRequestRepository.save(creditRequest);
+        } catch (WriteOutcomeUnknownException e) {
+            // The request may be stored, so the reservation stays until a reconciliation settles it
+            exposureLedger.written(dto.getClientId(), rmId, dto.getRequestAmount());
+            throw e;
+        } catch (RuntimeException e) {
+            exposureLedger.release(dto.getClientId(), rmId, dto.getRequestAmount());
+            throw e;
+        }
+        exposureLedger.written(dto.getClientId(), rmId, dto.getRequestAmount());
+        return saved;
     }
     
-    public List<CreditRequest> getCreditRequestsByRm(String rmId) {
-        return creditRequestRepository.findBySubmittedBy(rmId);
+    public PageResponse<CreditRequest> getCreditRequestsByRm(String rmId, String cursor, Integer size) {
+        return page("credit-requests/rm", rmId, cursor, size);
     }
     
-    public List<CreditRequest> getAllCreditRequests() {
-        return creditRequestRepository.findAll();
+    public PageResponse<CreditRequest> getAllCreditRequests(String cursor, Integer size) {
+        return page("credit-requests/all", null, cursor, size);
+    }
+    
+    // Analyst work queue: one status, oldest first
+    public PageResponse<CreditRequest> getWorkQueue(WorkQueueRequest request) {
+        String scope = "credit-requests/queue";
+        int limit = pagination.pageSize(request.getLimit());
+        String[] after = pagination.decodeCursor(scope, request.getCursor(), 2);
+        
+        List<CreditRequest> requests = creditRequestRepository.findQueue(request,
+                after != null ? LocalDateTime.parse(after[0]) : null,
+                after != null ? after[1] : null,
+                limit + 1);
+        return PageResponse.of(requests, limit,
+                last -> pagination.encodeCursor(scope, last.getCreatedAt().toString(), last.getId()));
     }
     
     public CreditRequest getCreditRequestById(String requestId) {
@@ -45,15 +128,131 @@ public class CreditRequestService {
                 .orElseThrow(() -> new ResourceNotFoundException("Credit request not found"));
     }
     
-    public CreditRequest updateCreditRequestStatus(String requestId, UpdateStatusRequest request) {
-        CreditRequest creditRequest = creditRequestRepository.findById(requestId)
+    public CreditRequest updateCreditRequestStatus(String requestId, UpdateStatusRequest request, String analystId) {
+        Set<String> sources = stateMachine.sourcesOf(request.getStatus());
+        CreditRequest.StageDecision decision = new CreditRequest.StageDecision(
+                null, request.getStatus(), analystId, request.getRemarks(), LocalDateTime.now());
+        
+        // Rejections and final-stage approvals take effect in one round-trip
+        CreditRequest updated = creditRequestRepository.transition(requestId, sources, request.getExpectedVersion(),
+                decision, CreditRequest.APPROVED.equals(request.getStatus()));
+        if (updated == null) {
+            updated = advanceStage(requestId, sources, request.getExpectedVersion(), decision);
+        }
+        exposureLedger.decided(updated);
+        return updated;
+    }
+    
+    // Slow path once the one-shot transition missed: reads the request to move an approval on to its next
+    // stage, or to explain why the decision cannot apply
+    private CreditRequest advanceStage(String requestId, Set<String> sources, Long expectedVersion,
+                                       CreditRequest.StageDecision decision) {
+        CreditRequest current = creditRequestRepository.findById(requestId)
                 .orElseThrow(() -> new ResourceNotFoundException("Credit request not found"));
+        boolean stale = (expectedVersion != null && !expectedVersion.equals(current.getVersion()))
+                || !sources.contains(current.getStatus());
+        boolean approval = CreditRequest.APPROVED.equals(decision.getDecision());
+        if (!stale && approval && current.getStageHistory() != null && current.getStageHistory().stream()
+                .anyMatch(previous -> decision.getDecidedBy().equals(previous.getDecidedBy()))) {
+            throw new ConflictException("Each approval stage needs a different analyst");
+        }
+        List<String> nextStages = current.getNextStages();
+        if (stale || !approval || nextStages == null || nextStages.isEmpty()) {
+            throw new ConflictException("Credit request was already decided or modified by someone else");
+        }
+        
+        decision.setStage(current.getStage());
+        CreditRequest advanced = creditRequestRepository.advanceStage(requestId, current.getVersion(), decision,
+                nextStages.get(0), new ArrayList<>(nextStages.subList(1, nextStages.size())));
+        if (advanced == null) {
+            throw new ConflictException("Credit request was already decided or modified by someone else");
+        }
+        return advanced;
+    }
+    
+    // Applies many decisions in one round-trip; each item succeeds or conflicts independently
+    public List<BulkDecisionResult> bulkUpdateStatus(BulkDecisionRequest request, String analystId) {
+        List<BulkDecisionRequest.Decision> decisions = request.getDecisions();
+        if (decisions.size() > bulkMaxItems) {
+            throw new BadRequestException("At most " + bulkMaxItems + " decisions are allowed per batch");
+        }
+        // Outcomes are matched to items by ID, so each request may be decided once per batch
+        Set<String> ids = new HashSet<>();
+        for (BulkDecisionRequest.Decision decision : decisions) {
+            if (!ids.add(decision.getId())) {
+                throw new BadRequestException("Credit request " + decision.getId() + " appears more than once in the batch");
+            }
+        }
+        
+        // Resolving sources up front also rejects unreachable statuses before anything is written
+        Map<String, Set<String>> sourcesByStatus = new HashMap<>();
+        for (BulkDecisionRequest.Decision decision : decisions) {
+            sourcesByStatus.computeIfAbsent(decision.getStatus(), stateMachine::sourcesOf);
+        }
+        
+        String batchId = UUID.randomUUID().toString();
+        long matched = creditRequestRepository.bulkTransition(decisions, sourcesByStatus, analystId, batchId);
         
-        creditRequest.setStatus(request.getStatus());
-        if (request.getRemarks() != null) {
-            creditRequest.setRemarks(request.getRemarks());
+        List<BulkDecisionResult> results = new ArrayList<>(decisions.size());
+        if (matched == decisions.size()) {
+            decisions.forEach(d -> results.add(new BulkDecisionResult(d.getId(), BulkDecisionResult.Outcome.APPLIED)));
+            recordDecided(results);
+            return results;
         }
         
-        return creditRequestRepository.save(creditRequest);
+        // Some preconditions failed; read back which requests carry this batch's tag
+        Map<String, String> batchById = new HashMap<>();
+        for (CreditRequest found : creditRequestRepository.findDecisionBatches(
+                decisions.stream().map(BulkDecisionRequest.Decision::getId).toList())) {
+            batchById.put(found.getId(), found.getDecisionBatch() != null ? found.getDecisionBatch() : "");
+        }
+        for (BulkDecisionRequest.Decision decision : decisions) {
+            String batch = batchById.get(decision.getId());
+            BulkDecisionResult.Outcome outcome = batch == null ? BulkDecisionResult.Outcome.NOT_FOUND
+                    : batch.equals(batchId) ? BulkDecisionResult.Outcome.APPLIED
+                    : CreditRequest.APPROVED.equals(decision.getStatus()) ? advanceInBatch(decision, sourcesByStatus, analystId)
+                    : BulkDecisionResult.Outcome.CONFLICT;
+            results.add(new BulkDecisionResult(decision.getId(), outcome));
+        }
+        recordDecided(results);
+        return results;
+    }
+    
+    // The bulk write returns no documents, so amounts and final statuses are read back in one projection
+    private void recordDecided(List<BulkDecisionResult> results) {
+        List<String> applied = results.stream()
+                .filter(r -> r.getOutcome() == BulkDecisionResult.Outcome.APPLIED)
+                .map(BulkDecisionResult::getId)
+                .toList();
+        if (!applied.isEmpty()) {
+            creditRequestRepository.findExposureInputs(applied).forEach(exposureLedger::decided);
+        }
+    }
+    
+    // Approvals that missed the bulk write may just be on an earlier stage of a multi-stage route
+    private BulkDecisionResult.Outcome advanceInBatch(BulkDecisionRequest.Decision decision,
+                                                      Map<String, Set<String>> sourcesByStatus, String analystId) {
+        try {
+            advanceStage(decision.getId(), sourcesByStatus.get(decision.getStatus()), decision.getExpectedVersion(),
+                    new CreditRequest.StageDecision(null, decision.getStatus(), analystId,
+                            decision.getRemarks(), LocalDateTime.now()));
+            return BulkDecisionResult.Outcome.APPLIED;
+        } catch (ConflictException e) {
+            return BulkDecisionResult.Outcome.CONFLICT;
+        } catch (ResourceNotFoundException e) {
+            return BulkDecisionResult.Outcome.NOT_FOUND;
+        }
+    }
+    
+    private PageResponse<CreditRequest> page(String scope, String submittedBy, String cursor, Integer size) {
+        int limit = pagination.pageSize(size);
+        String[] before = pagination.decodeCursor(scope, cursor, 2);
+        
+        List<CreditRequest> requests = creditRequestRepository.findPage(submittedBy,
+                before != null ? LocalDateTime.parse(before[0]) : null,
+                before != null ? before[1] : null,
+                limit + 1);
+        return PageResponse.of(requests, limit,
+                last -> pagination.encodeCursor(scope, last.getCreatedAt().toString(), last.getId()));
     }
 }
\ No newline at end of file
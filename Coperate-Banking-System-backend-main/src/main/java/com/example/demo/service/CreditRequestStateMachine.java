@@ -0,0 +1,46 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.BadRequestException;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+// Allowed credit request status transitions, configured as "From->To" pairs
+@Component
+public class CreditRequestStateMachine {
+    
+    @Value("${credit.status.transitions:Pending->Approved,Pending->Rejected}")
+    private String[] transitions;
+    
+    // Target status -> statuses it may be reached from
+    private Map<String, Set<String>> sources;
+    
+    @PostConstruct
+    void init() {
+        Map<String, Set<String>> map = new HashMap<>();
+        for (String transition : transitions) {
+            String[] parts = transition.split("->");
+            if (parts.length != 2 || parts[0].isBlank() || parts[1].isBlank()) {
+                throw new IllegalStateException("Invalid credit status transition: " + transition);
+            }
+            map.computeIfAbsent(parts[1].trim(), k -> new HashSet<>()).add(parts[0].trim());
+        }
+        map.replaceAll((target, from) -> Collections.unmodifiableSet(from));
+        sources = Collections.unmodifiableMap(map);
+    }
+    
+    // Statuses a request must currently be in to move to the target status
+    public Set<String> sourcesOf(String target) {
+        Set<String> from = sources.get(target);
+        if (from == null) {
+            throw new BadRequestException("Credit requests cannot be moved to " + target);
+        }
+        return from;
+    }
+}
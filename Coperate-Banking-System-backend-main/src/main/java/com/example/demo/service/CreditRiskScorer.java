@@ -0,0 +1,275 @@
+package com.example.demo.service;
+
+import com.example.demo.security.Digests;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Points-based credit risk score (0 = safest, 100 = riskiest) with one reason code per contributing factor.
+// The model is versioned by a digest of its parameters, so any change to them marks stored scores as stale.
+@Component
+public class CreditRiskScorer {
+    
+    // Reason code bits, in the order codes are reported
+    static final int HIGH_LEVERAGE = 1;
+    static final int LONG_TENURE = 1 << 1;
+    static final int INDUSTRY_RISK = 1 << 2;
+    static final int DOCUMENTS_MISSING = 1 << 3;
+    static final int TURNOVER_UNKNOWN = 1 << 4;
+    private static final String[] REASON_CODES = {
+            "HIGH_LEVERAGE", "LONG_TENURE", "INDUSTRY_RISK", "DOCUMENTS_MISSING", "TURNOVER_UNKNOWN"};
+    
+    // Below this many rows a bulk slice is scored on the calling thread
+    private static final int SEQUENTIAL_THRESHOLD = 8192;
+    
+    @Value("${credit.risk.model-name:baseline}")
+    private String modelName = "baseline";
+    
+    // Requested amount / annual turnover, "upper bound:points" with '*' for everything above
+    @Value("${credit.risk.leverage-bands:0.25:0,0.5:10,1:25,*:40}")
+    private String leverageBands = "0.25:0,0.5:10,1:25,*:40";
+    
+    @Value("${credit.risk.tenure-bands:13:0,37:5,61:15,*:25}")
+    private String tenureBands = "13:0,37:5,61:15,*:25";
+    
+    @Value("${credit.risk.industry-weights:Construction:20,Real Estate:20,Hospitality:15,Retail:10,Manufacturing:8,IT:5,*:10}")
+    private String industryWeights = "Construction:20,Real Estate:20,Hospitality:15,Retail:10,Manufacturing:8,IT:5,*:10";
+    
+    @Value("${credit.risk.missing-documents-points:15}")
+    private int missingDocumentsPoints = 15;
+    
+    @Value("${credit.risk.unknown-turnover-points:40}")
+    private int unknownTurnoverPoints = 40;
+    
+    private RiskModel model;
+    
+    @PostConstruct
+    void init() {
+        model = RiskModel.compile(modelName, leverageBands, tenureBands, industryWeights,
+                missingDocumentsPoints, unknownTurnoverPoints);
+    }
+    
+    public String getModelVersion() {
+        return model.getVersion();
+    }
+    
+    public Assessment assess(Double amount, Integer tenureMonths, Double annualTurnover, String industry,
+                             Boolean documentsSubmitted) {
+        int packed = model.score(amount != null ? amount : 0, tenureMonths != null ? tenureMonths : 0,
+                annualTurnover != null ? annualTurnover : 0, model.industryIndex(industry),
+                Boolean.TRUE.equals(documentsSubmitted));
+        return new Assessment(packed & 0xFF, reasonCodes(packed >>> 8), model.version);
+    }
+    
+    public int industryIndex(String industry) {
+        return model.industryIndex(industry);
+    }
+    
+    // Scores column arrays in parallel; scores[i] and reasons[i] receive row i's points and reason bits
+    public void scoreAll(double[] amounts, int[] tenures, double[] turnovers, int[] industries, boolean[] documents,
+                         int[] scores, int[] reasons) {
+        ForkJoinPool.commonPool().invoke(new ScoreSlice(model, amounts, tenures, turnovers, industries, documents,
+                scores, reasons, 0, amounts.length));
+    }
+    
+    public static List<String> reasonCodes(int bits) {
+        List<String> codes = new ArrayList<>(Integer.bitCount(bits));
+        for (int i = 0; i < REASON_CODES.length; i++) {
+            if ((bits & (1 << i)) != 0) {
+                codes.add(REASON_CODES[i]);
+            }
+        }
+        return codes;
+    }
+    
+    @Getter
+    @AllArgsConstructor
+    public static class Assessment {
+        private final int score;
+        private final List<String> reasons;
+        private final String modelVersion;
+    }
+    
+    private static final class ScoreSlice extends RecursiveAction {
+        
+        private final RiskModel model;
+        private final double[] amounts;
+        private final int[] tenures;
+        private final double[] turnovers;
+        private final int[] industries;
+        private final boolean[] documents;
+        private final int[] scores;
+        private final int[] reasons;
+        private final int from;
+        private final int to;
+        
+        private ScoreSlice(RiskModel model, double[] amounts, int[] tenures, double[] turnovers, int[] industries,
+                           boolean[] documents, int[] scores, int[] reasons, int from, int to) {
+            this.model = model;
+            this.amounts = amounts;
+            this.tenures = tenures;
+            this.turnovers = turnovers;
+            this.industries = industries;
+            this.documents = documents;
+            this.scores = scores;
+            this.reasons = reasons;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    int packed = model.score(amounts[i], tenures[i], turnovers[i], industries[i], documents[i]);
+                    scores[i] = packed & 0xFF;
+                    reasons[i] = packed >>> 8;
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ScoreSlice(model, amounts, tenures, turnovers, industries, documents, scores, reasons, from, mid),
+                    new ScoreSlice(model, amounts, tenures, turnovers, industries, documents, scores, reasons, mid, to));
+        }
+    }
+    
+    // Immutable compiled parameters; scoring touches only primitive arrays and returns reasons << 8 | score
+    static final class RiskModel {
+        
+        private final String version;
+        private final double[] leverageCuts;
+        private final int[] leveragePoints;
+        private final double[] tenureCuts;
+        private final int[] tenurePoints;
+        private final Map<String, Integer> industries;
+        private final int[] industryPoints; // last slot is "any other industry"
+        private final int missingDocumentsPoints;
+        private final int unknownTurnoverPoints;
+        
+        private RiskModel(String version, double[][] leverage, double[][] tenure, Map<String, Integer> industries,
+                          int[] industryPoints, int missingDocumentsPoints, int unknownTurnoverPoints) {
+            this.version = version;
+            this.leverageCuts = leverage[0];
+            this.leveragePoints = toInts(leverage[1]);
+            this.tenureCuts = tenure[0];
+            this.tenurePoints = toInts(tenure[1]);
+            this.industries = industries;
+            this.industryPoints = industryPoints;
+            this.missingDocumentsPoints = missingDocumentsPoints;
+            this.unknownTurnoverPoints = unknownTurnoverPoints;
+        }
+        
+        String getVersion() {
+            return version;
+        }
+        
+        int industryIndex(String industry) {
+            Integer index = industry != null ? industries.get(industry.trim().toLowerCase(Locale.ROOT)) : null;
+            return index != null ? index : industryPoints.length - 1;
+        }
+        
+        int score(double amount, int tenureMonths, double annualTurnover, int industry, boolean documentsSubmitted) {
+            int points = 0;
+            int reasons = 0;
+            if (annualTurnover > 0) {
+                int leverage = leveragePoints[band(leverageCuts, amount / annualTurnover)];
+                points += leverage;
+                reasons |= leverage > 0 ? HIGH_LEVERAGE : 0;
+            } else {
+                points += unknownTurnoverPoints;
+                reasons |= TURNOVER_UNKNOWN;
+            }
+            int tenure = tenurePoints[band(tenureCuts, tenureMonths)];
+            points += tenure;
+            reasons |= tenure > 0 ? LONG_TENURE : 0;
+            int sector = industryPoints[industry];
+            points += sector;
+            reasons |= sector > 0 ? INDUSTRY_RISK : 0;
+            if (!documentsSubmitted) {
+                points += missingDocumentsPoints;
+                reasons |= DOCUMENTS_MISSING;
+            }
+            return reasons << 8 | Math.min(points, 100);
+        }
+        
+        // Index of the first band whose upper bound is above the value; the last band is open-ended
+        private static int band(double[] cuts, double value) {
+            int i = 0;
+            while (i < cuts.length && value >= cuts[i]) {
+                i++;
+            }
+            return i;
+        }
+        
+        static RiskModel compile(String name, String leverageBands, String tenureBands, String industryWeights,
+                                 int missingDocumentsPoints, int unknownTurnoverPoints) {
+            Map<String, Integer> industries = new HashMap<>();
+            List<Integer> points = new ArrayList<>();
+            int otherPoints = 0;
+            for (String entry : industryWeights.split(",")) {
+                String[] parts = pair(entry, industryWeights);
+                if (parts[0].equals("*")) {
+                    otherPoints = Integer.parseInt(parts[1]);
+                } else {
+                    industries.put(parts[0].toLowerCase(Locale.ROOT), points.size());
+                    points.add(Integer.parseInt(parts[1]));
+                }
+            }
+            points.add(otherPoints);
+            
+            String parameters = String.join("|", leverageBands, tenureBands, industryWeights,
+                    String.valueOf(missingDocumentsPoints), String.valueOf(unknownTurnoverPoints));
+            String version = name + "-" + Digests.sha256Hex(parameters).substring(0, 8);
+            return new RiskModel(version, bands(leverageBands), bands(tenureBands), industries,
+                    points.stream().mapToInt(Integer::intValue).toArray(), missingDocumentsPoints, unknownTurnoverPoints);
+        }
+        
+        // "0.5:10,1:25,*:40" -> {{0.5, 1}, {10, 25, 40}}
+        private static double[][] bands(String spec) {
+            String[] entries = spec.split(",");
+            double[] cuts = new double[entries.length - 1];
+            double[] points = new double[entries.length];
+            for (int i = 0; i < entries.length; i++) {
+                String[] parts = pair(entries[i], spec);
+                boolean last = i == entries.length - 1;
+                if (last != parts[0].equals("*")) {
+                    throw new IllegalStateException("Risk band list must end with exactly one '*' band: " + spec);
+                }
+                if (!last) {
+                    cuts[i] = Double.parseDouble(parts[0]);
+                    if (i > 0 && cuts[i] <= cuts[i - 1]) {
+                        throw new IllegalStateException("Risk band bounds must increase: " + spec);
+                    }
+                }
+                points[i] = Integer.parseInt(parts[1]);
+            }
+            return new double[][] {cuts, points};
+        }
+        
+        private static String[] pair(String entry, String spec) {
+            int colon = entry.lastIndexOf(':');
+            if (colon <= 0) {
+                throw new IllegalStateException("Invalid risk model entry '" + entry + "' in: " + spec);
+            }
+            return new String[] {entry.substring(0, colon).trim(), entry.substring(colon + 1).trim()};
+        }
+        
+        private static int[] toInts(double[] values) {
+            int[] ints = new int[values.length];
+            for (int i = 0; i < values.length; i++) {
+                ints[i] = (int) values[i];
+            }
+            return ints;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.demo.service;
+
+import com.example.demo.model.OutboxAggregate;
+import com.example.demo.model.OutboxEvent;
+
+// In-process consumer of outbox events. Delivery is at least once and in order per aggregate,
+// so handlers must tolerate seeing the same event id again.
+public interface DomainEventSubscriber {
+    
+    void onEvent(OutboxEvent event, OutboxAggregate aggregate);
+}
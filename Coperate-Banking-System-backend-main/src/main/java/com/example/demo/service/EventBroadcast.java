@@ -0,0 +1,221 @@
+package com.example.demo.service;
+
+import com.example.demo.model.CreditRequest;
+import com.example.demo.model.OutboxAggregate;
+import com.example.demo.model.OutboxEvent;
+import com.mongodb.CursorType;
+import com.mongodb.client.MongoCursor;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+// Makes credit request changes visible to the SSE hub on every node. The outbox relay, which runs on
+// whichever node claimed the aggregate, writes each event once into a capped collection; every node tails
+// that collection and publishes what it reads to its own hub. Capped collections keep insertion order and
+// support tailable cursors on a standalone server as well as on a replica set. Entries are
+// { _id: eventId, seq, type, occurredAt, payload: credit request snapshot }; seq is one more than the newest
+// entry's, kept unique by an index, so it increases in insertion order and serves as the SSE event id on every node.
+@Component
+public class EventBroadcast implements DomainEventSubscriber, DisposableBean {
+    
+    private static final Logger log = LoggerFactory.getLogger(EventBroadcast.class);
+    
+    static final String COLLECTION = "broadcastEvents";
+    
+    // Writers racing for the same seq retry with the next one
+    private static final int SEQ_ATTEMPTS = 10;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private CreditRequestEventHub hub;
+    
+    @Value("${events.broadcast.capped-bytes:67108864}")
+    private long cappedBytes = 67108864;
+    
+    @Value("${events.broadcast.max-events:10000}")
+    private long maxEvents = 10000;
+    
+    // How long one read on the tailing cursor waits for new entries
+    @Value("${events.broadcast.await-ms:1000}")
+    private long awaitMs = 1000;
+    
+    // Pause before the cursor is reopened after it died or failed
+    @Value("${events.broadcast.retry-ms:1000}")
+    private long retryMs = 1000;
+    
+    private volatile boolean collectionReady;
+    private volatile boolean running;
+    
+    // Only touched by the tail thread: seq of the last entry this node has read past, and whether it is set
+    private long position;
+    private boolean positioned;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        Thread thread = new Thread(this::tail, "event-broadcast-tail");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    @Override
+    public void onEvent(OutboxEvent event, OutboxAggregate aggregate) {
+        if (!(aggregate instanceof CreditRequest request)) {
+            return;
+        }
+        ensureCollection();
+        Document payload = new Document();
+        mongoTemplate.getConverter().write(request, payload);
+        payload.remove("outbox");
+        payload.remove("outboxLeaseUntil");
+        Document entry = new Document("_id", event.getEventId())
+                .append("type", event.getType())
+                .append("occurredAt", event.getOccurredAt())
+                .append("payload", payload);
+        for (int attempt = 1; ; attempt++) {
+            entry.put("seq", seqOf(newest()) + 1);
+            try {
+                mongoTemplate.insert(entry, COLLECTION);
+                return;
+            } catch (DuplicateKeyException e) {
+                if (mongoTemplate.exists(new Query(Criteria.where("_id").is(event.getEventId())), COLLECTION)) {
+                    return; // redelivery of an event already broadcast
+                }
+                if (attempt == SEQ_ATTEMPTS) {
+                    throw e; // the relay retries the event later
+                }
+            }
+        }
+    }
+    
+    @Override
+    public void destroy() {
+        running = false;
+    }
+    
+    private void tail() {
+        while (running) {
+            try {
+                ensureCollection();
+                follow();
+            } catch (RuntimeException e) {
+                if (running) {
+                    log.warn("Event broadcast cursor failed, reopening", e);
+                }
+            }
+            try {
+                Thread.sleep(retryMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    
+    // Reads the collection in insertion order and publishes entries after the current position. A tailable
+    // cursor cannot start mid-collection, so entries up to the position are read past; when the oldest entry
+    // is already beyond the next seq the node missed events, and subscribers are told to reload.
+    private void follow() {
+        if (!positioned) {
+            position = seqOf(newest());
+            positioned = true; // start after what was there at startup
+            hub.resetAll(position);
+        }
+        boolean first = true;
+        try (MongoCursor<Document> cursor = mongoTemplate.getCollection(COLLECTION).find()
+                .cursorType(CursorType.TailableAwait)
+                .maxAwaitTime(awaitMs, TimeUnit.MILLISECONDS)
+                .iterator()) {
+            while (running) {
+                Document entry = cursor.tryNext();
+                if (entry == null) {
+                    if (cursor.getServerCursor() == null) {
+                        return; // dead cursor, e.g. the collection was still empty
+                    }
+                    continue;
+                }
+                long seq = seqOf(entry);
+                if (first && seq > position + 1) {
+                    log.warn("Event broadcast entries after {} were overwritten, resetting event streams", position);
+                    hub.resetAll(seq - 1);
+                    position = seq - 1;
+                }
+                first = false;
+                if (seq <= position) {
+                    continue;
+                }
+                position = seq;
+                publish(seq, entry);
+            }
+        }
+    }
+    
+    private void publish(long seq, Document entry) {
+        CreditRequest request = mongoTemplate.getConverter().read(CreditRequest.class, entry.get("payload", Document.class));
+        boolean created = OutboxEvent.CREDIT_REQUEST_CREATED.equals(entry.getString("type"));
+        hub.publish(seq, created ? CreditRequestEventHub.CREATED : CreditRequestEventHub.UPDATED, request);
+    }
+    
+    // Served from the seq index; the filter lets the sparse index answer the sort
+    private Document newest() {
+        return mongoTemplate.findOne(new Query(Criteria.where("seq").exists(true)).with(Sort.by(Sort.Direction.DESC, "seq")),
+                Document.class, COLLECTION);
+    }
+    
+    // Entries written before seq was introduced count as 0 and are never published
+    private static long seqOf(Document entry) {
+        Number seq = entry != null ? entry.get("seq", Number.class) : null;
+        return seq != null ? seq.longValue() : 0;
+    }
+    
+    // Writing to a missing collection would create an uncapped one that cannot be tailed
+    private void ensureCollection() {
+        if (collectionReady) {
+            return;
+        }
+        synchronized (this) {
+            if (collectionReady) {
+                return;
+            }
+            if (!mongoTemplate.collectionExists(COLLECTION)) {
+                try {
+                    mongoTemplate.createCollection(COLLECTION,
+                            CollectionOptions.empty().capped().size(cappedBytes).maxDocuments(maxEvents));
+                } catch (DataAccessException e) {
+                    if (!mongoTemplate.collectionExists(COLLECTION)) {
+                        throw e;
+                    }
+                    // another node created it first
+                }
+            } else if (!isCapped()) {
+                mongoTemplate.executeCommand(new Document("convertToCapped", COLLECTION).append("size", cappedBytes));
+            }
+            mongoTemplate.indexOps(COLLECTION).createIndex(new Index("seq", Sort.Direction.ASC).unique().sparse());
+            collectionReady = true;
+        }
+    }
+    
+    private boolean isCapped() {
+        Document info = mongoTemplate.getDb().listCollections().filter(new Document("name", COLLECTION)).first();
+        Document options = info != null ? info.get("options", Document.class) : null;
+        return options != null && options.getBoolean("capped", false);
+    }
+}
@@ -0,0 +1,348 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ExposureSummary;
+import com.example.demo.dto.ExposureTotal;
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.exception.ServiceUnavailableException;
+import com.example.demo.model.CreditRequest;
+import com.example.demo.repository.CreditRequestRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory pending and approved totals per client and per RM, in paise. Submissions are checked against
+// limits without scanning creditRequests; a periodic aggregation corrects drift from writes made by other
+// instances or outside the service. Client changes are also pushed to ClientGroupIndex, which keeps the
+// totals per corporate group.
+@Component
+public class ExposureLedger {
+    
+    private static final Logger log = LoggerFactory.getLogger(ExposureLedger.class);
+    
+    @Autowired
+    private CreditRequestRepository creditRequestRepository;
+    
+    @Autowired
+    private ClientGroupIndex clientGroupIndex;
+    
+    // Pending plus approved exposure may reach this multiple of the client's annual turnover
+    @Value("${credit.exposure.client-turnover-multiple:1.0}")
+    private double clientTurnoverMultiple = 1.0;
+    
+    // Pending plus approved exposure across all of one RM's clients, in rupees; 0 disables the limit
+    @Value("${credit.exposure.rm-limit:0}")
+    private double rmLimit;
+    
+    private volatile Map<String, Exposure> byClient = new ConcurrentHashMap<>();
+    private volatile Map<String, Exposure> byRm = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+    
+    // Reservations whose insert has not finished yet, per client and per RM; no aggregation can see them
+    private final Map<String, Exposure> inFlightByClient = new ConcurrentHashMap<>();
+    private final Map<String, Exposure> inFlightByRm = new ConcurrentHashMap<>();
+    
+    // Changes hold the read lock and also record themselves in the journal while an aggregation is being read;
+    // starting a journal and swapping in reconciled totals hold the write lock, so no change is lost in between
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile Journal journal;
+    private final LongAdder reconciliations = new LongAdder();
+    private volatile long lastDriftKeys;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        reconcile();
+    }
+    
+    @Scheduled(initialDelayString = "${credit.exposure.reconcile-ms:300000}",
+               fixedDelayString = "${credit.exposure.reconcile-ms:300000}")
+    public synchronized void reconcile() {
+        Journal started = startJournal();
+        List<ExposureTotal> totals;
+        try {
+            totals = creditRequestRepository.sumOpenExposure(null, null);
+        } catch (RuntimeException e) {
+            journal = null;
+            log.warn("Exposure reconciliation failed, keeping current totals", e);
+            return;
+        }
+        load(totals, started);
+    }
+    
+    // Starts recording changes before the aggregation is read. Reservations already in flight are seeded into
+    // it, since the aggregation may run before their inserts land.
+    Journal startJournal() {
+        lock.writeLock().lock();
+        try {
+            Journal started = new Journal();
+            inFlightByClient.forEach((clientId, exposure) -> started.add(started.clients, clientId, exposure.pending.sum(), 0));
+            inFlightByRm.forEach((rmId, exposure) -> started.add(started.rms, rmId, exposure.pending.sum(), 0));
+            journal = started;
+            return started;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // Swaps in totals computed from the given rows plus the changes journalled while they were read
+    void load(List<ExposureTotal> totals, Journal applied) {
+        Map<String, Exposure> clients = new ConcurrentHashMap<>();
+        Map<String, Exposure> rms = new ConcurrentHashMap<>();
+        for (ExposureTotal total : totals) {
+            long amount = toPaise(total.getAmount());
+            boolean approved = CreditRequest.APPROVED.equals(total.getStatus());
+            if (total.getClientId() != null) {
+                clients.computeIfAbsent(total.getClientId(), k -> new Exposure()).add(approved, amount);
+            }
+            if (total.getRmId() != null) {
+                rms.computeIfAbsent(total.getRmId(), k -> new Exposure()).add(approved, amount);
+            }
+        }
+        
+        lock.writeLock().lock();
+        try {
+            applied.clients.forEach((clientId, delta) -> clients.computeIfAbsent(clientId, k -> new Exposure()).add(delta));
+            applied.rms.forEach((rmId, delta) -> rms.computeIfAbsent(rmId, k -> new Exposure()).add(delta));
+            if (journal == applied) {
+                journal = null;
+            }
+            if (ready) {
+                lastDriftKeys = drift(byClient, clients) + drift(byRm, rms);
+                if (lastDriftKeys > 0) {
+                    log.warn("Exposure ledger corrected {} drifted client/RM totals", lastDriftKeys);
+                }
+            }
+            byClient = clients;
+            byRm = rms;
+            ready = true;
+            Map<String, long[]> groupInputs = new HashMap<>();
+            clients.forEach((clientId, exposure) ->
+                    groupInputs.put(clientId, new long[] {exposure.pending.sum(), exposure.approved.sum()}));
+            clientGroupIndex.setExposure(groupInputs);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        reconciliations.increment();
+    }
+    
+    // Adds a new request's amount to pending, or rejects it when a limit would be exceeded
+    public void reserve(String clientId, String rmId, double amount, Double annualTurnover) {
+        if (!ready) {
+            throw new ServiceUnavailableException("Exposure ledger is still loading, please retry");
+        }
+        long paise = toPaise(amount);
+        lock.readLock().lock();
+        try {
+            reserve(entry(byClient, clientId), entry(byRm, rmId), paise, annualTurnover);
+            toGroup(clientId, paise, 0);
+            entry(inFlightByClient, clientId).pending.add(paise);
+            entry(inFlightByRm, rmId).pending.add(paise);
+            journal(clientId, rmId, paise, 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Checks and adds under the entry locks (always client then RM) so racing submissions cannot both pass
+    private void reserve(Exposure client, Exposure rm, long paise, Double annualTurnover) {
+        synchronized (client) {
+            synchronized (rm) {
+                if (annualTurnover == null || annualTurnover <= 0) {
+                    throw new BadRequestException("Client annual turnover is required to check the exposure limit");
+                }
+                long clientLimit = toPaise(annualTurnover * clientTurnoverMultiple);
+                if (client.total() + paise > clientLimit) {
+                    throw new BadRequestException(String.format(
+                            "Request exceeds the client's exposure limit; available %.2f", available(clientLimit, client)));
+                }
+                if (rmLimit > 0 && rm.total() + paise > toPaise(rmLimit)) {
+                    throw new BadRequestException(String.format(
+                            "Request exceeds the RM's exposure limit; available %.2f", available(toPaise(rmLimit), rm)));
+                }
+                client.pending.add(paise);
+                rm.pending.add(paise);
+            }
+        }
+    }
+    
+    // Ends a reservation once its request is stored, after which aggregations see it
+    public void written(String clientId, String rmId, double amount) {
+        long paise = toPaise(amount);
+        lock.readLock().lock();
+        try {
+            entry(inFlightByClient, clientId).pending.add(-paise);
+            entry(inFlightByRm, rmId).pending.add(-paise);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Undoes a reservation whose request was never written
+    public void release(String clientId, String rmId, double amount) {
+        long paise = toPaise(amount);
+        lock.readLock().lock();
+        try {
+            entry(byClient, clientId).pending.add(-paise);
+            entry(byRm, rmId).pending.add(-paise);
+            toGroup(clientId, -paise, 0);
+            entry(inFlightByClient, clientId).pending.add(-paise);
+            entry(inFlightByRm, rmId).pending.add(-paise);
+            journal(clientId, rmId, -paise, 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Moves a decided request's amount out of the total for the status it left and into the one it entered.
+    // Transitions are configurable, so the source is read from the request; older documents without one were Pending.
+    // The decision is already stored, so a running aggregation may or may not include it: the journal only takes
+    // moves that keep or raise the total, and a freed amount is left for the next reconciliation to pick up.
+    public void decided(CreditRequest request) {
+        String from = request.getPreviousStatus() != null ? request.getPreviousStatus() : "Pending";
+        if (request.getRequestAmount() == null || from.equals(request.getStatus())) {
+            return;
+        }
+        long paise = toPaise(request.getRequestAmount());
+        lock.readLock().lock();
+        try {
+            for (Exposure exposure : List.of(entry(byClient, request.getClientId()), entry(byRm, request.getSubmittedBy()))) {
+                exposure.move(from, request.getStatus(), paise);
+            }
+            long pending = change("Pending", from, request.getStatus(), paise);
+            long approved = change(CreditRequest.APPROVED, from, request.getStatus(), paise);
+            toGroup(request.getClientId(), pending, approved);
+            if (pending + approved >= 0) {
+                journal(request.getClientId(), request.getSubmittedBy(), pending, approved);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public ExposureSummary getClientExposure(String clientId, Double annualTurnover) {
+        Exposure exposure = byClient.get(clientId);
+        long pending = exposure != null ? exposure.pending.sum() : 0;
+        long approved = exposure != null ? exposure.approved.sum() : 0;
+        Double limit = annualTurnover != null && annualTurnover > 0 ? annualTurnover * clientTurnoverMultiple : null;
+        return new ExposureSummary(clientId, pending / 100.0, approved / 100.0, limit);
+    }
+    
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("clients", (long) byClient.size());
+        stats.put("rms", (long) byRm.size());
+        stats.put("reconciliations", reconciliations.sum());
+        stats.put("lastDriftKeys", lastDriftKeys);
+        return stats;
+    }
+    
+    // Callers hold the read lock, so the journal cannot be swapped in while they record into it
+    private void journal(String clientId, String rmId, long pending, long approved) {
+        Journal current = journal;
+        if (current != null) {
+            current.add(current.clients, clientId, pending, approved);
+            current.add(current.rms, rmId, pending, approved);
+        }
+    }
+    
+    private void toGroup(String clientId, long pending, long approved) {
+        if (clientId != null) {
+            clientGroupIndex.addExposure(clientId, pending, approved);
+        }
+    }
+    
+    // How a move between two statuses changes the total for one status
+    private static long change(String status, String from, String to, long paise) {
+        return (status.equals(to) ? paise : 0) - (status.equals(from) ? paise : 0);
+    }
+    
+    private static Exposure entry(Map<String, Exposure> map, String key) {
+        return key != null ? map.computeIfAbsent(key, k -> new Exposure()) : new Exposure();
+    }
+    
+    private static long drift(Map<String, Exposure> current, Map<String, Exposure> fresh) {
+        Map<String, Exposure> all = new HashMap<>(current);
+        all.putAll(fresh);
+        long drifted = 0;
+        for (String key : all.keySet()) {
+            Exposure was = current.get(key);
+            Exposure now = fresh.get(key);
+            long wasPending = was != null ? was.pending.sum() : 0;
+            long wasApproved = was != null ? was.approved.sum() : 0;
+            long nowPending = now != null ? now.pending.sum() : 0;
+            long nowApproved = now != null ? now.approved.sum() : 0;
+            if (wasPending != nowPending || wasApproved != nowApproved) {
+                drifted++;
+            }
+        }
+        return drifted;
+    }
+    
+    private static double available(long limit, Exposure exposure) {
+        return Math.max(0, limit - exposure.total()) / 100.0;
+    }
+    
+    private static long toPaise(Double amount) {
+        return amount != null ? Math.round(amount * 100) : 0;
+    }
+    
+    private static final class Exposure {
+        private final LongAdder pending = new LongAdder();
+        private final LongAdder approved = new LongAdder();
+        
+        void add(boolean approvedAmount, long paise) {
+            (approvedAmount ? approved : pending).add(paise);
+        }
+        
+        void add(Exposure delta) {
+            pending.add(delta.pending.sum());
+            approved.add(delta.approved.sum());
+        }
+        
+        void move(String from, String to, long paise) {
+            LongAdder source = total(from);
+            LongAdder target = total(to);
+            if (source != null) {
+                source.add(-paise);
+            }
+            if (target != null) {
+                target.add(paise);
+            }
+        }
+        
+        // Only pending and approved requests count towards exposure
+        private LongAdder total(String status) {
+            return "Pending".equals(status) ? pending : CreditRequest.APPROVED.equals(status) ? approved : null;
+        }
+        
+        long total() {
+            return pending.sum() + approved.sum();
+        }
+    }
+    
+    // Per client and per RM changes made while one aggregation was being read
+    static final class Journal {
+        private final Map<String, Exposure> clients = new ConcurrentHashMap<>();
+        private final Map<String, Exposure> rms = new ConcurrentHashMap<>();
+        
+        private void add(Map<String, Exposure> map, String key, long pending, long approved) {
+            if (key != null && (pending != 0 || approved != 0)) {
+                Exposure delta = map.computeIfAbsent(key, k -> new Exposure());
+                delta.pending.add(pending);
+                delta.approved.add(approved);
+            }
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.exception.ConflictException;
+import com.example.demo.exception.ServiceUnavailableException;
+import com.example.demo.exception.WriteOutcomeUnknownException;
+import com.example.demo.model.IdempotencyRecord;
+import com.example.demo.security.Digests;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.MapperFeature;
+import tools.jackson.databind.SerializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Runs a create at most once per Idempotency-Key. Keys live in a TTL collection so every instance agrees;
+// a bounded LRU of finished keys answers most retries without a round-trip, and duplicates racing on
+// the same instance wait for the first caller's outcome instead of touching Mongo at all.
+@Service
+public class IdempotencyService {
+    
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+    
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final long LOCK_POLL_MS = 50;
+    private static final int COMPLETE_ATTEMPTS = 3;
+    
+    // Canonical JSON of a request for the reuse check: properties and map keys sorted and nulls left out, so the
+    // hash only changes with the submitted values, not with a DTO's toString, field order or a new optional field
+    private static final JsonMapper CANONICAL = JsonMapper.builder()
+            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .disable(MapperFeature.SORT_CREATOR_PROPERTIES_FIRST)
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .changeDefaultPropertyInclusion(inclusion -> inclusion.withValueInclusion(JsonInclude.Include.NON_NULL))
+            .build();
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Value("${idempotency.ttl-ms:86400000}")
+    private long ttlMs = 86400000;
+    
+    @Value("${idempotency.lock-ms:60000}")
+    private long lockMs = 60000;
+    
+    @Value("${idempotency.wait-ms:10000}")
+    private long waitMs = 10000;
+    
+    @Value("${idempotency.cache.max-size:10000}")
+    private int cacheMaxSize = 10000;
+    
+    private final ConcurrentHashMap<String, CompletableFuture<Completed>> inFlight = new ConcurrentHashMap<>();
+    
+    private final LinkedHashMap<String, Completed> completed =
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Completed> eldest) {
+                    return size() > cacheMaxSize;
+                }
+            };
+    
+    // Without a key the action simply runs; with one, a retry gets the originally created resource back
+    public <T> T execute(String scope, String userId, String key, Object request,
+                         Supplier<T> action, Function<T, String> idOf, Function<String, T> lookup) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        String id = Digests.sha256Hex(scope + "\n" + userId + "\n" + key);
+        String requestHash = Digests.sha256Hex(CANONICAL.writeValueAsString(request));
+        
+        Completed cached = cached(id);
+        if (cached != null) {
+            return lookup.apply(replay(cached, requestHash));
+        }
+        
+        CompletableFuture<Completed> mine = new CompletableFuture<>();
+        CompletableFuture<Completed> running = inFlight.putIfAbsent(id, mine);
+        if (running != null) {
+            return lookup.apply(replay(await(running), requestHash));
+        }
+        try {
+            IdempotencyRecord earlier = acquire(id, requestHash);
+            if (earlier != null) {
+                Completed done = new Completed(earlier.getRequestHash(), earlier.getResourceId(),
+                        earlier.getExpiresAt().toEpochMilli());
+                remember(id, done);
+                mine.complete(done);
+                return lookup.apply(replay(done, requestHash));
+            }
+            
+            T result;
+            try {
+                result = action.get();
+            } catch (WriteOutcomeUnknownException e) {
+                // The resource may exist, so retries are refused for the key's lifetime rather than run again
+                try {
+                    hold(id, Instant.now().plusMillis(ttlMs));
+                } catch (DataAccessException unreachable) {
+                    e.addSuppressed(unreachable);
+                }
+                throw e;
+            } catch (RuntimeException e) {
+                // Nothing was created, so the key is released and a corrected retry may run
+                mongoTemplate.remove(new Query(Criteria.where("id").is(id).and("status").is(IdempotencyRecord.IN_PROGRESS)),
+                        IdempotencyRecord.class);
+                throw e;
+            }
+            
+            Instant expiresAt = Instant.now().plusMillis(ttlMs);
+            Completed done = new Completed(requestHash, idOf.apply(result), expiresAt.toEpochMilli());
+            // The resource exists from here on, so retries on this instance replay it even if recording fails
+            remember(id, done);
+            mine.complete(done);
+            recordCompletion(id, done, expiresAt);
+            return result;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(id, mine);
+        }
+    }
+    
+    // Claims the key in Mongo; returns the finished record instead when an earlier request already completed
+    private IdempotencyRecord acquire(String id, String requestHash) {
+        long deadline = System.currentTimeMillis() + waitMs;
+        while (true) {
+            Instant now = Instant.now();
+            try {
+                mongoTemplate.insert(new IdempotencyRecord(id, requestHash, IdempotencyRecord.IN_PROGRESS, null,
+                        now.plusMillis(lockMs)));
+                return null;
+            } catch (DuplicateKeyException e) {
+                // someone holds or finished this key
+            }
+            
+            IdempotencyRecord current = mongoTemplate.findById(id, IdempotencyRecord.class);
+            if (current == null) {
+                continue; // expired in between
+            }
+            if (!requestHash.equals(current.getRequestHash())) {
+                throw new ConflictException("Idempotency-Key was already used with a different request");
+            }
+            if (IdempotencyRecord.COMPLETED.equals(current.getStatus())) {
+                return current;
+            }
+            // Another instance is running it; a lapsed lock means that instance died mid-request
+            if (current.getExpiresAt().isBefore(now) && takeOver(id, current.getExpiresAt(), now)) {
+                return null;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                throw new ConflictException("A request with this Idempotency-Key is still being processed");
+            }
+            try {
+                Thread.sleep(LOCK_POLL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServiceUnavailableException("Interrupted while waiting for a duplicate request");
+            }
+        }
+    }
+    
+    // Once the action has run, the record must not fall back to a lock another instance could take over and run
+    // the action again. The COMPLETED write is retried; if it keeps failing, the lock is stretched over the key's
+    // lifetime so duplicates are refused rather than re-run, and the request fails.
+    private void recordCompletion(String id, Completed done, Instant expiresAt) {
+        DataAccessException failure = null;
+        for (int attempt = 0; attempt < COMPLETE_ATTEMPTS; attempt++) {
+            if (attempt > 0 && !pause(LOCK_POLL_MS << attempt)) {
+                break;
+            }
+            try {
+                mongoTemplate.updateFirst(new Query(Criteria.where("id").is(id)),
+                        new Update().set("status", IdempotencyRecord.COMPLETED)
+                                .set("resourceId", done.resourceId)
+                                .set("expiresAt", expiresAt),
+                        IdempotencyRecord.class);
+                return;
+            } catch (DataAccessException e) {
+                failure = e;
+            }
+        }
+        try {
+            hold(id, expiresAt);
+        } catch (DataAccessException e) {
+            if (failure != null) {
+                e.addSuppressed(failure);
+            }
+            log.error("Idempotency key {} could not be recorded or held; a retry after its lock lapses may repeat resource {}",
+                    id, done.resourceId, e);
+        }
+        throw new ServiceUnavailableException("The request was processed but its Idempotency-Key could not be recorded");
+    }
+    
+    // Stretches this instance's lock so no other instance takes the key over before it expires
+    private void hold(String id, Instant expiresAt) {
+        mongoTemplate.updateFirst(new Query(Criteria.where("id").is(id).and("status").is(IdempotencyRecord.IN_PROGRESS)),
+                new Update().set("expiresAt", expiresAt), IdempotencyRecord.class);
+    }
+    
+    private static boolean pause(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    private boolean takeOver(String id, Instant lapsedLock, Instant now) {
+        Query query = new Query(Criteria.where("id").is(id)
+                .and("status").is(IdempotencyRecord.IN_PROGRESS)
+                .and("expiresAt").is(lapsedLock));
+        return mongoTemplate.updateFirst(query, new Update().set("expiresAt", now.plusMillis(lockMs)),
+                IdempotencyRecord.class).getModifiedCount() == 1;
+    }
+    
+    private Completed await(CompletableFuture<Completed> running) {
+        try {
+            return running.get(waitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ConflictException("A request with this Idempotency-Key is still being processed");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while waiting for a duplicate request");
+        }
+    }
+    
+    private static String replay(Completed done, String requestHash) {
+        if (!done.requestHash.equals(requestHash)) {
+            throw new ConflictException("Idempotency-Key was already used with a different request");
+        }
+        return done.resourceId;
+    }
+    
+    private Completed cached(String id) {
+        synchronized (completed) {
+            Completed done = completed.get(id);
+            // The cache never outlives the stored key
+            if (done != null && done.expiresAt <= System.currentTimeMillis()) {
+                completed.remove(id);
+                return null;
+            }
+            return done;
+        }
+    }
+    
+    private void remember(String id, Completed done) {
+        synchronized (completed) {
+            completed.put(id, done);
+        }
+    }
+    
+    private static final class Completed {
+        private final String requestHash;
+        private final String resourceId;
+        private final long expiresAt;
+        
+        private Completed(String requestHash, String resourceId, long expiresAt) {
+            this.requestHash = requestHash;
+            this.resourceId = resourceId;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Client;
+import com.example.demo.model.CreditRequest;
+import com.example.demo.model.OutboxAggregate;
+import com.example.demo.model.OutboxEvent;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Drains outbox events from aggregates and hands them to subscribers off the request path.
+// Each aggregate is leased while it is drained, so relays on several instances keep per-aggregate order.
+@Component
+public class OutboxRelay implements DisposableBean {
+    
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+    
+    private static final List<Class<? extends OutboxAggregate>> AGGREGATES = List.of(CreditRequest.class, Client.class);
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private List<DomainEventSubscriber> subscribers;
+    
+    @Value("${events.outbox.poll-ms:200}")
+    private long pollMs;
+    
+    @Value("${events.outbox.batch-size:100}")
+    private int batchSize;
+    
+    @Value("${events.outbox.lease-ms:30000}")
+    private long leaseMs;
+    
+    // Delay before an aggregate whose delivery failed is claimed again
+    @Value("${events.outbox.retry-ms:5000}")
+    private long retryMs = 5000;
+    
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile long lastLagMs;
+    private volatile long lastDrainMs;
+    
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "outbox-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.scheduleWithFixedDelay(this::drainAll, pollMs, pollMs, TimeUnit.MILLISECONDS);
+    }
+    
+    private void drainAll() {
+        try {
+            // Keep going while batches come back full, so a backlog drains without waiting for the next tick
+            for (Class<? extends OutboxAggregate> type : AGGREGATES) {
+                while (drain(type) == batchSize) {
+                    // next batch
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Outbox relay pass failed, retrying on next poll", e);
+        }
+    }
+    
+    // Claims and delivers up to batch-size aggregates of one type; returns how many were claimed
+    int drain(Class<? extends OutboxAggregate> type) {
+        long started = System.nanoTime();
+        Map<String, List<String>> deliveredIds = new LinkedHashMap<>();
+        Set<String> failedIds = new HashSet<>();
+        int claimed = 0;
+        long maxLag = 0;
+        while (claimed < batchSize) {
+            OutboxAggregate aggregate = claim(type);
+            if (aggregate == null) {
+                break;
+            }
+            claimed++;
+            
+            List<String> done = new ArrayList<>();
+            for (OutboxEvent event : aggregate.getOutbox()) {
+                if (!dispatch(event, aggregate)) {
+                    failedIds.add(aggregate.getId());
+                    break; // later events wait so per-aggregate order holds
+                }
+                done.add(event.getEventId());
+                maxLag = Math.max(maxLag, Duration.between(event.getOccurredAt(), LocalDateTime.now()).toMillis());
+            }
+            deliveredIds.put(aggregate.getId(), done);
+        }
+        if (claimed == 0) {
+            return 0;
+        }
+        
+        // One bulk write acknowledges the whole batch and releases the leases. A failed aggregate stays leased
+        // for retry-ms, so a broken subscriber is retried with a pause instead of on every poll.
+        LocalDateTime retryAt = LocalDateTime.now().plusNanos(retryMs * 1_000_000);
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type);
+        deliveredIds.forEach((id, eventIds) -> {
+            Update update = failedIds.contains(id)
+                    ? new Update().set("outboxLeaseUntil", retryAt)
+                    : new Update().unset("outboxLeaseUntil");
+            if (!eventIds.isEmpty()) {
+                update.pull("outbox", new Document("eventId", new Document("$in", eventIds)));
+            }
+            bulk.updateOne(new Query(Criteria.where("id").is(id)), update);
+        });
+        bulk.execute();
+        
+        lastLagMs = maxLag;
+        lastDrainMs = (System.nanoTime() - started) / 1_000_000;
+        return claimed;
+    }
+    
+    private OutboxAggregate claim(Class<? extends OutboxAggregate> type) {
+        LocalDateTime now = LocalDateTime.now();
+        Query query = new Query(Criteria.where("outbox.0").exists(true)
+                .orOperator(Criteria.where("outboxLeaseUntil").is(null), Criteria.where("outboxLeaseUntil").lt(now)));
+        query.with(Sort.by("outboxLeaseUntil"));
+        Update update = new Update().set("outboxLeaseUntil", now.plusNanos(leaseMs * 1_000_000));
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), type);
+    }
+    
+    private boolean dispatch(OutboxEvent event, OutboxAggregate aggregate) {
+        try {
+            for (DomainEventSubscriber subscriber : subscribers) {
+                subscriber.onEvent(event, aggregate);
+            }
+            delivered.increment();
+            return true;
+        } catch (RuntimeException e) {
+            failed.increment();
+            log.warn("Delivery of outbox event {} ({}) failed", event.getEventId(), event.getType(), e);
+            return false;
+        }
+    }
+    
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        long backlog = 0;
+        for (Class<? extends OutboxAggregate> type : AGGREGATES) {
+            backlog += mongoTemplate.count(new Query(Criteria.where("outbox.0").exists(true)), type);
+        }
+        stats.put("delivered", delivered.sum());
+        stats.put("failed", failed.sum());
+        stats.put("pendingAggregates", backlog);
+        stats.put("lastLagMs", lastLagMs);
+        stats.put("lastDrainMs", lastDrainMs);
+        return stats;
+    }
+    
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.BadRequestException;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+
+// Page-size limits and opaque, HMAC-signed cursors holding the keyset of the last row of a page
+@Component
+public class Pagination {
+    
+    private static final int SIGNATURE_BYTES = 16;
+    
+    @Value("${pagination.cursor-secret:${jwt.secret}}")
+    private String secret;
+    
+    @Value("${pagination.default-size:50}")
+    private int defaultSize;
+    
+    @Value("${pagination.max-size:200}")
+    private int maxSize;
+    
+    private SecretKeySpec key;
+    
+    @PostConstruct
+    void init() {
+        key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+    }
+    
+    // Requested size clamped to [1, max-size]
+    public int pageSize(Integer requested) {
+        if (requested == null) {
+            return defaultSize;
+        }
+        return Math.max(1, Math.min(requested, maxSize));
+    }
+    
+    // The scope ties a cursor to one listing so it cannot be replayed against another
+    public String encodeCursor(String scope, String... values) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(scope);
+            out.writeByte(values.length);
+            for (String value : values) {
+                out.writeUTF(value != null ? value : "");
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] payload = bytes.toByteArray();
+        byte[] token = Arrays.copyOf(payload, payload.length + SIGNATURE_BYTES);
+        System.arraycopy(sign(payload), 0, token, payload.length, SIGNATURE_BYTES);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+    }
+    
+    // Returns null for a missing cursor, meaning the first page
+    public String[] decodeCursor(String scope, String cursor, int expectedValues) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            byte[] token = Base64.getUrlDecoder().decode(cursor);
+            if (token.length <= SIGNATURE_BYTES) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            byte[] payload = Arrays.copyOf(token, token.length - SIGNATURE_BYTES);
+            byte[] signature = Arrays.copyOfRange(token, payload.length, token.length);
+            if (!MessageDigest.isEqual(signature, sign(payload))) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            if (!scope.equals(in.readUTF()) || in.readByte() != expectedValues) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            String[] values = new String[expectedValues];
+            for (int i = 0; i < expectedValues; i++) {
+                values[i] = in.readUTF();
+            }
+            return values;
+        } catch (IllegalArgumentException | IOException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+    
+    private byte[] sign(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            return Arrays.copyOf(mac.doFinal(payload), SIGNATURE_BYTES);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+}
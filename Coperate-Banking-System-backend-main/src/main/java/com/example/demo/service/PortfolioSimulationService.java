@@ -0,0 +1,290 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PortfolioSimulationResult;
+import com.example.demo.dto.SimulationJob;
+import com.example.demo.dto.SimulationRequest;
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.exception.ConflictException;
+import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.model.Client;
+import com.example.demo.model.CreditRequest;
+import com.example.demo.repository.ClientRepository;
+import com.example.demo.repository.CreditRequestRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+// Runs portfolio loss simulations over all approved credit requests as background jobs, one at a time.
+// A request's PD comes from its risk score, interpolated log-linearly between min-pd (score 0) and
+// max-pd (score 100); requests without a score are treated as score 100.
+@Service
+public class PortfolioSimulationService {
+    
+    private static final Logger log = LoggerFactory.getLogger(PortfolioSimulationService.class);
+    
+    private static final int CLIENT_CHUNK = 10000;
+    private static final String UNKNOWN = "Unknown";
+    
+    @Autowired
+    private CreditRequestRepository creditRequestRepository;
+    
+    @Autowired
+    private ClientRepository clientRepository;
+    
+    @Value("${credit.simulation.default-scenarios:100000}")
+    private long defaultScenarios = 100000;
+    
+    @Value("${credit.simulation.max-scenarios:1000000}")
+    private long maxScenarios = 1000000;
+    
+    @Value("${credit.simulation.min-pd:0.002}")
+    private double minPd = 0.002;
+    
+    @Value("${credit.simulation.max-pd:0.25}")
+    private double maxPd = 0.25;
+    
+    @Value("${credit.simulation.lgd:0.45}")
+    private double lossGivenDefault = 0.45;
+    
+    @Value("${credit.simulation.systemic-correlation:0.12}")
+    private double systemicCorrelation = 0.12;
+    
+    @Value("${credit.simulation.industry-correlation:0.08}")
+    private double industryCorrelation = 0.08;
+    
+    @Value("${credit.simulation.retained-jobs:20}")
+    private int retainedJobs = 20;
+    
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "portfolio-simulation");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private final AtomicBoolean running = new AtomicBoolean();
+    
+    private final LinkedHashMap<String, Job> jobs = new LinkedHashMap<>(32, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Job> eldest) {
+            return size() > retainedJobs;
+        }
+    };
+    
+    public SimulationJob start(SimulationRequest request) {
+        long scenarios = request.getScenarios() != null ? request.getScenarios() : defaultScenarios;
+        if (scenarios > maxScenarios) {
+            throw new BadRequestException("At most " + maxScenarios + " scenarios are allowed per simulation");
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new ConflictException("A portfolio simulation is already running");
+        }
+        long seed = request.getSeed() != null ? request.getSeed() : ThreadLocalRandom.current().nextLong();
+        Job job = new Job(UUID.randomUUID().toString(), scenarios, seed);
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+        }
+        try {
+            executor.execute(() -> run(job));
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+        return job.view();
+    }
+    
+    public SimulationJob getJob(String id) {
+        return find(id).view();
+    }
+    
+    // Stops a running job at its next block of scenarios
+    public SimulationJob cancel(String id) {
+        Job job = find(id);
+        job.cancelRequested = true;
+        return job.view();
+    }
+    
+    private Job find(String id) {
+        synchronized (jobs) {
+            Job job = jobs.get(id);
+            if (job == null) {
+                throw new ResourceNotFoundException("Simulation not found");
+            }
+            return job;
+        }
+    }
+    
+    private void run(Job job) {
+        try {
+            Book book = load();
+            if (job.cancelRequested) {
+                throw new CancellationException();
+            }
+            job.status = SimulationJob.Status.RUNNING;
+            long started = System.nanoTime();
+            PortfolioLossSimulator.Result result = book.simulator.run(job.scenarios, job.seed,
+                    job.completed::add, () -> job.cancelRequested);
+            job.result = summarize(job, book, result, (System.nanoTime() - started) / 1_000_000);
+            job.status = SimulationJob.Status.COMPLETED;
+        } catch (CancellationException e) {
+            job.status = SimulationJob.Status.CANCELLED;
+        } catch (RuntimeException e) {
+            log.warn("Portfolio simulation {} failed", job.id, e);
+            job.error = e.getMessage();
+            job.status = SimulationJob.Status.FAILED;
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            running.set(false);
+        }
+    }
+    
+    // Reads the approved book once and packs it into the simulator's primitive columns
+    private Book load() {
+        List<CreditRequest> approved;
+        try (Stream<CreditRequest> requests = creditRequestRepository.streamApprovedExposures()) {
+            approved = requests.toList();
+        }
+        Set<String> clientIds = new HashSet<>();
+        for (CreditRequest request : approved) {
+            clientIds.add(request.getClientId());
+        }
+        List<String> ids = new ArrayList<>(clientIds);
+        Map<String, String> industryByClient = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += CLIENT_CHUNK) {
+            List<String> chunk = ids.subList(from, Math.min(ids.size(), from + CLIENT_CHUNK));
+            for (Client client : clientRepository.findRiskProfiles(chunk)) {
+                if (client.getIndustry() != null && !client.getIndustry().isBlank()) {
+                    industryByClient.put(client.getId(), client.getIndustry().trim());
+                }
+            }
+        }
+        
+        int n = approved.size();
+        Map<String, Integer> industries = new LinkedHashMap<>();
+        Map<String, Integer> rms = new LinkedHashMap<>();
+        long[] losses = new long[n];
+        double[] pds = new double[n];
+        int[] industryOf = new int[n];
+        int[] rmOf = new int[n];
+        List<Double> industryExposure = new ArrayList<>();
+        List<Double> rmExposure = new ArrayList<>();
+        double totalExposure = 0;
+        for (int i = 0; i < n; i++) {
+            CreditRequest request = approved.get(i);
+            double amount = request.getRequestAmount() != null ? request.getRequestAmount() : 0;
+            losses[i] = Math.round(amount * lossGivenDefault);
+            pds[i] = probabilityOfDefault(request.getRiskScore());
+            industryOf[i] = index(industries, industryByClient.getOrDefault(request.getClientId(), UNKNOWN), industryExposure);
+            rmOf[i] = index(rms, request.getSubmittedBy() != null ? request.getSubmittedBy() : UNKNOWN, rmExposure);
+            industryExposure.set(industryOf[i], industryExposure.get(industryOf[i]) + amount);
+            rmExposure.set(rmOf[i], rmExposure.get(rmOf[i]) + amount);
+            totalExposure += amount;
+        }
+        PortfolioLossSimulator simulator = new PortfolioLossSimulator(losses, pds, industryOf, rmOf,
+                industries.size(), rms.size(), systemicCorrelation, industryCorrelation);
+        return new Book(simulator, n, totalExposure, new ArrayList<>(industries.keySet()), industryExposure,
+                new ArrayList<>(rms.keySet()), rmExposure);
+    }
+    
+    double probabilityOfDefault(Integer riskScore) {
+        double score = riskScore != null ? Math.min(Math.max(riskScore, 0), 100) : 100;
+        return minPd * Math.pow(maxPd / minPd, score / 100);
+    }
+    
+    private static int index(Map<String, Integer> indexes, String key, List<Double> exposures) {
+        Integer index = indexes.get(key);
+        if (index == null) {
+            index = indexes.size();
+            indexes.put(key, index);
+            exposures.add(0.0);
+        }
+        return index;
+    }
+    
+    private static PortfolioSimulationResult summarize(Job job, Book book, PortfolioLossSimulator.Result result,
+                                                       long elapsedMs) {
+        List<PortfolioSimulationResult.LossEstimate> byIndustry = new ArrayList<>();
+        for (int k = 0; k < book.industries.size(); k++) {
+            byIndustry.add(estimate(book.industries.get(k), book.industryExposure.get(k), result, 1 + k));
+        }
+        List<PortfolioSimulationResult.LossEstimate> byRm = new ArrayList<>();
+        for (int r = 0; r < book.rms.size(); r++) {
+            byRm.add(estimate(book.rms.get(r), book.rmExposure.get(r), result, 1 + book.industries.size() + r));
+        }
+        Comparator<PortfolioSimulationResult.LossEstimate> largestFirst =
+                Comparator.comparingDouble(PortfolioSimulationResult.LossEstimate::getValueAtRisk99).reversed();
+        byIndustry.sort(largestFirst);
+        byRm.sort(largestFirst);
+        return new PortfolioSimulationResult(job.seed, job.scenarios, book.exposures,
+                estimate("portfolio", book.totalExposure, result, 0), byIndustry, byRm, elapsedMs);
+    }
+    
+    private static PortfolioSimulationResult.LossEstimate estimate(String key, double exposure,
+                                                                   PortfolioLossSimulator.Result result, int group) {
+        return new PortfolioSimulationResult.LossEstimate(key, exposure, result.expectedLoss(group),
+                result.valueAtRisk(group, 0.99));
+    }
+    
+    private static final class Book {
+        private final PortfolioLossSimulator simulator;
+        private final int exposures;
+        private final double totalExposure;
+        private final List<String> industries;
+        private final List<Double> industryExposure;
+        private final List<String> rms;
+        private final List<Double> rmExposure;
+        
+        private Book(PortfolioLossSimulator simulator, int exposures, double totalExposure, List<String> industries,
+                     List<Double> industryExposure, List<String> rms, List<Double> rmExposure) {
+            this.simulator = simulator;
+            this.exposures = exposures;
+            this.totalExposure = totalExposure;
+            this.industries = industries;
+            this.industryExposure = industryExposure;
+            this.rms = rms;
+            this.rmExposure = rmExposure;
+        }
+    }
+    
+    private static final class Job {
+        private final String id;
+        private final long scenarios;
+        private final long seed;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final LongAdder completed = new LongAdder();
+        private volatile SimulationJob.Status status = SimulationJob.Status.LOADING;
+        private volatile boolean cancelRequested;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+        private volatile PortfolioSimulationResult result;
+        
+        private Job(String id, long scenarios, long seed) {
+            this.id = id;
+            this.scenarios = scenarios;
+            this.seed = seed;
+        }
+        
+        private SimulationJob view() {
+            return new SimulationJob(id, status, scenarios, seed, completed.sum(), startedAt, finishedAt, error, result);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.UnauthorizedException;
+import com.example.demo.model.RefreshToken;
+import com.example.demo.repository.RefreshTokenRepository;
+import com.example.demo.security.Digests;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+@Service
+public class RefreshTokenService {
+    
+    private static final SecureRandom RANDOM = new SecureRandom();
+    
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Value("${jwt.refresh-expiration:604800000}")
+    private Long refreshExpiration;
+    
+    // Starts a new token family, used on login and register
+    public String issue(String userId) {
+        return issue(userId, UUID.randomUUID().toString());
+    }
+    
+    // Consumes a refresh token and returns the owning user ID together with its replacement
+    public Rotation rotate(String rawToken) {
+        String hash = Digests.sha256Hex(rawToken);
+        
+        // Mark as used atomically so two concurrent refreshes cannot both succeed
+        RefreshToken current = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("tokenHash").is(hash).and("used").is(false)),
+                Update.update("used", true),
+                FindAndModifyOptions.options().returnNew(false),
+                RefreshToken.class
+        );
+        
+        if (current == null) {
+            RefreshToken reused = mongoTemplate.findOne(
+                    Query.query(Criteria.where("tokenHash").is(hash)), RefreshToken.class);
+            if (reused != null) {
+                // A rotated token was presented again, so the family is assumed stolen
+                refreshTokenRepository.deleteByFamilyId(reused.getFamilyId());
+                throw new UnauthorizedException("Refresh token reuse detected");
+            }
+            throw new UnauthorizedException("Invalid refresh token");
+        }
+        
+        if (current.getExpiresAt().isBefore(Instant.now())) {
+            throw new UnauthorizedException("Refresh token expired");
+        }
+        
+        String next = issue(current.getUserId(), current.getFamilyId());
+        return new Rotation(current.getUserId(), next);
+    }
+    
+    public void revokeAll(String userId) {
+        refreshTokenRepository.deleteByUserId(userId);
+    }
+    
+    private String issue(String userId, String familyId) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setTokenHash(Digests.sha256Hex(rawToken));
+        refreshToken.setUserId(userId);
+        refreshToken.setFamilyId(familyId);
+        refreshToken.setUsed(false);
+        refreshToken.setExpiresAt(Instant.now().plusMillis(refreshExpiration));
+        refreshTokenRepository.save(refreshToken);
+        
+        return rawToken;
+    }
+    
+    @Getter
+    @AllArgsConstructor
+    public static class Rotation {
+        private final String userId;
+        private final String refreshToken;
+    }
+}
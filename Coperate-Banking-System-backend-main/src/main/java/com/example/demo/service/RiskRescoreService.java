@@ -0,0 +1,134 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.RiskRescoreResult;
+import com.example.demo.exception.ConflictException;
+import com.example.demo.model.Client;
+import com.example.demo.model.CreditRequest;
+import com.example.demo.repository.ClientRepository;
+import com.example.demo.repository.CreditRequestRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Re-scores pending credit requests whose stored score came from another model version. Each chunk is
+// read with a projection, unpacked into primitive columns, scored in parallel, and written back in one bulk.
+@Service
+public class RiskRescoreService {
+    
+    private static final Logger log = LoggerFactory.getLogger(RiskRescoreService.class);
+    
+    @Autowired
+    private CreditRequestRepository creditRequestRepository;
+    
+    @Autowired
+    private ClientRepository clientRepository;
+    
+    @Autowired
+    private CreditRiskScorer riskScorer;
+    
+    @Value("${credit.risk.rescore-chunk:100000}")
+    private int chunkSize = 100000;
+    
+    private final AtomicBoolean running = new AtomicBoolean();
+    
+    // A changed model is picked up on the next start, without holding up startup itself
+    @EventListener(ApplicationReadyEvent.class)
+    public void rescoreOnStartup() {
+        Thread thread = new Thread(() -> {
+            try {
+                RiskRescoreResult result = rescorePending();
+                if (result.getScored() > 0) {
+                    log.info("Re-scored {} pending credit requests with risk model {} in {} ms",
+                            result.getScored(), result.getModelVersion(), result.getTotalMs());
+                }
+            } catch (RuntimeException e) {
+                log.warn("Startup risk re-score failed", e);
+            }
+        }, "risk-rescore");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    public RiskRescoreResult rescorePending() {
+        if (!running.compareAndSet(false, true)) {
+            throw new ConflictException("A risk re-score is already running");
+        }
+        try {
+            String version = riskScorer.getModelVersion();
+            long started = System.nanoTime();
+            long scoringNanos = 0;
+            long scored = 0;
+            String afterId = null;
+            while (true) {
+                List<CreditRequest> chunk = creditRequestRepository.findUnscored(version, afterId, chunkSize);
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                scoringNanos += scoreChunk(chunk, version);
+                scored += chunk.size();
+                afterId = chunk.get(chunk.size() - 1).getId();
+            }
+            return new RiskRescoreResult(version, scored, scoringNanos / 1_000_000,
+                    (System.nanoTime() - started) / 1_000_000);
+        } finally {
+            running.set(false);
+        }
+    }
+    
+    // Returns the nanoseconds spent scoring, as opposed to reading and writing
+    private long scoreChunk(List<CreditRequest> chunk, String version) {
+        int n = chunk.size();
+        Set<String> clientIds = new HashSet<>();
+        for (CreditRequest request : chunk) {
+            clientIds.add(request.getClientId());
+        }
+        Map<String, Client> clients = new HashMap<>();
+        for (Client client : clientRepository.findRiskProfiles(clientIds)) {
+            clients.put(client.getId(), client);
+        }
+        
+        double[] amounts = new double[n];
+        int[] tenures = new int[n];
+        double[] turnovers = new double[n];
+        int[] industries = new int[n];
+        boolean[] documents = new boolean[n];
+        List<String> ids = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            CreditRequest request = chunk.get(i);
+            Client client = clients.get(request.getClientId());
+            ids.add(request.getId());
+            amounts[i] = request.getRequestAmount() != null ? request.getRequestAmount() : 0;
+            tenures[i] = request.getTenureMonths() != null ? request.getTenureMonths() : 0;
+            turnovers[i] = client != null && client.getAnnualTurnover() != null ? client.getAnnualTurnover() : 0;
+            industries[i] = riskScorer.industryIndex(client != null ? client.getIndustry() : null);
+            documents[i] = client != null && Boolean.TRUE.equals(client.getDocumentsSubmitted());
+        }
+        
+        int[] scores = new int[n];
+        int[] reasonBits = new int[n];
+        long started = System.nanoTime();
+        riskScorer.scoreAll(amounts, tenures, turnovers, industries, documents, scores, reasonBits);
+        long elapsed = System.nanoTime() - started;
+        
+        // Only a handful of reason combinations exist, so their code lists are shared across rows
+        Map<Integer, List<String>> codesByBits = new HashMap<>();
+        List<List<String>> reasons = new ArrayList<>(n);
+        for (int bits : reasonBits) {
+            reasons.add(codesByBits.computeIfAbsent(bits, CreditRiskScorer::reasonCodes));
+        }
+        creditRequestRepository.saveScores(ids, scores, reasons, version);
+        return elapsed;
+    }
+}
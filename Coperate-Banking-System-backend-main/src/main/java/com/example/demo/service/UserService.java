@@ -1,8 +1,12 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.PageResponse;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.model.User;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.security.RevocationRegistry;
+import com.example.demo.security.TokenCache;
+import com.example.demo.security.UserCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -14,13 +18,42 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private TokenCache tokenCache;
+    
+    @Autowired
+    private RevocationRegistry revocationRegistry;
+    
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+    
+    @Autowired
+    private UserCache userCache;
+    
+    @Autowired
+    private Pagination pagination;
+    
     public User getCurrentUser(String username) {
-        return userRepository.findByUsername(username)
+        User cached = userCache.get(username);
+        if (cached != null) {
+            return cached;
+        }
+        
+        User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        userCache.put(user);
+        return user;
     }
     
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    // Page of users without password hashes
+    public PageResponse<User> getAllUsers(String cursor, Integer size) {
+        int limit = pagination.pageSize(size);
+        String[] after = pagination.decodeCursor("users", cursor, 2);
+        
+        List<User> users = userRepository.findPage(
+                after != null ? after[0] : null, after != null ? after[1] : null, limit + 1);
+        return PageResponse.of(users, limit,
+                last -> pagination.encodeCursor("users", last.getUsername(), last.getId()));
     }
     
     public User updateUserStatus(String userId, Boolean active) {
@@ -28,6 +61,16 @@ public class UserService {
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
         
         user.setActive(active);
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        userCache.invalidate(user.getUsername());
+        
+        if (Boolean.TRUE.equals(active)) {
+            revocationRegistry.restore(userId);
+        } else {
+            revocationRegistry.revoke(userId);
+            tokenCache.evictUser(userId);
+            refreshTokenService.revokeAll(userId);
+        }
+        return savedUser;
     }
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AmortizationEngineTest {
+    
+    @Test
+    void testInstallment_ReducingBalanceMatchesEmiFormula() {
+        // 10,00,000 at 12% for 12 months
+        assertEquals(8884879, AmortizationEngine.installment(AmortizationEngine.Method.REDUCING, 100000000L, 12, 12));
+    }
+    
+    @Test
+    void testSchedule_ReducingBalanceRepaysPrincipalExactly() {
+        long[] repaid = new long[1];
+        long[] lastBalance = new long[1];
+        
+        long totalInterest = AmortizationEngine.schedule(AmortizationEngine.Method.REDUCING, 100000000L, 12, 12,
+                (period, installment, principal, interest, balance) -> {
+                    assertEquals(installment, principal + interest);
+                    repaid[0] += principal;
+                    lastBalance[0] = balance;
+                });
+        
+        assertEquals(100000000L, repaid[0]);
+        assertEquals(0, lastBalance[0]);
+        assertEquals(6618545, totalInterest);
+    }
+    
+    @Test
+    void testSchedule_FlatRateChargesInterestOnOriginalPrincipal() {
+        int[] periods = new int[1];
+        
+        long totalInterest = AmortizationEngine.schedule(AmortizationEngine.Method.FLAT, 12000000L, 10, 12,
+                (period, installment, principal, interest, balance) -> {
+                    periods[0]++;
+                    assertEquals(1100000, installment);
+                    assertEquals(100000, interest);
+                });
+        
+        assertEquals(12, periods[0]);
+        assertEquals(1200000, totalInterest);
+    }
+    
+    @Test
+    void testSchedule_ZeroRateSplitsPrincipalEvenly() {
+        long[] lastBalance = new long[1];
+        
+        long totalInterest = AmortizationEngine.schedule(AmortizationEngine.Method.REDUCING, 1000L, 0, 3,
+                (period, installment, principal, interest, balance) -> lastBalance[0] = balance);
+        
+        assertEquals(0, totalInterest);
+        assertEquals(0, lastBalance[0]);
+        assertEquals(333, AmortizationEngine.installment(AmortizationEngine.Method.REDUCING, 1000L, 0, 3));
+    }
+}
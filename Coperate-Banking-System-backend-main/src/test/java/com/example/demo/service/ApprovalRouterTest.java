@@ -0,0 +1,49 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ApprovalRouterTest {
+    
+    private static final String RULES =
+            "amount>=100000000->ANALYST,SECOND_APPROVER,COMMITTEE;"
+            + "amount>=25000000&industry=Real Estate->ANALYST,COMMITTEE;"
+            + "amount>=25000000->ANALYST,SECOND_APPROVER;"
+            + "tenure>=120->ANALYST,SECOND_APPROVER;"
+            + "*->ANALYST";
+    
+    private final ApprovalRouter.DecisionTable table = ApprovalRouter.DecisionTable.compile(RULES);
+    
+    @Test
+    void testRoute_FirstMatchingRuleWins() {
+        assertEquals(List.of("ANALYST", "SECOND_APPROVER", "COMMITTEE"), table.route(150000000.0, 12, "Real Estate"));
+        assertEquals(List.of("ANALYST", "COMMITTEE"), table.route(30000000.0, 12, "real estate"));
+        assertEquals(List.of("ANALYST", "SECOND_APPROVER"), table.route(30000000.0, 12, "Manufacturing"));
+        assertEquals(List.of("ANALYST", "SECOND_APPROVER"), table.route(1000000.0, 180, null));
+        assertEquals(List.of("ANALYST"), table.route(1000000.0, 24, "Manufacturing"));
+    }
+    
+    @Test
+    void testRoute_ThresholdsAreInclusive() {
+        assertEquals(List.of("ANALYST", "SECOND_APPROVER"), table.route(25000000.0, 12, null));
+        assertEquals(List.of("ANALYST"), table.route(24999999.99, 119, null));
+        assertEquals(List.of("ANALYST", "SECOND_APPROVER"), table.route(0.0, 120, null));
+    }
+    
+    @Test
+    void testRoute_FallsBackToDefaultWithoutCatchAll() {
+        ApprovalRouter.DecisionTable partial = ApprovalRouter.DecisionTable.compile("amount>=1000->ANALYST,COMMITTEE");
+        
+        assertEquals(ApprovalRouter.DEFAULT_ROUTE, partial.route(10.0, 12, null));
+        assertEquals(List.of("ANALYST", "COMMITTEE"), partial.route(1000.0, 12, null));
+    }
+    
+    @Test
+    void testCompile_RejectsMalformedRule() {
+        assertThrows(IllegalStateException.class, () -> ApprovalRouter.DecisionTable.compile("amount>>5->ANALYST"));
+        assertThrows(IllegalStateException.class, () -> ApprovalRouter.DecisionTable.compile("amount>=5"));
+    }
+}
@@ -3,12 +3,14 @@ package com.example.demo.service;
 
 import com.example.demo.dto.AuthResponse;
 import com.example.demo.dto.LoginRequest;
+import com.example.demo.dto.RefreshRequest;
 import com.example.demo.dto.RegisterRequest;
 import com.example.demo.exception.BadRequestException;
 import com.example.demo.exception.UnauthorizedException;
 import com.example.demo.model.User;
 import com.example.demo.repository.UserRepository;
 import com.example.demo.security.JwtUtil;
+import com.example.demo.security.UserCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -36,6 +38,12 @@ class AuthServiceTest {
     @Mock
     private JwtUtil jwtUtil;
     
+    @Mock
+    private RefreshTokenService refreshTokenService;
+    
+    @Mock
+    private UserCache userCache;
+    
     @InjectMocks
     private AuthService authService;
     
@@ -73,6 +81,7 @@ class AuthServiceTest {
         when(userRepository.findByUsername(anyString())).thenReturn(Optional.of(testUser));
         when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
         when(jwtUtil.generateToken(anyString(), anyString(), anyString())).thenReturn("jwt-token");
+        when(refreshTokenService.issue(anyString())).thenReturn("refresh-token");
         
         // Act
         AuthResponse response = authService.login(loginRequest);
@@ -80,6 +89,7 @@ class AuthServiceTest {
         // Assert
         assertNotNull(response);
         assertEquals("jwt-token", response.getToken());
+        assertEquals("refresh-token", response.getRefreshToken());
         assertEquals("testuser", response.getUsername());
         assertEquals("test@example.com", response.getEmail());
         assertEquals("RM", response.getRole());
@@ -88,6 +98,7 @@ class AuthServiceTest {
         verify(userRepository, times(1)).findByUsername("testuser");
         verify(passwordEncoder, times(1)).matches("password123", "encodedPassword");
         verify(jwtUtil, times(1)).generateToken("testuser", "RM", "user123");
+        verify(refreshTokenService, times(1)).issue("user123");
     }
     
     @Test
@@ -159,6 +170,7 @@ class AuthServiceTest {
         verify(userRepository, times(1)).existsByEmail("new@example.com");
         verify(passwordEncoder, times(1)).encode("newpass123");
         verify(userRepository, times(1)).save(any(User.class));
+        verify(userCache, times(1)).invalidate("testuser");
     }
     
     @Test
@@ -193,4 +205,61 @@ class AuthServiceTest {
         verify(userRepository, times(1)).existsByEmail("new@example.com");
         verify(userRepository, never()).save(any(User.class));
     }
+    
+    @Test
+    void testRefresh_Success() {
+        // Arrange
+        RefreshRequest refreshRequest = new RefreshRequest();
+        refreshRequest.setRefreshToken("old-refresh");
+        when(refreshTokenService.rotate(anyString()))
+                .thenReturn(new RefreshTokenService.Rotation("user123", "new-refresh"));
+        when(userRepository.findById(anyString())).thenReturn(Optional.of(testUser));
+        when(jwtUtil.generateToken(anyString(), anyString(), anyString())).thenReturn("jwt-token");
+        
+        // Act
+        AuthResponse response = authService.refresh(refreshRequest);
+        
+        // Assert
+        assertEquals("jwt-token", response.getToken());
+        assertEquals("new-refresh", response.getRefreshToken());
+        verify(refreshTokenService, times(1)).rotate("old-refresh");
+        verify(passwordEncoder, never()).matches(anyString(), anyString());
+    }
+    
+    @Test
+    void testRefresh_UserDeactivated() {
+        // Arrange
+        testUser.setActive(false);
+        RefreshRequest refreshRequest = new RefreshRequest();
+        refreshRequest.setRefreshToken("old-refresh");
+        when(refreshTokenService.rotate(anyString()))
+                .thenReturn(new RefreshTokenService.Rotation("user123", "new-refresh"));
+        when(userRepository.findById(anyString())).thenReturn(Optional.of(testUser));
+        
+        // Act & Assert
+        UnauthorizedException exception = assertThrows(
+            UnauthorizedException.class,
+            () -> authService.refresh(refreshRequest)
+        );
+        
+        assertEquals("User account is deactivated", exception.getMessage());
+        verify(refreshTokenService, times(1)).revokeAll("user123");
+        verify(jwtUtil, never()).generateToken(anyString(), anyString(), anyString());
+    }
+    
+    @Test
+    void testLogin_RehashesOutdatedPassword() {
+        // Arrange
+        when(userRepository.findByUsername(anyString())).thenReturn(Optional.of(testUser));
+        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding("encodedPassword")).thenReturn(true);
+        when(passwordEncoder.encode("password123")).thenReturn("rehashedPassword");
+        
+        // Act
+        authService.login(loginRequest);
+        
+        // Assert
+        assertEquals("rehashedPassword", testUser.getPassword());
+        verify(userRepository, times(1)).save(testUser);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,144 @@
+package com.example.demo.service;
+
+
+import com.example.demo.model.Client;
+import com.example.demo.repository.ClientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ClientGroupIndexTest {
+    
+    private ClientGroupIndex index;
+    
+    @BeforeEach
+    void setUp() {
+        // holding <- (sub1 <- sub1a), sub2; standalone on its own
+        index = new ClientGroupIndex();
+        index.put("holding", null, 1000.0);
+        index.put("sub1", "holding", 200.0);
+        index.put("sub1a", "sub1", 30.0);
+        index.put("sub2", "holding", 4.0);
+        index.put("standalone", null, 50.0);
+    }
+    
+    @Test
+    void testGroup_ResolvesEveryMemberToTheHead() {
+        // Act
+        ClientGroupIndex.Group group = index.group("sub1a");
+        
+        // Assert
+        assertEquals("holding", group.getHeadId());
+        assertEquals(4, group.getMembers());
+        assertEquals("holding", index.members("sub1a").get(0));
+        assertEquals(Set.of("holding", "sub1", "sub1a", "sub2"), Set.copyOf(index.members("sub1a")));
+        assertEquals(1234.0, group.getAnnualTurnover());
+    }
+    
+    @Test
+    void testGroup_UnknownClientIsItsOwnGroup() {
+        // Act
+        ClientGroupIndex.Group group = index.group("unknown");
+        
+        // Assert
+        assertEquals("unknown", group.getHeadId());
+        assertEquals(1, group.getMembers());
+        assertEquals(0.0, group.getAnnualTurnover());
+    }
+    
+    @Test
+    void testPut_DetachingMovesTheWholeSubtree() {
+        // Act
+        index.put("sub1", null, 200.0);
+        
+        // Assert
+        assertEquals("sub1", index.group("sub1a").getHeadId());
+        assertEquals(230.0, index.group("sub1").getAnnualTurnover());
+        assertEquals(1004.0, index.group("holding").getAnnualTurnover());
+        assertEquals(2, index.group("holding").getMembers());
+    }
+    
+    @Test
+    void testPut_AttachingAHeadMergesGroups() {
+        // Act
+        index.put("holding", "standalone", 1000.0);
+        
+        // Assert
+        ClientGroupIndex.Group group = index.group("sub2");
+        assertEquals("standalone", group.getHeadId());
+        assertEquals(5, group.getMembers());
+        assertEquals(1284.0, group.getAnnualTurnover());
+    }
+    
+    @Test
+    void testPut_TurnoverChangeUpdatesGroupTotal() {
+        // Act
+        index.put("sub2", "holding", 10.0);
+        
+        // Assert
+        assertEquals(1240.0, index.group("holding").getAnnualTurnover());
+    }
+    
+    @Test
+    void testWouldCycle_DetectsDescendantsAndSelf() {
+        // Assert
+        assertTrue(index.wouldCycle("holding", "sub1a"));
+        assertTrue(index.wouldCycle("sub1", "sub1"));
+        assertFalse(index.wouldCycle("sub1a", "sub2"));
+        assertFalse(index.wouldCycle("holding", "standalone"));
+    }
+    
+    @Test
+    void testAddExposure_TotalsFollowTheGroupAcrossReParenting() {
+        // Arrange
+        index.addExposure("sub1a", 50000, 0);
+        index.addExposure("sub2", 0, 70000);
+        
+        // Act
+        index.put("sub1", null, 200.0);
+        
+        // Assert
+        assertEquals(500.0, index.group("sub1a").getPending());
+        assertEquals(0.0, index.group("holding").getPending());
+        assertEquals(700.0, index.group("holding").getApproved());
+    }
+    
+    @Test
+    void testRebuild_KeepsLinksSavedWhileStreaming() {
+        // Arrange: the stream still has sub1 under holding while it is being detached
+        index.setExposure(Map.of("sub1a", new long[] {50000, 0}));
+        ClientRepository clientRepository = mock(ClientRepository.class);
+        when(clientRepository.streamGroupLinks()).thenReturn(Stream.of(
+                link("holding", null, 1000.0), link("sub1", "holding", 200.0), link("sub1a", "sub1", 30.0))
+                .peek(client -> {
+                    if (client.getId().equals("sub1a")) {
+                        index.put("sub1", null, 200.0);
+                    }
+                }));
+        ReflectionTestUtils.setField(index, "clientRepository", clientRepository);
+        
+        // Act
+        index.rebuild();
+        
+        // Assert
+        assertEquals("sub1", index.group("sub1a").getHeadId());
+        assertEquals(500.0, index.group("sub1a").getPending());
+        assertEquals(1, index.group("holding").getMembers());
+        assertFalse(index.wouldCycle("holding", "sub1a"));
+    }
+    
+    private static Client link(String id, String parentId, Double annualTurnover) {
+        Client client = new Client();
+        client.setId(id);
+        client.setParentId(parentId);
+        client.setAnnualTurnover(annualTurnover);
+        return client;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.demo.service;
+
+
+import com.example.demo.dto.ClientSuggestion;
+import com.example.demo.model.Client;
+import com.example.demo.repository.ClientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ClientNameIndexTest {
+    
+    private ClientNameIndex index;
+    
+    @BeforeEach
+    void setUp() {
+        index = new ClientNameIndex();
+        index.put("client1", "ABC Textiles Ltd");
+        index.put("client2", "Textile Corp");
+        index.put("client3", "Alpha Beta Industries");
+        index.put("client4", "ABC");
+    }
+    
+    @Test
+    void testSearch_RanksExactThenPrefixMatches() {
+        // Act
+        List<ClientSuggestion> result = index.search("abc", 10);
+        
+        // Assert
+        assertEquals(2, result.size());
+        assertEquals("client4", result.get(0).getId());
+        assertEquals("client1", result.get(1).getId());
+    }
+    
+    @Test
+    void testSearch_MatchesInsideNameIgnoringCase() {
+        // Act
+        List<ClientSuggestion> result = index.search("TEXTILE", 10);
+        
+        // Assert
+        assertEquals(2, result.size());
+        assertEquals("client2", result.get(0).getId());
+        assertEquals("client1", result.get(1).getId());
+    }
+    
+    @Test
+    void testSearch_ShortQueryMatchesWordStarts() {
+        // Act
+        List<ClientSuggestion> result = index.search("be", 10);
+        
+        // Assert
+        assertEquals(1, result.size());
+        assertEquals("client3", result.get(0).getId());
+    }
+    
+    @Test
+    void testSearch_RespectsLimit() {
+        // Act
+        List<ClientSuggestion> result = index.search("t", 1);
+        
+        // Assert
+        assertEquals(1, result.size());
+    }
+    
+    @Test
+    void testSearch_CapDoesNotHideBetterMatchesAddedLater() {
+        // Arrange: more than maxCandidates weaker matches sit at lower doc ids than the best ones
+        ReflectionTestUtils.setField(index, "maxCandidates", 3);
+        for (int i = 1; i <= 5; i++) {
+            index.put("mid" + i, "Altd Traders " + i);
+            index.put("prefix" + i, "Ltd Holdings " + i);
+        }
+        index.put("word", "Alpha Ltd");
+        index.put("exact", "LTD");
+        
+        // Act
+        List<ClientSuggestion> result = index.search("ltd", 10);
+        
+        // Assert
+        assertEquals("exact", result.get(0).getId());
+        assertTrue(result.get(1).getId().startsWith("prefix"));
+        assertTrue(result.stream().anyMatch(suggestion -> "word".equals(suggestion.getId())));
+    }
+    
+    @Test
+    void testPut_ReplacesPreviousName() {
+        // Arrange
+        index.put("client2", "Global Logistics");
+        
+        // Act & Assert
+        assertEquals(1, index.search("textile", 10).size());
+        assertEquals("client2", index.search("logis", 10).get(0).getId());
+    }
+    
+    @Test
+    void testSearch_NoMatch() {
+        // Act
+        List<ClientSuggestion> result = index.search("xyz", 10);
+        
+        // Assert
+        assertTrue(result.isEmpty());
+    }
+    
+    @Test
+    void testRebuild_KeepsNamesSavedWhileStreaming() {
+        // Arrange
+        Client stored = new Client();
+        stored.setId("client1");
+        stored.setCompanyName("ABC Textiles Ltd");
+        ClientRepository clientRepository = mock(ClientRepository.class);
+        when(clientRepository.streamCompanyNames()).thenReturn(Stream.of(stored)
+                .peek(client -> index.put("client5", "Zenith Exports")));
+        ReflectionTestUtils.setField(index, "clientRepository", clientRepository);
+        
+        // Act
+        index.rebuild();
+        
+        // Assert
+        assertEquals("client5", index.search("zenith", 10).get(0).getId());
+        assertEquals("client1", index.search("abc", 10).get(0).getId());
+        assertTrue(index.search("alpha", 10).isEmpty());
+    }
+}
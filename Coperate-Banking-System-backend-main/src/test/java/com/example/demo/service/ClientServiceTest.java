@@ -1,7 +1,11 @@
 package com.example.demo.service;
 
 
+import com.example.demo.dto.ClientGroupSummary;
 import com.example.demo.dto.ClientRequest;
+import com.example.demo.dto.ClientSearchRequest;
+import com.example.demo.dto.PageResponse;
+import com.example.demo.exception.BadRequestException;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.model.Client;
 import com.example.demo.repository.ClientRepository;
@@ -18,7 +22,11 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,6 +35,15 @@ class ClientServiceTest {
     @Mock
     private ClientRepository clientRepository;
     
+    @Mock
+    private ClientNameIndex clientNameIndex;
+    
+    @Mock
+    private ClientGroupIndex clientGroupIndex;
+    
+    @Mock
+    private Pagination pagination;
+    
     @InjectMocks
     private ClientService clientService;
     
@@ -86,6 +103,40 @@ class ClientServiceTest {
         assertTrue(result.getDocumentsSubmitted());
         
         verify(clientRepository, times(1)).save(any(Client.class));
+        verify(clientNameIndex, times(1)).put("client123", "ABC Textiles Ltd");
+        verify(clientGroupIndex, times(1)).put("client123", null, 25000000.0);
+    }
+    
+    @Test
+    void testCreateClient_UnderParent() {
+        // Arrange
+        clientRequest.setParentId("parent1");
+        when(clientGroupIndex.isReady()).thenReturn(true);
+        when(clientRepository.existsById("parent1")).thenReturn(true);
+        when(clientRepository.save(any(Client.class))).thenAnswer(invocation -> {
+            Client saved = invocation.getArgument(0);
+            saved.setId("client123");
+            return saved;
+        });
+        
+        // Act
+        Client result = clientService.createClient(clientRequest, "rm123");
+        
+        // Assert
+        assertEquals("parent1", result.getParentId());
+        verify(clientGroupIndex, times(1)).put("client123", "parent1", 25000000.0);
+    }
+    
+    @Test
+    void testCreateClient_ParentNotFound() {
+        // Arrange
+        clientRequest.setParentId("missing");
+        when(clientGroupIndex.isReady()).thenReturn(true);
+        when(clientRepository.existsById("missing")).thenReturn(false);
+        
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> clientService.createClient(clientRequest, "rm123"));
+        verify(clientRepository, never()).save(any(Client.class));
     }
     
     @Test
@@ -102,32 +153,36 @@ class ClientServiceTest {
         client2.setRmId("rm123");
         
         List<Client> clients = Arrays.asList(client1, client2);
-        when(clientRepository.findByRmId(anyString())).thenReturn(clients);
+        when(pagination.pageSize(any())).thenReturn(50);
+        when(clientRepository.search(any(ClientSearchRequest.class), isNull(), isNull(), eq(51))).thenReturn(clients);
         
         // Act
-        List<Client> result = clientService.getClientsByRm("rm123");
+        PageResponse<Client> result = clientService.getClientsByRm("rm123", null, null);
         
         // Assert
         assertNotNull(result);
-        assertEquals(2, result.size());
-        assertEquals("Company 1", result.get(0).getCompanyName());
-        assertEquals("Company 2", result.get(1).getCompanyName());
+        assertEquals(2, result.getItems().size());
+        assertEquals("Company 1", result.getItems().get(0).getCompanyName());
+        assertEquals("Company 2", result.getItems().get(1).getCompanyName());
+        assertNull(result.getNextCursor());
         
-        verify(clientRepository, times(1)).findByRmId("rm123");
+        verify(clientRepository, times(1)).search(
+                argThat(criteria -> "rm123".equals(criteria.getRmId())), isNull(), isNull(), eq(51));
     }
     
     @Test
     void testGetClientsByRm_EmptyList() {
         // Arrange
-        when(clientRepository.findByRmId(anyString())).thenReturn(Arrays.asList());
+        when(pagination.pageSize(any())).thenReturn(50);
+        when(clientRepository.search(any(ClientSearchRequest.class), isNull(), isNull(), eq(51))).thenReturn(Arrays.asList());
         
         // Act
-        List<Client> result = clientService.getClientsByRm("rm999");
+        PageResponse<Client> result = clientService.getClientsByRm("rm999", null, null);
         
         // Assert
         assertNotNull(result);
-        assertTrue(result.isEmpty());
-        verify(clientRepository, times(1)).findByRmId("rm999");
+        assertTrue(result.getItems().isEmpty());
+        assertNull(result.getNextCursor());
     }
     
     @Test
@@ -165,7 +220,10 @@ class ClientServiceTest {
     void testUpdateClient_Success() {
         // Arrange
         when(clientRepository.findById(anyString())).thenReturn(Optional.of(testClient));
-        when(clientRepository.save(any(Client.class))).thenReturn(testClient);
+        Client updated = new Client();
+        updated.setId("client123");
+        updated.setCompanyName("Updated Company Name");
+        when(clientRepository.updateDetails(eq("client123"), eq("rm123"), any(Client.class), eq(false))).thenReturn(updated);
         
         clientRequest.setCompanyName("Updated Company Name");
         clientRequest.setAnnualTurnover(30000000.0);
@@ -176,7 +234,82 @@ class ClientServiceTest {
         // Assert
         assertNotNull(result);
         verify(clientRepository, times(1)).findById("client123");
-        verify(clientRepository, times(1)).save(any(Client.class));
+        verify(clientRepository).updateDetails(eq("client123"), eq("rm123"), argThat(details ->
+                "Updated Company Name".equals(details.getCompanyName()) && details.getAnnualTurnover() == 30000000.0), eq(false));
+        verify(clientRepository, never()).save(any(Client.class));
+        verify(clientNameIndex, times(1)).put("client123", "Updated Company Name");
+    }
+    
+    @Test
+    void testUpdateClient_RejectsCycle() {
+        // Arrange
+        when(clientRepository.findById(anyString())).thenReturn(Optional.of(testClient));
+        when(clientGroupIndex.isReady()).thenReturn(true);
+        when(clientRepository.existsById("subsidiary1")).thenReturn(true);
+        when(clientGroupIndex.wouldCycle("client123", "subsidiary1")).thenReturn(true);
+        clientRequest.setParentId("subsidiary1");
+        
+        // Act & Assert
+        assertThrows(BadRequestException.class,
+                () -> clientService.updateClient("client123", clientRequest, "rm123"));
+        verify(clientRepository, never()).save(any(Client.class));
+        verify(clientRepository, never()).updateDetails(anyString(), anyString(), any(Client.class), anyBoolean());
+        verify(clientGroupIndex, never()).put(anyString(), any(), any());
+    }
+    
+    @Test
+    void testUpdateClient_WithoutParentIdKeepsGroup() {
+        // Arrange
+        testClient.setParentId("parent1");
+        when(clientRepository.findById("client123")).thenReturn(Optional.of(testClient));
+        when(clientRepository.updateDetails(eq("client123"), eq("rm123"), any(Client.class), eq(false))).thenReturn(testClient);
+        clientRequest.setCompanyName("Renamed Ltd");
+        
+        // Act
+        clientService.updateClient("client123", clientRequest, "rm123");
+        
+        // Assert
+        verify(clientRepository).updateDetails(eq("client123"), eq("rm123"),
+                argThat(details -> "parent1".equals(details.getParentId())), eq(false));
+        verify(clientGroupIndex).put("client123", "parent1", 25000000.0);
+    }
+    
+    @Test
+    void testUpdateClient_EmptyParentIdDetaches() {
+        // Arrange
+        testClient.setParentId("parent1");
+        Client detached = new Client();
+        detached.setId("client123");
+        when(clientRepository.findById("client123")).thenReturn(Optional.of(testClient));
+        when(clientRepository.updateDetails(eq("client123"), eq("rm123"), any(Client.class), eq(true))).thenReturn(detached);
+        clientRequest.setParentId("");
+        
+        // Act
+        clientService.updateClient("client123", clientRequest, "rm123");
+        
+        // Assert
+        verify(clientRepository).updateDetails(eq("client123"), eq("rm123"),
+                argThat(details -> details.getParentId() == null), eq(true));
+        verify(clientGroupIndex).put("client123", null, null);
+    }
+    
+    @Test
+    void testGetClientGroup_ReturnsGroupTotals() {
+        // Arrange
+        when(clientRepository.findById("client123")).thenReturn(Optional.of(testClient));
+        when(clientGroupIndex.isReady()).thenReturn(true);
+        when(clientGroupIndex.group("client123"))
+                .thenReturn(new ClientGroupIndex.Group("parent1", 2, 75000000.0, 1000000.0, 2000000.0));
+        
+        // Act
+        ClientGroupSummary result = clientService.getClientGroup("client123");
+        
+        // Assert
+        assertEquals("parent1", result.getHeadId());
+        assertEquals(2, result.getMembers());
+        assertEquals(75000000.0, result.getAnnualTurnover());
+        assertEquals(1000000.0, result.getPending());
+        assertEquals(2000000.0, result.getApproved());
     }
     
     @Test
@@ -193,6 +326,7 @@ class ClientServiceTest {
         assertEquals("Client not found", exception.getMessage());
         verify(clientRepository, times(1)).findById("nonexistent");
         verify(clientRepository, never()).save(any(Client.class));
+        verify(clientRepository, never()).updateDetails(anyString(), anyString(), any(Client.class), anyBoolean());
     }
     
     @Test
@@ -209,71 +343,70 @@ class ClientServiceTest {
         assertEquals("Client not found", exception.getMessage());
         verify(clientRepository, times(1)).findById("client123");
         verify(clientRepository, never()).save(any(Client.class));
+        verify(clientRepository, never()).updateDetails(anyString(), anyString(), any(Client.class), anyBoolean());
     }
     
     @Test
-    void testSearchClients_ByCompanyName() {
-        // Arrange
-        List<Client> clients = Arrays.asList(testClient);
-        when(clientRepository.findByCompanyNameContainingIgnoreCase(anyString())).thenReturn(clients);
-        
-        // Act
-        List<Client> result = clientService.searchClients("ABC", null);
-        
-        // Assert
-        assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals("ABC Textiles Ltd", result.get(0).getCompanyName());
-        
-        verify(clientRepository, times(1)).findByCompanyNameContainingIgnoreCase("ABC");
-        verify(clientRepository, never()).findByIndustryIgnoreCase(anyString());
-    }
-    
-    @Test
-    void testSearchClients_ByIndustry() {
+    void testSearchClients_FirstPageHasCursor() {
         // Arrange
-        List<Client> clients = Arrays.asList(testClient);
-        when(clientRepository.findByIndustryIgnoreCase(anyString())).thenReturn(clients);
+        ClientSearchRequest searchRequest = new ClientSearchRequest();
+        searchRequest.setCompanyName("ABC");
+        searchRequest.setIndustry("Manufacturing");
+        
+        Client other = new Client();
+        other.setId("client456");
+        other.setCompanyName("ABC Traders");
+        Client third = new Client();
+        third.setId("client789");
+        third.setCompanyName("ABCD Exports");
+        
+        when(pagination.pageSize(any())).thenReturn(2);
+        when(clientRepository.search(searchRequest, null, null, 3))
+                .thenReturn(Arrays.asList(testClient, other, third));
+        when(pagination.encodeCursor("clients/search", "ABC Traders", "client456")).thenReturn("next");
         
         // Act
-        List<Client> result = clientService.searchClients(null, "Manufacturing");
+        PageResponse<Client> result = clientService.searchClients(searchRequest);
         
         // Assert
-        assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals("Manufacturing", result.get(0).getIndustry());
-        
-        verify(clientRepository, times(1)).findByIndustryIgnoreCase("Manufacturing");
-        verify(clientRepository, never()).findByCompanyNameContainingIgnoreCase(anyString());
+        assertEquals(2, result.getItems().size());
+        assertEquals("client123", result.getItems().get(0).getId());
+        assertEquals("next", result.getNextCursor());
+        verify(clientRepository, never()).findAll();
     }
     
     @Test
-    void testSearchClients_NoFilters() {
+    void testSearchClients_LastPageHasNoCursor() {
         // Arrange
-        List<Client> clients = Arrays.asList(testClient);
-        when(clientRepository.findAll()).thenReturn(clients);
+        ClientSearchRequest searchRequest = new ClientSearchRequest();
+        when(pagination.pageSize(any())).thenReturn(2);
+        when(clientRepository.search(searchRequest, null, null, 3)).thenReturn(Arrays.asList(testClient));
         
         // Act
-        List<Client> result = clientService.searchClients(null, null);
+        PageResponse<Client> result = clientService.searchClients(searchRequest);
         
         // Assert
-        assertNotNull(result);
-        assertEquals(1, result.size());
-        
-        verify(clientRepository, times(1)).findAll();
+        assertEquals(1, result.getItems().size());
+        assertNull(result.getNextCursor());
+        verify(pagination, never()).encodeCursor(anyString(), any(), any());
     }
     
     @Test
-    void testSearchClients_EmptyCompanyName() {
+    void testSearchClients_ResumesAfterCursor() {
         // Arrange
-        List<Client> clients = Arrays.asList(testClient);
-        when(clientRepository.findAll()).thenReturn(clients);
+        ClientSearchRequest searchRequest = new ClientSearchRequest();
+        searchRequest.setCursor("opaque");
+        when(pagination.pageSize(any())).thenReturn(2);
+        when(pagination.decodeCursor("clients/search", "opaque", 2))
+                .thenReturn(new String[] {"ABC Textiles Ltd", "client123"});
+        when(clientRepository.search(searchRequest, "ABC Textiles Ltd", "client123", 3))
+                .thenReturn(Arrays.asList());
         
         // Act
-        List<Client> result = clientService.searchClients("", "");
+        PageResponse<Client> result = clientService.searchClients(searchRequest);
         
         // Assert
-        assertNotNull(result);
-        verify(clientRepository, times(1)).findAll();
+        assertTrue(result.getItems().isEmpty());
+        assertNull(result.getNextCursor());
     }
 }
\ No newline at end of file
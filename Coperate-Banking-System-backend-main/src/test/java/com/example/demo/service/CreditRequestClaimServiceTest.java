@@ -0,0 +1,133 @@
+package com.example.demo.service;
+
+
+import com.example.demo.exception.ConflictException;
+import com.example.demo.model.CreditRequest;
+import com.example.demo.repository.CreditRequestRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CreditRequestClaimServiceTest {
+    
+    @Mock
+    private CreditRequestRepository creditRequestRepository;
+    
+    @InjectMocks
+    private CreditRequestClaimService claimService;
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(claimService, "leaseTtlMs", 900000L);
+        ReflectionTestUtils.setField(claimService, "maxActive", 3);
+    }
+    
+    @Test
+    void testClaim_TopsUpToActiveCap() {
+        // Arrange
+        CreditRequest held = request("credit1");
+        held.setClaimSlot(0);
+        when(creditRequestRepository.findActiveClaims(eq("analyst1"), any()))
+                .thenReturn(new ArrayList<>(Arrays.asList(held)));
+        when(creditRequestRepository.claimNext(eq("analyst1"), anyInt(), any(), any()))
+                .thenReturn(request("credit2"), request("credit3"));
+        
+        // Act
+        List<CreditRequest> claims = claimService.claim("analyst1", 5);
+        
+        // Assert
+        assertEquals(3, claims.size());
+        verify(creditRequestRepository).releaseExpiredSlots(eq("analyst1"), any());
+        verify(creditRequestRepository).claimNext(eq("analyst1"), eq(1), any(), any());
+        verify(creditRequestRepository).claimNext(eq("analyst1"), eq(2), any(), any());
+        verify(creditRequestRepository, never()).claimNext(eq("analyst1"), eq(0), any(), any());
+    }
+    
+    @Test
+    void testClaim_StopsWhenPoolIsEmpty() {
+        // Arrange
+        when(creditRequestRepository.findActiveClaims(eq("analyst1"), any())).thenReturn(new ArrayList<>());
+        when(creditRequestRepository.claimNext(eq("analyst1"), anyInt(), any(), any()))
+                .thenReturn(request("credit1"), (CreditRequest) null);
+        
+        // Act
+        List<CreditRequest> claims = claimService.claim("analyst1", 3);
+        
+        // Assert
+        assertEquals(1, claims.size());
+        verify(creditRequestRepository, times(2)).claimNext(eq("analyst1"), anyInt(), any(), any());
+    }
+    
+    @Test
+    void testClaim_SkipsSlotTakenByConcurrentClaim() {
+        // Arrange
+        when(creditRequestRepository.findActiveClaims(eq("analyst1"), any())).thenReturn(new ArrayList<>());
+        when(creditRequestRepository.claimNext(eq("analyst1"), eq(0), any(), any()))
+                .thenThrow(new DuplicateKeyException("claimed_slot"));
+        when(creditRequestRepository.claimNext(eq("analyst1"), eq(1), any(), any())).thenReturn(request("credit2"));
+        
+        // Act
+        List<CreditRequest> claims = claimService.claim("analyst1", 1);
+        
+        // Assert
+        assertEquals(1, claims.size());
+        assertEquals("credit2", claims.get(0).getId());
+        verify(creditRequestRepository, never()).claimNext(eq("analyst1"), eq(2), any(), any());
+    }
+    
+    @Test
+    void testClaim_NeverUsesSlotsBeyondCap() {
+        // Arrange
+        when(creditRequestRepository.findActiveClaims(eq("analyst1"), any())).thenReturn(new ArrayList<>());
+        when(creditRequestRepository.claimNext(eq("analyst1"), anyInt(), any(), any()))
+                .thenThrow(new DuplicateKeyException("claimed_slot"));
+        
+        // Act
+        List<CreditRequest> claims = claimService.claim("analyst1", 5);
+        
+        // Assert
+        assertTrue(claims.isEmpty());
+        verify(creditRequestRepository, times(3)).claimNext(eq("analyst1"), anyInt(), any(), any());
+    }
+    
+    @Test
+    void testRenew_ExpiredLeaseConflicts() {
+        // Arrange
+        when(creditRequestRepository.renewLease(eq("credit1"), eq("analyst1"), any(), any())).thenReturn(null);
+        
+        // Act & Assert
+        assertThrows(ConflictException.class, () -> claimService.renew("credit1", "analyst1"));
+    }
+    
+    @Test
+    void testRelease_NotHolder() {
+        // Arrange
+        when(creditRequestRepository.releaseLease(anyString(), anyString())).thenReturn(false);
+        
+        // Act & Assert
+        assertThrows(ConflictException.class, () -> claimService.release("credit1", "analyst2"));
+    }
+    
+    private static CreditRequest request(String id) {
+        CreditRequest request = new CreditRequest();
+        request.setId(id);
+        return request;
+    }
+}
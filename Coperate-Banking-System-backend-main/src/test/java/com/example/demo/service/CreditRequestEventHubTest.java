@@ -0,0 +1,236 @@
+package com.example.demo.service;
+
+import com.example.demo.model.CreditRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CreditRequestEventHubTest {
+    
+    private final CreditRequestEventHub hub = new CreditRequestEventHub();
+    
+    private final CountDownLatch unblock = new CountDownLatch(1);
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(hub, "queueCapacity", 4);
+        hub.start();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        unblock.countDown();
+        hub.destroy();
+    }
+    
+    @Test
+    void testPublish_DeliversOnlyMatchingEvents() throws Exception {
+        // Arrange
+        RecordingEmitter emitter = new RecordingEmitter();
+        hub.register(emitter, request -> "rm1".equals(request.getSubmittedBy()), null);
+        
+        // Act
+        hub.publish(1, CreditRequestEventHub.CREATED, request("credit1", "rm1"));
+        hub.publish(2, CreditRequestEventHub.CREATED, request("credit2", "rm2"));
+        hub.awaitDispatch();
+        
+        // Assert
+        assertEquals(1, emitter.frames.size());
+        assertTrue(emitter.frames.get(0).contains("event:created"));
+        assertTrue(emitter.frames.get(0).contains("credit1"));
+        assertEquals(1, hub.getSubscriberCount());
+    }
+    
+    @Test
+    void testRegister_ReplaysEventsAfterLastEventId() throws Exception {
+        // Arrange
+        RecordingEmitter first = new RecordingEmitter();
+        hub.register(first, request -> true, null);
+        hub.publish(1, CreditRequestEventHub.CREATED, request("credit1", "rm1"));
+        hub.publish(2, CreditRequestEventHub.UPDATED, request("credit1", "rm1"));
+        hub.publish(3, CreditRequestEventHub.CREATED, request("credit2", "rm1"));
+        hub.awaitDispatch();
+        String firstId = eventId(first.frames.get(0));
+        
+        // Act
+        RecordingEmitter resumed = new RecordingEmitter();
+        hub.register(resumed, request -> true, firstId);
+        hub.publish(4, CreditRequestEventHub.UPDATED, request("credit2", "rm1"));
+        hub.awaitDispatch();
+        
+        // Assert
+        assertEquals(3, resumed.frames.size());
+        assertTrue(resumed.frames.get(0).contains("event:updated"));
+        assertTrue(resumed.frames.get(1).contains("credit2"));
+        assertEquals(eventId(first.frames.get(3)), eventId(resumed.frames.get(2)));
+    }
+    
+    @Test
+    void testRegister_UnknownLastEventIdSendsReset() throws Exception {
+        // Arrange
+        hub.publish(1, CreditRequestEventHub.CREATED, request("credit1", "rm1"));
+        RecordingEmitter emitter = new RecordingEmitter();
+        
+        // Act
+        hub.register(emitter, request -> true, "42");
+        hub.awaitDispatch();
+        
+        // Assert
+        assertEquals(1, emitter.frames.size());
+        assertTrue(emitter.frames.get(0).contains("event:reset"));
+    }
+    
+    @Test
+    void testResetAll_ResetsLiveSubscribersAndTreatsEarlierIdsAsGap() throws Exception {
+        // Arrange
+        RecordingEmitter live = new RecordingEmitter();
+        hub.register(live, request -> true, null);
+        hub.publish(1, CreditRequestEventHub.CREATED, request("credit1", "rm1"));
+        hub.awaitDispatch();
+        String seenId = eventId(live.frames.get(0));
+        
+        // Act
+        hub.resetAll(5);
+        RecordingEmitter resumed = new RecordingEmitter();
+        hub.register(resumed, request -> true, seenId);
+        hub.awaitDispatch();
+        
+        // Assert
+        assertEquals(2, live.frames.size());
+        assertTrue(live.frames.get(1).contains("event:reset"));
+        assertEquals(1, resumed.frames.size());
+        assertTrue(resumed.frames.get(0).contains("event:reset"));
+    }
+    
+    @Test
+    void testRegister_ResumesOnAnotherNodeFromTheSharedId() throws Exception {
+        // Arrange: both nodes publish the broadcast entries under the same seq
+        CreditRequestEventHub other = new CreditRequestEventHub();
+        other.start();
+        RecordingEmitter first = new RecordingEmitter();
+        hub.register(first, request -> true, null);
+        for (CreditRequestEventHub node : List.of(hub, other)) {
+            node.publish(7, CreditRequestEventHub.CREATED, request("credit1", "rm1"));
+            node.publish(8, CreditRequestEventHub.CREATED, request("credit2", "rm1"));
+        }
+        hub.awaitDispatch();
+        
+        // Act
+        RecordingEmitter resumed = new RecordingEmitter();
+        other.register(resumed, request -> true, eventId(first.frames.get(0)));
+        other.awaitDispatch();
+        other.destroy();
+        
+        // Assert
+        assertEquals("7", eventId(first.frames.get(0)));
+        assertEquals(1, resumed.frames.size());
+        assertEquals("8", eventId(resumed.frames.get(0)));
+        assertTrue(resumed.frames.get(0).contains("credit2"));
+    }
+    
+    @Test
+    void testPublish_BlockedSubscriberDoesNotDelayOthers() throws Exception {
+        // Arrange
+        BlockingEmitter blocked = new BlockingEmitter(unblock);
+        RecordingEmitter live = new RecordingEmitter();
+        hub.register(blocked, request -> true, null);
+        hub.register(live, request -> true, null);
+        
+        // Act: one frame stuck in send, four queued, the sixth overflows
+        for (int i = 1; i <= 6; i++) {
+            hub.publish(i, CreditRequestEventHub.CREATED, request("credit" + i, "rm1"));
+            live.awaitFrames(i);
+        }
+        hub.awaitDispatch();
+        
+        // Assert
+        assertTrue(blocked.entered.await(5, TimeUnit.SECONDS));
+        assertEquals(6, live.frames.size());
+        assertEquals(1, hub.getSubscriberCount()); // the blocked one overflowed its queue and was dropped
+    }
+    
+    @Test
+    void testHeartbeat_DropsSubscriberStuckInSend() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(hub, "sendTimeoutMs", 0L);
+        BlockingEmitter blocked = new BlockingEmitter(unblock);
+        hub.register(blocked, request -> true, null);
+        hub.publish(1, CreditRequestEventHub.CREATED, request("credit1", "rm1"));
+        assertTrue(blocked.entered.await(5, TimeUnit.SECONDS));
+        
+        // Act
+        hub.heartbeat();
+        hub.awaitDispatch();
+        
+        // Assert
+        assertEquals(0, hub.getSubscriberCount());
+    }
+    
+    private static CreditRequest request(String id, String rmId) {
+        CreditRequest request = new CreditRequest();
+        request.setId(id);
+        request.setSubmittedBy(rmId);
+        return request;
+    }
+    
+    private static String eventId(String frame) {
+        for (String line : frame.split("\n")) {
+            if (line.startsWith("id:")) {
+                return line.substring(3);
+            }
+        }
+        return null;
+    }
+    
+    // Captures frames instead of writing to a response
+    private static class RecordingEmitter extends SseEmitter {
+        
+        private final List<String> frames = Collections.synchronizedList(new ArrayList<>());
+        
+        @Override
+        public void send(SseEventBuilder builder) {
+            StringBuilder frame = new StringBuilder();
+            builder.build().forEach(part -> frame.append(part.getData()));
+            frames.add(frame.toString());
+        }
+        
+        void awaitFrames(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (frames.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(count, frames.size());
+        }
+    }
+    
+    // Stands in for a client whose TCP buffer is full: every send blocks until released
+    private static class BlockingEmitter extends SseEmitter {
+        
+        private final CountDownLatch release;
+        private final CountDownLatch entered = new CountDownLatch(1);
+        
+        BlockingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+        
+        @Override
+        public void send(SseEventBuilder builder) {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
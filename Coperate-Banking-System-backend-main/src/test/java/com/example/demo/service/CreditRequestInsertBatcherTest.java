@@ -0,0 +1,107 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.ServiceUnavailableException;
+import com.example.demo.exception.WriteOutcomeUnknownException;
+import com.example.demo.model.CreditRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CreditRequestInsertBatcherTest {
+    
+    @Mock
+    private MongoTemplate mongoTemplate;
+    
+    @InjectMocks
+    private CreditRequestInsertBatcher insertBatcher;
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(insertBatcher, "enabled", true);
+        ReflectionTestUtils.setField(insertBatcher, "flusherCount", 1);
+        insertBatcher.start();
+    }
+    
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        insertBatcher.destroy();
+    }
+    
+    @Test
+    void testInsert_WritesThroughBatchAndAssignsId() {
+        // Arrange
+        when(mongoTemplate.insertAll(anyCollection())).thenAnswer(invocation -> invocation.getArgument(0));
+        CreditRequest request = new CreditRequest();
+        
+        // Act
+        CreditRequest result = insertBatcher.insert(request);
+        
+        // Assert
+        assertSame(request, result);
+        assertNotNull(result.getId());
+        assertEquals(1, insertBatcher.getBatchCount());
+        assertEquals(1, insertBatcher.getDocumentCount());
+    }
+    
+    @Test
+    void testInsert_BatchFails_RetriesSinglyAndSurfacesOwnError() {
+        // Arrange
+        InvalidDataAccessApiUsageException invalid = new InvalidDataAccessApiUsageException("document too large");
+        when(mongoTemplate.insertAll(anyCollection())).thenThrow(invalid);
+        when(mongoTemplate.insert(any(CreditRequest.class))).thenThrow(invalid);
+        
+        // Act & Assert
+        assertThrows(InvalidDataAccessApiUsageException.class, () -> insertBatcher.insert(new CreditRequest()));
+        verify(mongoTemplate, times(1)).insert(any(CreditRequest.class));
+    }
+    
+    @Test
+    void testInsert_BatchReplyLost_DuplicateOnOwnIdCountsAsWritten() {
+        // Arrange
+        when(mongoTemplate.insertAll(anyCollection())).thenThrow(new DataAccessResourceFailureException("socket closed"));
+        when(mongoTemplate.insert(any(CreditRequest.class))).thenThrow(new DuplicateKeyException("duplicate"));
+        CreditRequest request = new CreditRequest();
+        
+        // Act
+        CreditRequest result = insertBatcher.insert(request);
+        
+        // Assert
+        assertSame(request, result);
+        assertNotNull(result.getId());
+    }
+    
+    @Test
+    void testInsert_StillUnreachable_FailsWithUnknownOutcome() {
+        // Arrange
+        when(mongoTemplate.insertAll(anyCollection())).thenThrow(new DataAccessResourceFailureException("socket closed"));
+        when(mongoTemplate.insert(any(CreditRequest.class))).thenThrow(new DataAccessResourceFailureException("no server"));
+        
+        // Act & Assert
+        assertThrows(WriteOutcomeUnknownException.class, () -> insertBatcher.insert(new CreditRequest()));
+    }
+    
+    @Test
+    void testInsert_AfterShutdown_IsTurnedAway() throws InterruptedException {
+        // Arrange
+        insertBatcher.destroy();
+        
+        // Act & Assert
+        assertThrows(ServiceUnavailableException.class, () -> insertBatcher.insert(new CreditRequest()));
+        verify(mongoTemplate, never()).insertAll(anyCollection());
+    }
+}
@@ -1,10 +1,20 @@
 package com.example.demo.service;
 
 
+import com.example.demo.dto.BulkDecisionRequest;
+import com.example.demo.dto.BulkDecisionResult;
 import com.example.demo.dto.CreditRequestDto;
+import com.example.demo.dto.PageResponse;
 import com.example.demo.dto.UpdateStatusRequest;
+import com.example.demo.dto.WorkQueueRequest;
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.exception.ConflictException;
 import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.exception.WriteOutcomeUnknownException;
 import com.example.demo.model.CreditRequest;
+import com.example.demo.model.Client;
+import com.example.demo.model.OutboxEvent;
+import com.example.demo.repository.ClientRepository;
 import com.example.demo.repository.CreditRequestRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,15 +22,22 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyDouble;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,6 +46,27 @@ class CreditRequestServiceTest {
     @Mock
     private CreditRequestRepository creditRequestRepository;
     
+    @Mock
+    private Pagination pagination;
+    
+    @Mock
+    private CreditRequestStateMachine stateMachine;
+    
+    @Mock
+    private ApprovalRouter approvalRouter;
+    
+    @Mock
+    private ClientRepository clientRepository;
+    
+    @Mock
+    private CreditRequestInsertBatcher insertBatcher;
+    
+    @Mock
+    private CreditRiskScorer riskScorer;
+    
+    @Mock
+    private ExposureLedger exposureLedger;
+    
     @InjectMocks
     private CreditRequestService creditRequestService;
     
@@ -60,7 +98,13 @@ class CreditRequestServiceTest {
     @Test
     void testCreateCreditRequest_Success() {
         // Arrange
-        when(creditRequestRepository.save(any(CreditRequest.class))).thenReturn(testCreditRequest);
+        Client client = new Client();
+        client.setIndustry("Manufacturing");
+        when(clientRepository.findById("client123")).thenReturn(Optional.of(client));
+        when(approvalRouter.route(5000000.0, 24, "Manufacturing")).thenReturn(List.of("ANALYST", "SECOND_APPROVER"));
+        when(riskScorer.assess(5000000.0, 24, null, "Manufacturing", false)).thenReturn(
+                new CreditRiskScorer.Assessment(23, List.of("INDUSTRY_RISK", "TURNOVER_UNKNOWN"), "baseline-1234abcd"));
+        when(creditRequestRepository.save(any(CreditRequest.class))).thenAnswer(invocation -> invocation.getArgument(0));
         
         // Act
         CreditRequest result = creditRequestService.createCreditRequest(creditRequestDto, "rm123");
@@ -75,8 +119,84 @@ class CreditRequestServiceTest {
         assertEquals("Pending", result.getStatus());
         assertEquals("", result.getRemarks());
         assertNotNull(result.getCreatedAt());
+        assertEquals("ANALYST", result.getStage());
+        assertEquals(List.of("SECOND_APPROVER"), result.getNextStages());
+        assertEquals(23, result.getRiskScore());
+        assertEquals("baseline-1234abcd", result.getRiskModelVersion());
         
         verify(creditRequestRepository, times(1)).save(any(CreditRequest.class));
+        verify(exposureLedger).reserve("client123", "rm123", 5000000.0, null);
+        verify(exposureLedger).written("client123", "rm123", 5000000.0);
+        assertEquals(1, result.getOutbox().size());
+        assertEquals(OutboxEvent.CREDIT_REQUEST_CREATED, result.getOutbox().get(0).getType());
+    }
+    
+    @Test
+    void testCreateCreditRequest_ClientNotFound() {
+        // Arrange
+        when(clientRepository.findById("client123")).thenReturn(Optional.empty());
+        
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class,
+                () -> creditRequestService.createCreditRequest(creditRequestDto, "rm123"));
+        verifyNoInteractions(exposureLedger);
+        verify(creditRequestRepository, never()).save(any(CreditRequest.class));
+    }
+    
+    @Test
+    void testCreateCreditRequest_OverExposureLimit() {
+        // Arrange
+        Client client = new Client();
+        client.setIndustry("Manufacturing");
+        client.setAnnualTurnover(4000000.0);
+        when(clientRepository.findById("client123")).thenReturn(Optional.of(client));
+        when(approvalRouter.route(5000000.0, 24, "Manufacturing")).thenReturn(List.of("ANALYST"));
+        when(riskScorer.assess(5000000.0, 24, 4000000.0, "Manufacturing", false)).thenReturn(
+                new CreditRiskScorer.Assessment(33, List.of("HIGH_LEVERAGE"), "baseline-1234abcd"));
+        doThrow(new BadRequestException("Request exceeds the client's exposure limit"))
+                .when(exposureLedger).reserve("client123", "rm123", 5000000.0, 4000000.0);
+        
+        // Act & Assert
+        assertThrows(BadRequestException.class,
+                () -> creditRequestService.createCreditRequest(creditRequestDto, "rm123"));
+        verify(creditRequestRepository, never()).save(any(CreditRequest.class));
+    }
+    
+    @Test
+    void testCreateCreditRequest_SaveFailureReleasesExposure() {
+        // Arrange
+        Client client = new Client();
+        client.setIndustry("Manufacturing");
+        when(clientRepository.findById("client123")).thenReturn(Optional.of(client));
+        when(approvalRouter.route(5000000.0, 24, "Manufacturing")).thenReturn(List.of("ANALYST"));
+        when(riskScorer.assess(5000000.0, 24, null, "Manufacturing", false)).thenReturn(
+                new CreditRiskScorer.Assessment(23, List.of("INDUSTRY_RISK", "TURNOVER_UNKNOWN"), "baseline-1234abcd"));
+        when(creditRequestRepository.save(any(CreditRequest.class))).thenThrow(new RuntimeException("write failed"));
+        
+        // Act & Assert
+        assertThrows(RuntimeException.class,
+                () -> creditRequestService.createCreditRequest(creditRequestDto, "rm123"));
+        verify(exposureLedger).release("client123", "rm123", 5000000.0);
+        verify(exposureLedger, never()).written(anyString(), anyString(), anyDouble());
+    }
+    
+    @Test
+    void testCreateCreditRequest_UnknownWriteOutcomeKeepsReservation() {
+        // Arrange
+        Client client = new Client();
+        client.setIndustry("Manufacturing");
+        when(clientRepository.findById("client123")).thenReturn(Optional.of(client));
+        when(approvalRouter.route(5000000.0, 24, "Manufacturing")).thenReturn(List.of("ANALYST"));
+        when(riskScorer.assess(5000000.0, 24, null, "Manufacturing", false)).thenReturn(
+                new CreditRiskScorer.Assessment(23, List.of("INDUSTRY_RISK", "TURNOVER_UNKNOWN"), "baseline-1234abcd"));
+        when(creditRequestRepository.save(any(CreditRequest.class)))
+                .thenThrow(new WriteOutcomeUnknownException("may have been saved", new RuntimeException("socket closed")));
+        
+        // Act & Assert
+        assertThrows(WriteOutcomeUnknownException.class,
+                () -> creditRequestService.createCreditRequest(creditRequestDto, "rm123"));
+        verify(exposureLedger, never()).release(anyString(), anyString(), anyDouble());
+        verify(exposureLedger).written("client123", "rm123", 5000000.0);
     }
     
     @Test
@@ -93,32 +213,35 @@ class CreditRequestServiceTest {
         request2.setStatus("Approved");
         
         List<CreditRequest> requests = Arrays.asList(request1, request2);
-        when(creditRequestRepository.findBySubmittedBy(anyString())).thenReturn(requests);
+        when(pagination.pageSize(any())).thenReturn(50);
+        when(creditRequestRepository.findPage("rm123", null, null, 51)).thenReturn(requests);
         
         // Act
-        List<CreditRequest> result = creditRequestService.getCreditRequestsByRm("rm123");
+        PageResponse<CreditRequest> result = creditRequestService.getCreditRequestsByRm("rm123", null, null);
         
         // Assert
         assertNotNull(result);
-        assertEquals(2, result.size());
-        assertEquals("Pending", result.get(0).getStatus());
-        assertEquals("Approved", result.get(1).getStatus());
+        assertEquals(2, result.getItems().size());
+        assertEquals("Pending", result.getItems().get(0).getStatus());
+        assertEquals("Approved", result.getItems().get(1).getStatus());
+        assertNull(result.getNextCursor());
         
-        verify(creditRequestRepository, times(1)).findBySubmittedBy("rm123");
+        verify(creditRequestRepository, times(1)).findPage("rm123", null, null, 51);
     }
     
     @Test
     void testGetCreditRequestsByRm_EmptyList() {
         // Arrange
-        when(creditRequestRepository.findBySubmittedBy(anyString())).thenReturn(Arrays.asList());
+        when(pagination.pageSize(any())).thenReturn(50);
+        when(creditRequestRepository.findPage("rm999", null, null, 51)).thenReturn(Arrays.asList());
         
         // Act
-        List<CreditRequest> result = creditRequestService.getCreditRequestsByRm("rm999");
+        PageResponse<CreditRequest> result = creditRequestService.getCreditRequestsByRm("rm999", null, null);
         
         // Assert
         assertNotNull(result);
-        assertTrue(result.isEmpty());
-        verify(creditRequestRepository, times(1)).findBySubmittedBy("rm999");
+        assertTrue(result.getItems().isEmpty());
+        verify(creditRequestRepository, times(1)).findPage("rm999", null, null, 51);
     }
     
     @Test
@@ -131,30 +254,90 @@ class CreditRequestServiceTest {
         request2.setId("credit2");
         
         List<CreditRequest> requests = Arrays.asList(request1, request2);
-        when(creditRequestRepository.findAll()).thenReturn(requests);
+        when(pagination.pageSize(any())).thenReturn(50);
+        when(creditRequestRepository.findPage(null, null, null, 51)).thenReturn(requests);
         
         // Act
-        List<CreditRequest> result = creditRequestService.getAllCreditRequests();
+        PageResponse<CreditRequest> result = creditRequestService.getAllCreditRequests(null, null);
         
         // Assert
         assertNotNull(result);
-        assertEquals(2, result.size());
+        assertEquals(2, result.getItems().size());
+        
+        verify(creditRequestRepository, times(1)).findPage(null, null, null, 51);
+    }
+    
+    @Test
+    void testGetAllCreditRequests_PagesByCreatedAt() {
+        // Arrange
+        LocalDateTime createdAt = LocalDateTime.of(2024, 3, 1, 10, 0);
+        CreditRequest newer = new CreditRequest();
+        newer.setId("credit2");
+        newer.setCreatedAt(createdAt.plusHours(1));
+        
+        CreditRequest older = new CreditRequest();
+        older.setId("credit1");
+        older.setCreatedAt(createdAt);
+        
+        when(pagination.pageSize(any())).thenReturn(1);
+        when(pagination.decodeCursor("credit-requests/all", "opaque", 2))
+                .thenReturn(new String[] {createdAt.plusHours(2).toString(), "credit3"});
+        when(creditRequestRepository.findPage(isNull(), eq(createdAt.plusHours(2)), eq("credit3"), eq(2)))
+                .thenReturn(Arrays.asList(newer, older));
+        when(pagination.encodeCursor("credit-requests/all", newer.getCreatedAt().toString(), "credit2"))
+                .thenReturn("next");
+        
+        // Act
+        PageResponse<CreditRequest> result = creditRequestService.getAllCreditRequests("opaque", 1);
+        
+        // Assert
+        assertEquals(1, result.getItems().size());
+        assertEquals("credit2", result.getItems().get(0).getId());
+        assertEquals("next", result.getNextCursor());
+    }
+    
+    @Test
+    void testGetWorkQueue_OldestPendingFirst() {
+        // Arrange
+        WorkQueueRequest queueRequest = new WorkQueueRequest();
+        queueRequest.setMinAmount(1000000.0);
+        
+        CreditRequest oldest = new CreditRequest();
+        oldest.setId("credit1");
+        oldest.setCreatedAt(LocalDateTime.of(2024, 1, 1, 9, 0));
+        
+        CreditRequest newer = new CreditRequest();
+        newer.setId("credit2");
+        newer.setCreatedAt(LocalDateTime.of(2024, 1, 2, 9, 0));
+        
+        when(pagination.pageSize(any())).thenReturn(1);
+        when(creditRequestRepository.findQueue(queueRequest, null, null, 2)).thenReturn(Arrays.asList(oldest, newer));
+        when(pagination.encodeCursor("credit-requests/queue", oldest.getCreatedAt().toString(), "credit1"))
+                .thenReturn("next");
         
-        verify(creditRequestRepository, times(1)).findAll();
+        // Act
+        PageResponse<CreditRequest> result = creditRequestService.getWorkQueue(queueRequest);
+        
+        // Assert
+        assertEquals("Pending", queueRequest.getStatus());
+        assertEquals(1, result.getItems().size());
+        assertEquals("credit1", result.getItems().get(0).getId());
+        assertEquals("next", result.getNextCursor());
     }
     
     @Test
     void testGetAllCreditRequests_EmptyList() {
         // Arrange
-        when(creditRequestRepository.findAll()).thenReturn(Arrays.asList());
+        when(pagination.pageSize(any())).thenReturn(50);
+        when(creditRequestRepository.findPage(null, null, null, 51)).thenReturn(Arrays.asList());
         
         // Act
-        List<CreditRequest> result = creditRequestService.getAllCreditRequests();
+        PageResponse<CreditRequest> result = creditRequestService.getAllCreditRequests(null, null);
         
         // Assert
         assertNotNull(result);
-        assertTrue(result.isEmpty());
-        verify(creditRequestRepository, times(1)).findAll();
+        assertTrue(result.getItems().isEmpty());
+        assertNull(result.getNextCursor());
     }
     
     @Test
@@ -192,73 +375,83 @@ class CreditRequestServiceTest {
     @Test
     void testUpdateCreditRequestStatus_Approve() {
         // Arrange
-        when(creditRequestRepository.findById(anyString())).thenReturn(Optional.of(testCreditRequest));
-        when(creditRequestRepository.save(any(CreditRequest.class))).thenReturn(testCreditRequest);
+        testCreditRequest.setStatus("Approved");
+        testCreditRequest.setRemarks("Good credit history. Approved.");
+        when(stateMachine.sourcesOf("Approved")).thenReturn(Set.of("Pending"));
+        when(creditRequestRepository.transition(eq("credit123"), eq(Set.of("Pending")), eq(3L),
+                argThat(d -> "Approved".equals(d.getDecision()) && "analyst1".equals(d.getDecidedBy())), eq(true)))
+                .thenReturn(testCreditRequest);
         
         UpdateStatusRequest updateRequest = new UpdateStatusRequest();
         updateRequest.setStatus("Approved");
         updateRequest.setRemarks("Good credit history. Approved.");
+        updateRequest.setExpectedVersion(3L);
         
         // Act
-        CreditRequest result = creditRequestService.updateCreditRequestStatus("credit123", updateRequest);
+        CreditRequest result = creditRequestService.updateCreditRequestStatus("credit123", updateRequest, "analyst1");
         
         // Assert
         assertNotNull(result);
         assertEquals("Approved", result.getStatus());
         assertEquals("Good credit history. Approved.", result.getRemarks());
         
-        verify(creditRequestRepository, times(1)).findById("credit123");
-        verify(creditRequestRepository, times(1)).save(testCreditRequest);
+        verify(exposureLedger).decided(testCreditRequest);
+        verify(creditRequestRepository, never()).findById(anyString());
+        verify(creditRequestRepository, never()).save(any(CreditRequest.class));
     }
     
     @Test
     void testUpdateCreditRequestStatus_Reject() {
         // Arrange
-        when(creditRequestRepository.findById(anyString())).thenReturn(Optional.of(testCreditRequest));
-        when(creditRequestRepository.save(any(CreditRequest.class))).thenReturn(testCreditRequest);
+        testCreditRequest.setStatus("Rejected");
+        testCreditRequest.setRemarks("Insufficient collateral.");
+        when(stateMachine.sourcesOf("Rejected")).thenReturn(Set.of("Pending"));
+        when(creditRequestRepository.transition(eq("credit123"), eq(Set.of("Pending")), isNull(),
+                argThat(d -> "Insufficient collateral.".equals(d.getRemarks())), eq(false)))
+                .thenReturn(testCreditRequest);
         
         UpdateStatusRequest updateRequest = new UpdateStatusRequest();
         updateRequest.setStatus("Rejected");
         updateRequest.setRemarks("Insufficient collateral.");
         
         // Act
-        CreditRequest result = creditRequestService.updateCreditRequestStatus("credit123", updateRequest);
+        CreditRequest result = creditRequestService.updateCreditRequestStatus("credit123", updateRequest, "analyst1");
         
         // Assert
         assertNotNull(result);
         assertEquals("Rejected", result.getStatus());
         assertEquals("Insufficient collateral.", result.getRemarks());
-        
-        verify(creditRequestRepository, times(1)).findById("credit123");
-        verify(creditRequestRepository, times(1)).save(testCreditRequest);
     }
     
     @Test
     void testUpdateCreditRequestStatus_WithoutRemarks() {
         // Arrange
-        when(creditRequestRepository.findById(anyString())).thenReturn(Optional.of(testCreditRequest));
-        when(creditRequestRepository.save(any(CreditRequest.class))).thenReturn(testCreditRequest);
+        testCreditRequest.setStatus("Approved");
+        when(stateMachine.sourcesOf("Approved")).thenReturn(Set.of("Pending"));
+        when(creditRequestRepository.transition(eq("credit123"), eq(Set.of("Pending")), isNull(),
+                argThat(d -> d.getRemarks() == null), eq(true)))
+                .thenReturn(testCreditRequest);
         
         UpdateStatusRequest updateRequest = new UpdateStatusRequest();
         updateRequest.setStatus("Approved");
         updateRequest.setRemarks(null);
         
         // Act
-        CreditRequest result = creditRequestService.updateCreditRequestStatus("credit123", updateRequest);
+        CreditRequest result = creditRequestService.updateCreditRequestStatus("credit123", updateRequest, "analyst1");
         
         // Assert
         assertNotNull(result);
         assertEquals("Approved", result.getStatus());
         // Remarks should remain unchanged (empty in this case)
-        
-        verify(creditRequestRepository, times(1)).findById("credit123");
-        verify(creditRequestRepository, times(1)).save(testCreditRequest);
+        assertEquals("", result.getRemarks());
     }
     
     @Test
     void testUpdateCreditRequestStatus_NotFound() {
         // Arrange
-        when(creditRequestRepository.findById(anyString())).thenReturn(Optional.empty());
+        when(stateMachine.sourcesOf("Approved")).thenReturn(Set.of("Pending"));
+        when(creditRequestRepository.transition(anyString(), any(), any(), any(), anyBoolean())).thenReturn(null);
+        when(creditRequestRepository.findById("nonexistent")).thenReturn(Optional.empty());
         
         UpdateStatusRequest updateRequest = new UpdateStatusRequest();
         updateRequest.setStatus("Approved");
@@ -266,32 +459,183 @@ class CreditRequestServiceTest {
         // Act & Assert
         ResourceNotFoundException exception = assertThrows(
             ResourceNotFoundException.class,
-            () -> creditRequestService.updateCreditRequestStatus("nonexistent", updateRequest)
+            () -> creditRequestService.updateCreditRequestStatus("nonexistent", updateRequest, "analyst1")
         );
         
         assertEquals("Credit request not found", exception.getMessage());
-        verify(creditRequestRepository, times(1)).findById("nonexistent");
         verify(creditRequestRepository, never()).save(any(CreditRequest.class));
     }
     
+    @Test
+    void testUpdateCreditRequestStatus_ConcurrentDecisionConflicts() {
+        // Arrange
+        testCreditRequest.setVersion(4L);
+        when(stateMachine.sourcesOf("Approved")).thenReturn(Set.of("Pending"));
+        when(creditRequestRepository.transition(anyString(), any(), any(), any(), anyBoolean())).thenReturn(null);
+        when(creditRequestRepository.findById("credit123")).thenReturn(Optional.of(testCreditRequest));
+        
+        UpdateStatusRequest updateRequest = new UpdateStatusRequest();
+        updateRequest.setStatus("Approved");
+        updateRequest.setExpectedVersion(3L);
+        
+        // Act & Assert
+        assertThrows(
+            ConflictException.class,
+            () -> creditRequestService.updateCreditRequestStatus("credit123", updateRequest, "analyst1")
+        );
+        verify(creditRequestRepository, never()).advanceStage(anyString(), any(), any(), anyString(), any());
+    }
+    
+    @Test
+    void testUpdateCreditRequestStatus_AdvancesToNextStage() {
+        // Arrange
+        testCreditRequest.setVersion(1L);
+        testCreditRequest.setStage("ANALYST");
+        testCreditRequest.setNextStages(List.of("SECOND_APPROVER", "COMMITTEE"));
+        when(stateMachine.sourcesOf("Approved")).thenReturn(Set.of("Pending"));
+        when(creditRequestRepository.transition(anyString(), any(), any(), any(), anyBoolean())).thenReturn(null);
+        when(creditRequestRepository.findById("credit123")).thenReturn(Optional.of(testCreditRequest));
+        when(creditRequestRepository.advanceStage(eq("credit123"), eq(1L),
+                argThat(d -> "ANALYST".equals(d.getStage()) && "analyst1".equals(d.getDecidedBy())),
+                eq("SECOND_APPROVER"), eq(List.of("COMMITTEE"))))
+                .thenReturn(testCreditRequest);
+        
+        UpdateStatusRequest updateRequest = new UpdateStatusRequest();
+        updateRequest.setStatus("Approved");
+        
+        // Act
+        CreditRequest result = creditRequestService.updateCreditRequestStatus("credit123", updateRequest, "analyst1");
+        
+        // Assert
+        assertNotNull(result);
+        verify(creditRequestRepository, times(1)).advanceStage(anyString(), any(), any(), anyString(), any());
+    }
+    
+    @Test
+    void testUpdateCreditRequestStatus_SameAnalystCannotApproveTwice() {
+        // Arrange
+        testCreditRequest.setStage("SECOND_APPROVER");
+        testCreditRequest.setNextStages(List.of("COMMITTEE"));
+        testCreditRequest.setStageHistory(List.of(new CreditRequest.StageDecision(
+                "ANALYST", "Approved", "analyst1", "", LocalDateTime.now())));
+        when(stateMachine.sourcesOf("Approved")).thenReturn(Set.of("Pending"));
+        when(creditRequestRepository.transition(anyString(), any(), any(), any(), anyBoolean())).thenReturn(null);
+        when(creditRequestRepository.findById("credit123")).thenReturn(Optional.of(testCreditRequest));
+        
+        UpdateStatusRequest updateRequest = new UpdateStatusRequest();
+        updateRequest.setStatus("Approved");
+        
+        // Act & Assert
+        ConflictException exception = assertThrows(
+            ConflictException.class,
+            () -> creditRequestService.updateCreditRequestStatus("credit123", updateRequest, "analyst1")
+        );
+        assertEquals("Each approval stage needs a different analyst", exception.getMessage());
+    }
+    
     @Test
     void testUpdateCreditRequestStatus_PendingToPending() {
         // Arrange
-        when(creditRequestRepository.findById(anyString())).thenReturn(Optional.of(testCreditRequest));
-        when(creditRequestRepository.save(any(CreditRequest.class))).thenReturn(testCreditRequest);
+        when(stateMachine.sourcesOf("Pending")).thenThrow(new BadRequestException("Credit requests cannot be moved to Pending"));
         
         UpdateStatusRequest updateRequest = new UpdateStatusRequest();
         updateRequest.setStatus("Pending");
         updateRequest.setRemarks("Under review");
         
+        // Act & Assert
+        assertThrows(
+            BadRequestException.class,
+            () -> creditRequestService.updateCreditRequestStatus("credit123", updateRequest, "analyst1")
+        );
+        
+        verify(creditRequestRepository, never()).transition(anyString(), any(), any(), any(), anyBoolean());
+    }
+    
+    @Test
+    void testBulkUpdateStatus_AllApplied() {
+        // Arrange
+        ReflectionTestUtils.setField(creditRequestService, "bulkMaxItems", 200);
+        BulkDecisionRequest bulkRequest = new BulkDecisionRequest();
+        bulkRequest.setDecisions(Arrays.asList(decision("credit1", "Approved"), decision("credit2", "Rejected")));
+        when(stateMachine.sourcesOf(anyString())).thenReturn(Set.of("Pending"));
+        when(creditRequestRepository.bulkTransition(eq(bulkRequest.getDecisions()), any(), eq("analyst1"), anyString()))
+                .thenReturn(2L);
+        when(creditRequestRepository.findExposureInputs(List.of("credit1", "credit2"))).thenReturn(List.of(testCreditRequest));
+        
         // Act
-        CreditRequest result = creditRequestService.updateCreditRequestStatus("credit123", updateRequest);
+        List<BulkDecisionResult> results = creditRequestService.bulkUpdateStatus(bulkRequest, "analyst1");
         
         // Assert
-        assertNotNull(result);
-        assertEquals("Pending", result.getStatus());
-        assertEquals("Under review", result.getRemarks());
+        assertEquals(2, results.size());
+        assertTrue(results.stream().allMatch(r -> r.getOutcome() == BulkDecisionResult.Outcome.APPLIED));
+        verify(creditRequestRepository, never()).findDecisionBatches(any());
+        verify(exposureLedger).decided(testCreditRequest);
+    }
+    
+    @Test
+    void testBulkUpdateStatus_ReportsConflictsAndMissing() {
+        // Arrange
+        ReflectionTestUtils.setField(creditRequestService, "bulkMaxItems", 200);
+        BulkDecisionRequest bulkRequest = new BulkDecisionRequest();
+        bulkRequest.setDecisions(Arrays.asList(
+                decision("credit1", "Approved"), decision("credit2", "Approved"), decision("missing", "Approved")));
+        when(stateMachine.sourcesOf("Approved")).thenReturn(Set.of("Pending"));
+        
+        String[] batchId = new String[1];
+        when(creditRequestRepository.bulkTransition(any(), any(), anyString(), anyString())).thenAnswer(invocation -> {
+            batchId[0] = invocation.getArgument(3);
+            return 1L;
+        });
+        when(creditRequestRepository.findDecisionBatches(any())).thenAnswer(invocation -> {
+            CreditRequest applied = new CreditRequest();
+            applied.setId("credit1");
+            applied.setDecisionBatch(batchId[0]);
+            CreditRequest decidedElsewhere = new CreditRequest();
+            decidedElsewhere.setId("credit2");
+            return Arrays.asList(applied, decidedElsewhere);
+        });
+        testCreditRequest.setId("credit2");
+        testCreditRequest.setStatus("Rejected");
+        when(creditRequestRepository.findById("credit2")).thenReturn(Optional.of(testCreditRequest));
         
-        verify(creditRequestRepository, times(1)).save(testCreditRequest);
+        // Act
+        List<BulkDecisionResult> results = creditRequestService.bulkUpdateStatus(bulkRequest, "analyst1");
+        
+        // Assert
+        assertEquals(BulkDecisionResult.Outcome.APPLIED, results.get(0).getOutcome());
+        assertEquals(BulkDecisionResult.Outcome.CONFLICT, results.get(1).getOutcome());
+        assertEquals(BulkDecisionResult.Outcome.NOT_FOUND, results.get(2).getOutcome());
+    }
+    
+    @Test
+    void testBulkUpdateStatus_TooManyItems() {
+        // Arrange
+        ReflectionTestUtils.setField(creditRequestService, "bulkMaxItems", 1);
+        BulkDecisionRequest bulkRequest = new BulkDecisionRequest();
+        bulkRequest.setDecisions(Arrays.asList(decision("credit1", "Approved"), decision("credit2", "Approved")));
+        
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> creditRequestService.bulkUpdateStatus(bulkRequest, "analyst1"));
+        verify(creditRequestRepository, never()).bulkTransition(any(), any(), anyString(), anyString());
+    }
+    
+    @Test
+    void testBulkUpdateStatus_RejectsRepeatedIds() {
+        // Arrange
+        ReflectionTestUtils.setField(creditRequestService, "bulkMaxItems", 200);
+        BulkDecisionRequest bulkRequest = new BulkDecisionRequest();
+        bulkRequest.setDecisions(Arrays.asList(decision("credit1", "Approved"), decision("credit1", "Approved")));
+        
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> creditRequestService.bulkUpdateStatus(bulkRequest, "analyst1"));
+        verify(creditRequestRepository, never()).bulkTransition(any(), any(), anyString(), anyString());
+        verify(exposureLedger, never()).decided(any());
+    }
+    
+    private static BulkDecisionRequest.Decision decision(String id, String status) {
+        BulkDecisionRequest.Decision decision = new BulkDecisionRequest.Decision();
+        decision.setId(id);
+        decision.setStatus(status);
+        return decision;
     }
-}
\ No newline at end of file
+}
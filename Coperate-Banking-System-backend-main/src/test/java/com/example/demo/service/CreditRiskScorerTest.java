@@ -0,0 +1,88 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CreditRiskScorerTest {
+    
+    private CreditRiskScorer scorer;
+    
+    @BeforeEach
+    void setUp() {
+        scorer = new CreditRiskScorer();
+        scorer.init();
+    }
+    
+    @Test
+    void testAssess_AddsPointsAndReasonPerFactor() {
+        // leverage 0.6 -> 25, tenure 48 -> 15, Construction -> 20, documents missing -> 15
+        CreditRiskScorer.Assessment risk = scorer.assess(6000000.0, 48, 10000000.0, "construction", false);
+        
+        assertEquals(75, risk.getScore());
+        assertEquals(List.of("HIGH_LEVERAGE", "LONG_TENURE", "INDUSTRY_RISK", "DOCUMENTS_MISSING"), risk.getReasons());
+        assertTrue(risk.getModelVersion().startsWith("baseline-"));
+    }
+    
+    @Test
+    void testAssess_LowRiskRequestHasOnlyIndustryPoints() {
+        CreditRiskScorer.Assessment risk = scorer.assess(1000000.0, 12, 10000000.0, "IT", true);
+        
+        assertEquals(5, risk.getScore());
+        assertEquals(List.of("INDUSTRY_RISK"), risk.getReasons());
+    }
+    
+    @Test
+    void testAssess_UnknownTurnoverAndIndustry() {
+        CreditRiskScorer.Assessment risk = scorer.assess(1000000.0, 12, null, null, true);
+        
+        assertEquals(50, risk.getScore());
+        assertEquals(List.of("INDUSTRY_RISK", "TURNOVER_UNKNOWN"), risk.getReasons());
+    }
+    
+    @Test
+    void testScoreAll_MatchesSingleAssessments() {
+        int n = 50000;
+        double[] amounts = new double[n];
+        int[] tenures = new int[n];
+        double[] turnovers = new double[n];
+        int[] industries = new int[n];
+        boolean[] documents = new boolean[n];
+        String[] names = {"Construction", "IT", "Retail", "Shipping"};
+        for (int i = 0; i < n; i++) {
+            amounts[i] = (i % 97) * 100000.0;
+            tenures[i] = i % 120;
+            turnovers[i] = (i % 5) * 2000000.0;
+            industries[i] = scorer.industryIndex(names[i % names.length]);
+            documents[i] = i % 3 == 0;
+        }
+        int[] scores = new int[n];
+        int[] reasons = new int[n];
+        
+        scorer.scoreAll(amounts, tenures, turnovers, industries, documents, scores, reasons);
+        
+        for (int i = 0; i < n; i += 997) {
+            CreditRiskScorer.Assessment single = scorer.assess(amounts[i], tenures[i], turnovers[i],
+                    names[i % names.length], documents[i]);
+            assertEquals(single.getScore(), scores[i]);
+            assertEquals(single.getReasons(), CreditRiskScorer.reasonCodes(reasons[i]));
+        }
+    }
+    
+    @Test
+    void testModelVersion_ChangesWithParameters() {
+        CreditRiskScorer.RiskModel base = CreditRiskScorer.RiskModel.compile("baseline", "1:0,*:10", "12:0,*:5", "*:0", 10, 20);
+        CreditRiskScorer.RiskModel tuned = CreditRiskScorer.RiskModel.compile("baseline", "1:0,*:15", "12:0,*:5", "*:0", 10, 20);
+        
+        assertNotEquals(base.getVersion(), tuned.getVersion());
+    }
+    
+    @Test
+    void testCompile_RejectsBandsWithoutCatchAll() {
+        assertThrows(IllegalStateException.class,
+                () -> CreditRiskScorer.RiskModel.compile("baseline", "1:0,2:10", "12:0,*:5", "*:0", 10, 20));
+    }
+}
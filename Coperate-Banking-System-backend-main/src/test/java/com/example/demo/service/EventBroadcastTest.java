@@ -0,0 +1,120 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Client;
+import com.example.demo.model.CreditRequest;
+import com.example.demo.model.OutboxEvent;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EventBroadcastTest {
+    
+    @Mock
+    private MongoTemplate mongoTemplate;
+    
+    @Mock
+    private MongoConverter converter;
+    
+    @Mock
+    private CreditRequestEventHub hub;
+    
+    @InjectMocks
+    private EventBroadcast eventBroadcast;
+    
+    private CreditRequest creditRequest;
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(eventBroadcast, "collectionReady", true);
+        
+        creditRequest = new CreditRequest();
+        creditRequest.setId("credit123");
+    }
+    
+    @Test
+    void testOnEvent_WritesSnapshotWithoutOutboxUnderEventId() {
+        // Arrange
+        OutboxEvent event = OutboxEvent.of(OutboxEvent.CREDIT_REQUEST_CREATED);
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+        when(mongoTemplate.findOne(any(Query.class), eq(Document.class), eq(EventBroadcast.COLLECTION)))
+                .thenReturn(new Document("seq", 41L));
+        doAnswer(invocation -> {
+            Document target = invocation.getArgument(1);
+            target.append("_id", "credit123").append("outbox", "pending").append("outboxLeaseUntil", "soon");
+            return null;
+        }).when(converter).write(eq(creditRequest), any(Bson.class));
+        
+        // Act
+        eventBroadcast.onEvent(event, creditRequest);
+        
+        // Assert
+        verify(mongoTemplate).insert(argThat((Document entry) -> {
+            Document payload = entry.get("payload", Document.class);
+            return event.getEventId().equals(entry.get("_id"))
+                    && Long.valueOf(42).equals(entry.get("seq"))
+                    && OutboxEvent.CREDIT_REQUEST_CREATED.equals(entry.get("type"))
+                    && "credit123".equals(payload.get("_id"))
+                    && !payload.containsKey("outbox")
+                    && !payload.containsKey("outboxLeaseUntil");
+        }), eq(EventBroadcast.COLLECTION));
+    }
+    
+    @Test
+    void testOnEvent_RedeliveredEventIsIgnored() {
+        // Arrange
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+        when(mongoTemplate.insert(any(Document.class), eq(EventBroadcast.COLLECTION)))
+                .thenThrow(new DuplicateKeyException("broadcastEvents"));
+        when(mongoTemplate.exists(any(Query.class), eq(EventBroadcast.COLLECTION))).thenReturn(true);
+        
+        // Act & Assert
+        assertDoesNotThrow(() -> eventBroadcast.onEvent(OutboxEvent.of(OutboxEvent.CREDIT_REQUEST_UPDATED), creditRequest));
+        verify(mongoTemplate).insert(any(Document.class), eq(EventBroadcast.COLLECTION));
+    }
+    
+    @Test
+    void testOnEvent_RetriesWithNextSeqWhenAnotherNodeTookIt() {
+        // Arrange
+        Document[] inserted = new Document[1];
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+        when(mongoTemplate.findOne(any(Query.class), eq(Document.class), eq(EventBroadcast.COLLECTION)))
+                .thenReturn(new Document("seq", 41L), new Document("seq", 42L));
+        when(mongoTemplate.insert(any(Document.class), eq(EventBroadcast.COLLECTION)))
+                .thenThrow(new DuplicateKeyException("broadcastEvents"))
+                .thenAnswer(invocation -> inserted[0] = invocation.getArgument(0));
+        when(mongoTemplate.exists(any(Query.class), eq(EventBroadcast.COLLECTION))).thenReturn(false);
+        
+        // Act
+        eventBroadcast.onEvent(OutboxEvent.of(OutboxEvent.CREDIT_REQUEST_UPDATED), creditRequest);
+        
+        // Assert
+        assertEquals(43L, inserted[0].get("seq"));
+        verify(mongoTemplate, times(2)).insert(any(Document.class), eq(EventBroadcast.COLLECTION));
+    }
+    
+    @Test
+    void testOnEvent_IgnoresOtherAggregates() {
+        // Act
+        eventBroadcast.onEvent(OutboxEvent.of(OutboxEvent.CLIENT_UPDATED), new Client());
+        
+        // Assert
+        verifyNoInteractions(mongoTemplate, hub);
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.demo.service;
+
+
+import com.example.demo.dto.ExposureSummary;
+import com.example.demo.dto.ExposureTotal;
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.exception.ServiceUnavailableException;
+import com.example.demo.model.CreditRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExposureLedgerTest {
+    
+    private ExposureLedger ledger;
+    
+    @BeforeEach
+    void setUp() {
+        ledger = new ExposureLedger();
+        ReflectionTestUtils.setField(ledger, "clientGroupIndex", new ClientGroupIndex());
+        ledger.load(List.of(
+                new ExposureTotal("client1", "rm1", "Pending", 300000.0),
+                new ExposureTotal("client1", "rm1", "Approved", 200000.0)), ledger.startJournal());
+    }
+    
+    @Test
+    void testLoad_SeedsTotalsFromAggregation() {
+        // Act
+        ExposureSummary summary = ledger.getClientExposure("client1", 1000000.0);
+        
+        // Assert
+        assertEquals(300000.0, summary.getPending());
+        assertEquals(200000.0, summary.getApproved());
+        assertEquals(1000000.0, summary.getLimit());
+    }
+    
+    @Test
+    void testReserve_AddsToPendingWithinLimit() {
+        // Act
+        ledger.reserve("client1", "rm1", 500000.0, 1000000.0);
+        
+        // Assert
+        assertEquals(800000.0, ledger.getClientExposure("client1", 1000000.0).getPending());
+    }
+    
+    @Test
+    void testReserve_RejectsOverClientLimit() {
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> ledger.reserve("client1", "rm1", 500000.01, 1000000.0));
+        assertEquals(300000.0, ledger.getClientExposure("client1", 1000000.0).getPending());
+    }
+    
+    @Test
+    void testReserve_RejectsOverRmLimit() {
+        // Arrange
+        ReflectionTestUtils.setField(ledger, "rmLimit", 600000.0);
+        
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> ledger.reserve("client2", "rm1", 200000.0, 1000000.0));
+        ledger.reserve("client2", "rm2", 200000.0, 1000000.0);
+    }
+    
+    @Test
+    void testReserve_RequiresTurnover() {
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> ledger.reserve("client2", "rm1", 1000.0, null));
+    }
+    
+    @Test
+    void testReserve_UnavailableUntilLoaded() {
+        // Act & Assert
+        assertThrows(ServiceUnavailableException.class,
+                () -> new ExposureLedger().reserve("client1", "rm1", 1000.0, 1000000.0));
+    }
+    
+    @Test
+    void testDecided_MovesApprovedAmountOutOfPending() {
+        // Arrange
+        CreditRequest request = new CreditRequest();
+        request.setClientId("client1");
+        request.setSubmittedBy("rm1");
+        request.setRequestAmount(100000.0);
+        request.setStatus("Approved");
+        
+        // Act
+        ledger.decided(request);
+        
+        // Assert
+        ExposureSummary summary = ledger.getClientExposure("client1", 1000000.0);
+        assertEquals(200000.0, summary.getPending());
+        assertEquals(300000.0, summary.getApproved());
+    }
+    
+    @Test
+    void testDecided_RejectionFreesPending() {
+        // Arrange
+        CreditRequest request = new CreditRequest();
+        request.setClientId("client1");
+        request.setSubmittedBy("rm1");
+        request.setRequestAmount(300000.0);
+        request.setStatus("Rejected");
+        
+        // Act
+        ledger.decided(request);
+        ledger.reserve("client1", "rm1", 800000.0, 1000000.0);
+        
+        // Assert
+        assertEquals(800000.0, ledger.getClientExposure("client1", 1000000.0).getPending());
+    }
+    
+    @Test
+    void testRelease_UndoesReservation() {
+        // Arrange
+        ledger.reserve("client1", "rm1", 500000.0, 1000000.0);
+        
+        // Act
+        ledger.release("client1", "rm1", 500000.0);
+        
+        // Assert
+        assertEquals(300000.0, ledger.getClientExposure("client1", 1000000.0).getPending());
+    }
+    
+    @Test
+    void testLoad_KeepsReservationMadeDuringRead() {
+        // Arrange: the aggregation is read before the reservation's insert lands
+        ExposureLedger.Journal journal = ledger.startJournal();
+        ledger.reserve("client1", "rm1", 100000.0, 1000000.0);
+        
+        // Act
+        ledger.load(List.of(new ExposureTotal("client1", "rm1", "Pending", 300000.0)), journal);
+        
+        // Assert
+        assertEquals(400000.0, ledger.getClientExposure("client1", 1000000.0).getPending());
+        assertEquals(2L, ledger.getStats().get("reconciliations"));
+    }
+    
+    @Test
+    void testLoad_KeepsReservationStillBeingWritten() {
+        // Arrange: reserved before the aggregation started, inserted after it was read
+        ledger.reserve("client1", "rm1", 100000.0, 1000000.0);
+        ExposureLedger.Journal journal = ledger.startJournal();
+        
+        // Act
+        ledger.load(List.of(new ExposureTotal("client1", "rm1", "Pending", 300000.0)), journal);
+        ledger.written("client1", "rm1", 100000.0);
+        ledger.load(List.of(new ExposureTotal("client1", "rm1", "Pending", 400000.0)), ledger.startJournal());
+        
+        // Assert
+        assertEquals(400000.0, ledger.getClientExposure("client1", 1000000.0).getPending());
+    }
+    
+    @Test
+    void testLoad_FirstLoadAcceptedWhenDecisionLandsDuringRead() {
+        // Arrange: an approval is stored and applied after the startup aggregation was read
+        ExposureLedger fresh = new ExposureLedger();
+        ReflectionTestUtils.setField(fresh, "clientGroupIndex", new ClientGroupIndex());
+        ExposureLedger.Journal journal = fresh.startJournal();
+        CreditRequest request = new CreditRequest();
+        request.setClientId("client1");
+        request.setSubmittedBy("rm1");
+        request.setRequestAmount(100000.0);
+        request.setStatus("Approved");
+        fresh.decided(request);
+        
+        // Act
+        fresh.load(List.of(new ExposureTotal("client1", "rm1", "Pending", 300000.0)), journal);
+        
+        // Assert
+        ExposureSummary summary = fresh.getClientExposure("client1", 1000000.0);
+        assertEquals(200000.0, summary.getPending());
+        assertEquals(100000.0, summary.getApproved());
+        fresh.reserve("client1", "rm1", 700000.0, 1000000.0);
+    }
+    
+    @Test
+    void testLoad_RejectionDuringReadStaysCountedUntilNextRun() {
+        // Arrange: the rejection may already be in the rows, so it is not taken from the journal
+        ExposureLedger.Journal journal = ledger.startJournal();
+        CreditRequest request = new CreditRequest();
+        request.setClientId("client1");
+        request.setSubmittedBy("rm1");
+        request.setRequestAmount(300000.0);
+        request.setStatus("Rejected");
+        ledger.decided(request);
+        
+        // Act
+        ledger.load(List.of(
+                new ExposureTotal("client1", "rm1", "Pending", 300000.0),
+                new ExposureTotal("client1", "rm1", "Approved", 200000.0)), journal);
+        double afterRacingRun = ledger.getClientExposure("client1", 1000000.0).getPending();
+        ledger.load(List.of(new ExposureTotal("client1", "rm1", "Approved", 200000.0)), ledger.startJournal());
+        
+        // Assert
+        assertEquals(300000.0, afterRacingRun);
+        assertEquals(0.0, ledger.getClientExposure("client1", 1000000.0).getPending());
+    }
+    
+    @Test
+    void testDecided_MovesAmountOutOfThePreviousStatus() {
+        // Arrange: a configured Approved->Rejected transition revokes an approval
+        CreditRequest request = new CreditRequest();
+        request.setClientId("client1");
+        request.setSubmittedBy("rm1");
+        request.setRequestAmount(200000.0);
+        request.setPreviousStatus("Approved");
+        request.setStatus("Rejected");
+        
+        // Act
+        ledger.decided(request);
+        
+        // Assert
+        ExposureSummary summary = ledger.getClientExposure("client1", 1000000.0);
+        assertEquals(300000.0, summary.getPending());
+        assertEquals(0.0, summary.getApproved());
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.ConflictException;
+import com.example.demo.exception.ServiceUnavailableException;
+import com.example.demo.model.IdempotencyRecord;
+import com.example.demo.security.Digests;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+    
+    @Mock
+    private MongoTemplate mongoTemplate;
+    
+    @InjectMocks
+    private IdempotencyService idempotencyService;
+    
+    @Test
+    void testExecute_WithoutKey_RunsActionDirectly() {
+        // Act
+        String result = idempotencyService.execute("clients", "rm123", null, "body",
+                () -> "client1", id -> id, id -> "lookup:" + id);
+        
+        // Assert
+        assertEquals("client1", result);
+        verifyNoInteractions(mongoTemplate);
+    }
+    
+    @Test
+    void testExecute_Retry_ReplaysWithoutRunningActionAgain() {
+        // Arrange
+        AtomicInteger runs = new AtomicInteger();
+        
+        // Act
+        String first = idempotencyService.execute("clients", "rm123", "key-1", "body",
+                () -> "client" + runs.incrementAndGet(), id -> id, id -> "lookup:" + id);
+        String retry = idempotencyService.execute("clients", "rm123", "key-1", "body",
+                () -> "client" + runs.incrementAndGet(), id -> id, id -> "lookup:" + id);
+        
+        // Assert
+        assertEquals("client1", first);
+        assertEquals("lookup:client1", retry);
+        assertEquals(1, runs.get());
+        verify(mongoTemplate, times(1)).insert(any(IdempotencyRecord.class));
+        verify(mongoTemplate, times(1)).updateFirst(any(Query.class), any(Update.class), eq(IdempotencyRecord.class));
+    }
+    
+    @Test
+    void testExecute_CompletedByAnotherInstance_ReplaysStoredResource() {
+        // Arrange
+        when(mongoTemplate.insert(any(IdempotencyRecord.class))).thenThrow(new DuplicateKeyException("duplicate"));
+        when(mongoTemplate.findById(anyString(), eq(IdempotencyRecord.class))).thenAnswer(invocation ->
+                new IdempotencyRecord(invocation.getArgument(0), Digests.sha256Hex("\"body\""),
+                        IdempotencyRecord.COMPLETED, "client9", Instant.now().plusSeconds(60)));
+        
+        // Act
+        String result = idempotencyService.execute("clients", "rm123", "key-1", "body",
+                () -> fail("must not run twice"), id -> id, id -> "lookup:" + id);
+        
+        // Assert
+        assertEquals("lookup:client9", result);
+    }
+    
+    @Test
+    void testExecute_KeyReusedWithDifferentBody_ThrowsConflict() {
+        // Arrange
+        idempotencyService.execute("clients", "rm123", "key-1", "body",
+                () -> "client1", id -> id, id -> "lookup:" + id);
+        
+        // Act & Assert
+        assertThrows(ConflictException.class, () -> idempotencyService.execute("clients", "rm123", "key-1",
+                "other body", () -> "client2", id -> id, id -> "lookup:" + id));
+    }
+    
+    @Test
+    void testExecute_SameValuesInAnotherOrder_Replays() {
+        // Arrange
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("companyName", "ABC Corp");
+        body.put("industry", "Tech");
+        Map<String, Object> reordered = new LinkedHashMap<>();
+        reordered.put("industry", "Tech");
+        reordered.put("companyName", "ABC Corp");
+        idempotencyService.execute("clients", "rm123", "key-1", body,
+                () -> "client1", id -> id, id -> "lookup:" + id);
+        
+        // Act
+        String retry = idempotencyService.execute("clients", "rm123", "key-1", reordered,
+                () -> "client2", id -> id, id -> "lookup:" + id);
+        
+        // Assert
+        assertEquals("lookup:client1", retry);
+    }
+    
+    @Test
+    void testExecute_ActionFails_ReleasesKey() {
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> idempotencyService.execute("clients", "rm123", "key-1",
+                "body", () -> { throw new IllegalStateException("boom"); }, id -> id, id -> "lookup:" + id));
+        verify(mongoTemplate, times(1)).remove(any(Query.class), eq(IdempotencyRecord.class));
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(IdempotencyRecord.class));
+    }
+    
+    @Test
+    void testExecute_CompletionWriteFailsOnce_RetriesIt() {
+        // Arrange
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(IdempotencyRecord.class)))
+                .thenThrow(new DataAccessResourceFailureException("primary stepped down"))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        
+        // Act
+        String result = idempotencyService.execute("clients", "rm123", "key-1", "body",
+                () -> "client1", id -> id, id -> "lookup:" + id);
+        
+        // Assert
+        assertEquals("client1", result);
+        verify(mongoTemplate, times(2)).updateFirst(any(Query.class), any(Update.class), eq(IdempotencyRecord.class));
+    }
+    
+    @Test
+    void testExecute_CompletionWriteKeepsFailing_HoldsLockAndFails() {
+        // Arrange
+        DataAccessResourceFailureException down = new DataAccessResourceFailureException("primary stepped down");
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(IdempotencyRecord.class)))
+                .thenThrow(down, down, down)
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        AtomicInteger runs = new AtomicInteger();
+        
+        // Act & Assert
+        assertThrows(ServiceUnavailableException.class, () -> idempotencyService.execute("clients", "rm123", "key-1",
+                "body", () -> "client" + runs.incrementAndGet(), id -> id, id -> "lookup:" + id));
+        verify(mongoTemplate, times(3)).updateFirst(any(Query.class), argThat(IdempotencyServiceTest::completes),
+                eq(IdempotencyRecord.class));
+        // The lock is held for the key's lifetime instead of lapsing into a takeover
+        verify(mongoTemplate).updateFirst(any(Query.class), argThat((Update update) -> !completes(update)
+                && ((Instant) update.getUpdateObject().get("$set", Document.class).get("expiresAt"))
+                        .isAfter(Instant.now().plusSeconds(3600))), eq(IdempotencyRecord.class));
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(IdempotencyRecord.class));
+        
+        // A retry on this instance replays the created resource
+        assertEquals("lookup:client1", idempotencyService.execute("clients", "rm123", "key-1", "body",
+                () -> "client" + runs.incrementAndGet(), id -> id, id -> "lookup:" + id));
+        assertEquals(1, runs.get());
+    }
+    
+    private static boolean completes(Update update) {
+        return update != null && update.getUpdateObject().get("$set", Document.class).containsKey("status");
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.demo.service;
+
+import com.example.demo.model.CreditRequest;
+import com.example.demo.model.OutboxEvent;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+    
+    @Mock
+    private MongoTemplate mongoTemplate;
+    
+    @Mock
+    private BulkOperations bulkOperations;
+    
+    @Mock
+    private DomainEventSubscriber subscriber;
+    
+    @InjectMocks
+    private OutboxRelay outboxRelay;
+    
+    private CreditRequest creditRequest;
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(outboxRelay, "subscribers", List.of(subscriber));
+        ReflectionTestUtils.setField(outboxRelay, "batchSize", 10);
+        ReflectionTestUtils.setField(outboxRelay, "leaseMs", 30000L);
+        
+        creditRequest = new CreditRequest();
+        creditRequest.setId("credit123");
+        creditRequest.setOutbox(new ArrayList<>(List.of(
+                OutboxEvent.of(OutboxEvent.CREDIT_REQUEST_CREATED),
+                OutboxEvent.of(OutboxEvent.CREDIT_REQUEST_UPDATED))));
+        
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CreditRequest.class)).thenReturn(bulkOperations);
+    }
+    
+    @Test
+    void testDrain_DeliversEventsInOrderAndAcknowledgesThem() {
+        // Arrange
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(CreditRequest.class)))
+                .thenReturn(creditRequest, (CreditRequest) null);
+        
+        // Act
+        int claimed = outboxRelay.drain(CreditRequest.class);
+        
+        // Assert
+        assertEquals(1, claimed);
+        var inOrder = inOrder(subscriber);
+        inOrder.verify(subscriber).onEvent(creditRequest.getOutbox().get(0), creditRequest);
+        inOrder.verify(subscriber).onEvent(creditRequest.getOutbox().get(1), creditRequest);
+        verify(bulkOperations).updateOne(any(Query.class),
+                argThat((Update update) -> update.getUpdateObject().containsKey("$pull")));
+        verify(bulkOperations).execute();
+        assertEquals(2L, outboxRelay.getStats().get("delivered"));
+    }
+    
+    @Test
+    void testDrain_SubscriberFailure_StopsAggregateAndKeepsLaterEvents() {
+        // Arrange
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(CreditRequest.class)))
+                .thenReturn(creditRequest, (CreditRequest) null);
+        doThrow(new IllegalStateException("boom")).when(subscriber).onEvent(creditRequest.getOutbox().get(0), creditRequest);
+        
+        // Act
+        outboxRelay.drain(CreditRequest.class);
+        
+        // Assert
+        verify(subscriber, never()).onEvent(creditRequest.getOutbox().get(1), creditRequest);
+        verify(bulkOperations).updateOne(any(Query.class),
+                argThat((Update update) -> !update.getUpdateObject().containsKey("$pull")));
+        assertEquals(1L, outboxRelay.getStats().get("failed"));
+    }
+    
+    @Test
+    void testDrain_FailedAggregateIsNotReclaimedByNextDrain() {
+        // Arrange: claims honour the lease the acknowledgement wrote, as the claim query does
+        ReflectionTestUtils.setField(outboxRelay, "retryMs", 5000L);
+        LocalDateTime[] leaseUntil = new LocalDateTime[1];
+        boolean[] claimedOnce = new boolean[1];
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(CreditRequest.class)))
+                .thenAnswer(invocation -> {
+                    boolean free = leaseUntil[0] == null || leaseUntil[0].isBefore(LocalDateTime.now());
+                    if (claimedOnce[0] || !free) {
+                        claimedOnce[0] = false;
+                        return null;
+                    }
+                    claimedOnce[0] = true;
+                    return creditRequest;
+                });
+        when(bulkOperations.updateOne(any(Query.class), any(Update.class))).thenAnswer(invocation -> {
+            Update update = invocation.getArgument(1);
+            Document set = (Document) update.getUpdateObject().get("$set");
+            leaseUntil[0] = set != null ? (LocalDateTime) set.get("outboxLeaseUntil") : null;
+            return bulkOperations;
+        });
+        doThrow(new IllegalStateException("boom")).when(subscriber).onEvent(creditRequest.getOutbox().get(0), creditRequest);
+        
+        // Act
+        int first = outboxRelay.drain(CreditRequest.class);
+        int second = outboxRelay.drain(CreditRequest.class);
+        
+        // Assert
+        assertEquals(1, first);
+        assertEquals(0, second);
+        assertTrue(leaseUntil[0].isAfter(LocalDateTime.now().plusSeconds(4)));
+        verify(subscriber, times(1)).onEvent(creditRequest.getOutbox().get(0), creditRequest);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.service;
+
+
+import com.example.demo.exception.BadRequestException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaginationTest {
+    
+    private Pagination pagination;
+    
+    @BeforeEach
+    void setUp() {
+        pagination = new Pagination();
+        ReflectionTestUtils.setField(pagination, "secret", "0123456789ABCDEF0123456789ABCDEF");
+        ReflectionTestUtils.setField(pagination, "defaultSize", 50);
+        ReflectionTestUtils.setField(pagination, "maxSize", 200);
+        pagination.init();
+    }
+    
+    @Test
+    void testCursor_RoundTrip() {
+        // Act
+        String cursor = pagination.encodeCursor("clients/search", "ABC Textiles Ltd", "client123");
+        String[] keyset = pagination.decodeCursor("clients/search", cursor, 2);
+        
+        // Assert
+        assertArrayEquals(new String[] {"ABC Textiles Ltd", "client123"}, keyset);
+    }
+    
+    @Test
+    void testCursor_TamperedIsRejected() {
+        // Arrange
+        String cursor = pagination.encodeCursor("clients/search", "ABC Textiles Ltd", "client123");
+        char middle = cursor.charAt(10);
+        String tampered = cursor.substring(0, 10) + (middle == 'A' ? 'B' : 'A') + cursor.substring(11);
+        
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> pagination.decodeCursor("clients/search", tampered, 2));
+    }
+    
+    @Test
+    void testCursor_OtherScopeIsRejected() {
+        // Arrange
+        String cursor = pagination.encodeCursor("clients/search", "ABC Textiles Ltd", "client123");
+        
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> pagination.decodeCursor("users", cursor, 2));
+    }
+    
+    @Test
+    void testCursor_GarbageIsRejected() {
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> pagination.decodeCursor("clients/search", "not a cursor", 2));
+    }
+    
+    @Test
+    void testPageSize_IsClamped() {
+        // Act & Assert
+        assertEquals(50, pagination.pageSize(null));
+        assertEquals(1, pagination.pageSize(0));
+        assertEquals(200, pagination.pageSize(10000));
+        assertEquals(25, pagination.pageSize(25));
+    }
+}
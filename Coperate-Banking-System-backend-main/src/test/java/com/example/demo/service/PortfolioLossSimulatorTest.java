@@ -0,0 +1,105 @@
+package com.example.demo.service;
+
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PortfolioLossSimulatorTest {
+    
+    // Two industries, two RMs; industry 0 holds the riskier exposures
+    private final long[] losses = {450000, 450000, 900000, 225000, 225000, 675000};
+    private final double[] pds = {0.05, 0.05, 0.10, 0.01, 0.01, 0.02};
+    private final int[] industries = {0, 0, 0, 1, 1, 1};
+    private final int[] rms = {0, 1, 0, 1, 0, 1};
+    
+    private PortfolioLossSimulator simulator(double systemic, double industry) {
+        return new PortfolioLossSimulator(losses, pds, industries, rms, 2, 2, systemic, industry);
+    }
+    
+    @Test
+    void testRun_SameSeedGivesSameResult() {
+        // Act
+        PortfolioLossSimulator.Result first = simulator(0.12, 0.08).run(20000, 42, n -> { }, () -> false);
+        PortfolioLossSimulator.Result second = simulator(0.12, 0.08).run(20000, 42, n -> { }, () -> false);
+        
+        // Assert
+        for (int group = 0; group < 5; group++) {
+            assertEquals(first.expectedLoss(group), second.expectedLoss(group));
+            assertEquals(first.valueAtRisk(group, 0.99), second.valueAtRisk(group, 0.99));
+        }
+    }
+    
+    @Test
+    void testRun_ExpectedLossConvergesToSumOfPdTimesLoss() {
+        // Arrange
+        double analytic = 0;
+        for (int i = 0; i < losses.length; i++) {
+            analytic += pds[i] * losses[i];
+        }
+        
+        // Act
+        PortfolioLossSimulator.Result result = simulator(0.12, 0.08).run(200000, 7, n -> { }, () -> false);
+        
+        // Assert
+        assertEquals(analytic, result.expectedLoss(0), analytic * 0.03);
+    }
+    
+    @Test
+    void testRun_GroupsAddUpToPortfolio() {
+        // Act
+        PortfolioLossSimulator.Result result = simulator(0.12, 0.08).run(10000, 3, n -> { }, () -> false);
+        
+        // Assert
+        assertEquals(result.expectedLoss(0), result.expectedLoss(1) + result.expectedLoss(2), 1e-6);
+        assertEquals(result.expectedLoss(0), result.expectedLoss(3) + result.expectedLoss(4), 1e-6);
+        assertEquals(2925000, result.maxLoss(0));
+        assertEquals(1800000, result.maxLoss(1));
+    }
+    
+    @Test
+    void testRun_VaRIsAboveExpectedLossAndWithinMaximum() {
+        // Act
+        PortfolioLossSimulator.Result result = simulator(0.12, 0.08).run(50000, 11, n -> { }, () -> false);
+        
+        // Assert
+        long var99 = result.valueAtRisk(0, 0.99);
+        assertTrue(var99 > result.expectedLoss(0));
+        assertTrue(var99 <= result.maxLoss(0));
+    }
+    
+    @Test
+    void testRun_ReportsProgressForEveryScenario() {
+        // Arrange
+        AtomicLong done = new AtomicLong();
+        
+        // Act
+        simulator(0.12, 0.08).run(5000, 1, done::addAndGet, () -> false);
+        
+        // Assert
+        assertEquals(5000, done.get());
+    }
+    
+    @Test
+    void testRun_StopsWhenCancelled() {
+        // Act & Assert
+        assertThrows(CancellationException.class, () -> simulator(0, 0).run(5000, 1, n -> { }, () -> true));
+    }
+    
+    @Test
+    void testConstructor_RejectsCorrelationsOfOneOrMore() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> simulator(0.6, 0.4));
+    }
+    
+    @Test
+    void testInverseNormalCdf_RoundTrips() {
+        // Assert
+        for (double p : new double[] {1e-6, 0.002, 0.05, 0.5, 0.9, 0.999}) {
+            assertEquals(p, PortfolioLossSimulator.normalCdf(PortfolioLossSimulator.inverseNormalCdf(p)), 2e-7);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.demo.service;
+
+
+import com.example.demo.dto.SimulationRequest;
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.repository.ClientRepository;
+import com.example.demo.repository.CreditRequestRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PortfolioSimulationServiceTest {
+    
+    @Mock
+    private CreditRequestRepository creditRequestRepository;
+    
+    @Mock
+    private ClientRepository clientRepository;
+    
+    @InjectMocks
+    private PortfolioSimulationService portfolioSimulationService;
+    
+    @Test
+    void testStart_RejectsMoreThanMaxScenarios() {
+        // Arrange
+        SimulationRequest request = new SimulationRequest();
+        request.setScenarios(1000001L);
+        
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> portfolioSimulationService.start(request));
+        verifyNoInteractions(creditRequestRepository);
+    }
+    
+    @Test
+    void testGetJob_UnknownId() {
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> portfolioSimulationService.getJob("missing"));
+    }
+    
+    @Test
+    void testProbabilityOfDefault_InterpolatesBetweenBounds() {
+        // Assert
+        assertEquals(0.002, portfolioSimulationService.probabilityOfDefault(0), 1e-12);
+        assertEquals(0.25, portfolioSimulationService.probabilityOfDefault(100), 1e-12);
+        assertEquals(Math.sqrt(0.002 * 0.25), portfolioSimulationService.probabilityOfDefault(50), 1e-12);
+        assertEquals(0.25, portfolioSimulationService.probabilityOfDefault(null), 1e-12);
+    }
+}
@@ -1,9 +1,13 @@
 package com.example.demo.service;
 
 
+import com.example.demo.dto.PageResponse;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.model.User;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.security.RevocationRegistry;
+import com.example.demo.security.TokenCache;
+import com.example.demo.security.UserCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -26,6 +30,21 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
     
+    @Mock
+    private TokenCache tokenCache;
+    
+    @Mock
+    private RevocationRegistry revocationRegistry;
+    
+    @Mock
+    private RefreshTokenService refreshTokenService;
+    
+    @Mock
+    private UserCache userCache;
+    
+    @Mock
+    private Pagination pagination;
+    
     @InjectMocks
     private UserService userService;
     
@@ -57,6 +76,22 @@ class UserServiceTest {
         assertEquals("RM", result.getRole());
         
         verify(userRepository, times(1)).findByUsername("testuser");
+        verify(userCache, times(1)).put(testUser);
+    }
+    
+    @Test
+    void testGetCurrentUser_FromCache() {
+        // Arrange
+        User cached = new User("user123", "testuser", "test@example.com", null, "RM", true);
+        when(userCache.get("testuser")).thenReturn(cached);
+        
+        // Act
+        User result = userService.getCurrentUser("testuser");
+        
+        // Assert
+        assertEquals("user123", result.getId());
+        assertNull(result.getPassword());
+        verify(userRepository, never()).findByUsername(anyString());
     }
     
     @Test
@@ -86,32 +121,35 @@ class UserServiceTest {
         user2.setUsername("user2");
         
         List<User> users = Arrays.asList(user1, user2);
-        when(userRepository.findAll()).thenReturn(users);
+        when(pagination.pageSize(any())).thenReturn(50);
+        when(userRepository.findPage(null, null, 51)).thenReturn(users);
         
         // Act
-        List<User> result = userService.getAllUsers();
+        PageResponse<User> result = userService.getAllUsers(null, null);
         
         // Assert
         assertNotNull(result);
-        assertEquals(2, result.size());
-        assertEquals("user1", result.get(0).getUsername());
-        assertEquals("user2", result.get(1).getUsername());
+        assertEquals(2, result.getItems().size());
+        assertEquals("user1", result.getItems().get(0).getUsername());
+        assertEquals("user2", result.getItems().get(1).getUsername());
+        assertNull(result.getNextCursor());
         
-        verify(userRepository, times(1)).findAll();
+        verify(userRepository, times(1)).findPage(null, null, 51);
     }
     
     @Test
     void testGetAllUsers_EmptyList() {
         // Arrange
-        when(userRepository.findAll()).thenReturn(Arrays.asList());
+        when(pagination.pageSize(any())).thenReturn(50);
+        when(userRepository.findPage(null, null, 51)).thenReturn(Arrays.asList());
         
         // Act
-        List<User> result = userService.getAllUsers();
+        PageResponse<User> result = userService.getAllUsers(null, null);
         
         // Assert
         assertNotNull(result);
-        assertTrue(result.isEmpty());
-        verify(userRepository, times(1)).findAll();
+        assertTrue(result.getItems().isEmpty());
+        verify(userRepository, times(1)).findPage(null, null, 51);
     }
     
     @Test
@@ -130,6 +168,8 @@ class UserServiceTest {
         
         verify(userRepository, times(1)).findById("user123");
         verify(userRepository, times(1)).save(testUser);
+        verify(tokenCache, never()).evictUser(anyString());
+        verify(revocationRegistry, times(1)).restore("user123");
     }
     
     @Test
@@ -147,6 +187,10 @@ class UserServiceTest {
         
         verify(userRepository, times(1)).findById("user123");
         verify(userRepository, times(1)).save(testUser);
+        verify(tokenCache, times(1)).evictUser("user123");
+        verify(revocationRegistry, times(1)).revoke("user123");
+        verify(userCache, times(1)).invalidate("testuser");
+        verify(refreshTokenService, times(1)).revokeAll("user123");
     }
     
     @Test
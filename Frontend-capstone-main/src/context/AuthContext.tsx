@@ -45,9 +45,10 @@ export function AuthProvider({ children }: AuthProviderProps) {
         password
       });
       
-      const { token, ...userData } = response.data;
+      const { token, refreshToken, ...userData } = response.data;
       
       localStorage.setItem('token', token);
+      localStorage.setItem('refreshToken', refreshToken);
       localStorage.setItem('user', JSON.stringify(userData));
       
       setUser(userData as User);
@@ -64,6 +65,7 @@ export function AuthProvider({ children }: AuthProviderProps) {
 
   const logout = () => {
     localStorage.removeItem('token');
+    localStorage.removeItem('refreshToken');
     localStorage.removeItem('user');
     setUser(null);
   };
@@ -1,7 +1,7 @@
 import { useState, useEffect, ChangeEvent } from 'react';
 import Layout from '../../components/Layout';
 import api from '../../config/axios';
-import { User } from '../../types';
+import { User, PageResponse } from '../../types';
 import {
   Paper, Table, TableBody, TableCell, TableContainer, TableHead, TableRow,
   Button, Dialog, DialogTitle, DialogContent, DialogActions, TextField,
@@ -10,6 +10,7 @@ import {
 
 function AdminDashboard() {
   const [users, setUsers] = useState<User[]>([]);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
   const [loading, setLoading] = useState(false);
   const [error, setError] = useState('');
   const [success, setSuccess] = useState('');
@@ -25,11 +26,13 @@ function AdminDashboard() {
     fetchUsers();
   }, []);
 
-  const fetchUsers = async () => {
+  const fetchUsers = async (cursor?: string) => {
     setLoading(true);
     try {
-      const response = await api.get<User[]>('/admin/users');
-      setUsers(response.data);
+      const response = await api.get<PageResponse<User>>('/admin/users', { params: { cursor } });
+      const page = response.data.items;
+      setUsers((current) => (cursor ? [...current, ...page] : page));
+      setNextCursor(response.data.nextCursor);
       setError('');
     } catch (err) {
       setError('Failed to fetch users');
@@ -124,6 +127,14 @@ function AdminDashboard() {
         </Table>
       </TableContainer>
 
+      {nextCursor && (
+        <Box sx={{ marginTop: 2, textAlign: 'center' }}>
+          <Button variant="outlined" disabled={loading} onClick={() => fetchUsers(nextCursor)}>
+            Load More
+          </Button>
+        </Box>
+      )}
+
       <Dialog open={openDialog} onClose={() => setOpenDialog(false)}>
         <DialogTitle>Create New User</DialogTitle>
         <DialogContent>
@@ -1,15 +1,16 @@
 import { useState, useEffect, ChangeEvent } from 'react';
 import Layout from '../../components/Layout';
 import api from '../../config/axios';
-import { CreditRequest } from '../../types';
+import { CreditRequest, PageResponse } from '../../types';
 import {
   Paper, Table, TableBody, TableCell, TableContainer, TableHead, TableRow,
-  Button, Alert, Chip, Dialog, DialogTitle, DialogContent, DialogActions,
+  Button, Alert, Chip, Box, Dialog, DialogTitle, DialogContent, DialogActions,
   TextField, FormControl, InputLabel, Select, MenuItem, SelectChangeEvent
 } from '@mui/material';
 
 function ReviewCreditRequests() {
   const [requests, setRequests] = useState<CreditRequest[]>([]);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
   const [loading, setLoading] = useState(false);
   const [error, setError] = useState('');
   const [success, setSuccess] = useState('');
@@ -24,11 +25,13 @@ function ReviewCreditRequests() {
     fetchRequests();
   }, []);
 
-  const fetchRequests = async () => {
+  const fetchRequests = async (cursor?: string) => {
     setLoading(true);
     try {
-      const response = await api.get<CreditRequest[]>('/analyst/credit-requests');
-      setRequests(response.data);
+      const response = await api.get<PageResponse<CreditRequest>>('/analyst/queue', { params: { cursor } });
+      const page = response.data.items;
+      setRequests((current) => (cursor ? [...current, ...page] : page));
+      setNextCursor(response.data.nextCursor);
       setError('');
     } catch (err) {
       setError('Failed to fetch credit requests');
@@ -49,13 +52,20 @@ function ReviewCreditRequests() {
     if (!selectedRequest) return;
     
     try {
-      await api.put(`/analyst/credit-requests/${selectedRequest.id}`, reviewData);
+      await api.put(`/analyst/credit-requests/${selectedRequest.id}`, {
+        ...reviewData,
+        expectedVersion: selectedRequest.version
+      });
       setSuccess(`Request ${reviewData.status.toLowerCase()} successfully!`);
       setOpenDialog(false);
       fetchRequests();
       setTimeout(() => setSuccess(''), 3000);
     } catch (err: any) {
       setError(err.response?.data?.message || 'Failed to update request');
+      if (err.response?.status === 409) {
+        setOpenDialog(false);
+        fetchRequests();
+      }
     }
   };
 
@@ -88,6 +98,7 @@ function ReviewCreditRequests() {
             <TableRow>
               <TableCell><strong>Request Amount</strong></TableCell>
               <TableCell><strong>Tenure</strong></TableCell>
+              <TableCell><strong>Risk</strong></TableCell>
               <TableCell><strong>Purpose</strong></TableCell>
               <TableCell><strong>Status</strong></TableCell>
               <TableCell><strong>Remarks</strong></TableCell>
@@ -97,14 +108,15 @@ function ReviewCreditRequests() {
           </TableHead>
           <TableBody>
             {loading ? (
-              <TableRow><TableCell colSpan={7} align="center">Loading...</TableCell></TableRow>
+              <TableRow><TableCell colSpan={8} align="center">Loading...</TableCell></TableRow>
             ) : requests.length === 0 ? (
-              <TableRow><TableCell colSpan={7} align="center">No credit requests found</TableCell></TableRow>
+              <TableRow><TableCell colSpan={8} align="center">No pending credit requests</TableCell></TableRow>
             ) : (
               requests.map((request) => (
                 <TableRow key={request.id}>
                   <TableCell>{formatCurrency(request.requestAmount)}</TableCell>
                   <TableCell>{request.tenureMonths} months</TableCell>
+                  <TableCell title={request.riskReasons?.join(', ')}>{request.riskScore ?? '-'}</TableCell>
                   <TableCell>{request.purpose}</TableCell>
                   <TableCell>
                     <Chip 
@@ -127,6 +139,14 @@ function ReviewCreditRequests() {
         </Table>
       </TableContainer>
 
+      {nextCursor && (
+        <Box sx={{ marginTop: 2, textAlign: 'center' }}>
+          <Button variant="outlined" disabled={loading} onClick={() => fetchRequests(nextCursor)}>
+            Load More
+          </Button>
+        </Box>
+      )}
+
       <Dialog open={openDialog} onClose={() => setOpenDialog(false)} maxWidth="sm" fullWidth>
         <DialogTitle>Review Credit Request</DialogTitle>
         <DialogContent>
@@ -2,7 +2,7 @@ import { useState, useEffect } from 'react';
 import { useNavigate } from 'react-router-dom';
 import Layout from '../../components/Layout';
 import api from '../../config/axios';
-import { Client } from '../../types';
+import { Client, PageResponse } from '../../types';
 import {
   Paper, Table, TableBody, TableCell, TableContainer, TableHead,
   TableRow, Button, Box, Alert, Chip
@@ -10,6 +10,7 @@ import {
 
 function ClientList() {
   const [clients, setClients] = useState<Client[]>([]);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
   const [loading, setLoading] = useState(false);
   const [error, setError] = useState('');
   const navigate = useNavigate();
@@ -18,11 +19,13 @@ function ClientList() {
     fetchClients();
   }, []);
 
-  const fetchClients = async () => {
+  const fetchClients = async (cursor?: string) => {
     setLoading(true);
     try {
-      const response = await api.get<Client[]>('/rm/clients');
-      setClients(response.data);
+      const response = await api.get<PageResponse<Client>>('/rm/clients', { params: { cursor } });
+      const page = response.data.items;
+      setClients((current) => (cursor ? [...current, ...page] : page));
+      setNextCursor(response.data.nextCursor);
       setError('');
     } catch (err) {
       setError('Failed to fetch clients');
@@ -92,6 +95,14 @@ function ClientList() {
           </TableBody>
         </Table>
       </TableContainer>
+
+      {nextCursor && (
+        <Box sx={{ marginTop: 2, textAlign: 'center' }}>
+          <Button variant="outlined" disabled={loading} onClick={() => fetchClients(nextCursor)}>
+            Load More
+          </Button>
+        </Box>
+      )}
     </Layout>
   );
 }
@@ -10,6 +10,8 @@ function CreateClient() {
   const navigate = useNavigate();
   const [error, setError] = useState('');
   const [loading, setLoading] = useState(false);
+  // One key per form, so a retried submit after a dropped response cannot create a duplicate
+  const [idempotencyKey] = useState(() => crypto.randomUUID());
   
   const [formData, setFormData] = useState({
     companyName: '',
@@ -17,7 +19,8 @@ function CreateClient() {
     address: '',
     primaryContact: { name: '', email: '', phone: '' },
     annualTurnover: '',
-    documentsSubmitted: false
+    documentsSubmitted: false,
+    parentId: ''
   });
 
   const handleChange = (e: ChangeEvent<HTMLInputElement>) => {
@@ -57,8 +60,9 @@ function CreateClient() {
     try {
       await api.post('/rm/clients', {
         ...formData,
-        annualTurnover: parseFloat(formData.annualTurnover)
-      });
+        annualTurnover: parseFloat(formData.annualTurnover),
+        parentId: formData.parentId.trim() || null
+      }, { headers: { 'Idempotency-Key': idempotencyKey } });
       navigate('/rm/clients');
     } catch (err: any) {
       setError(err.response?.data?.message || 'Failed to create client');
@@ -94,6 +98,12 @@ function CreateClient() {
                 value={formData.address} onChange={handleChange} />
             </Grid>
 
+            <Grid item xs={12}>
+              <TextField fullWidth label="Parent Client ID (optional)" name="parentId"
+                value={formData.parentId} onChange={handleChange}
+                helperText="Set when this client is a subsidiary of another client in the same corporate group" />
+            </Grid>
+
             <Grid item xs={12}>
               <Box sx={{ marginTop: 2, marginBottom: 1 }}>
                 <strong>Primary Contact Details</strong>
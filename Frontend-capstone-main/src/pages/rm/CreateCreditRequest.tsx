@@ -2,7 +2,7 @@ import { useState, useEffect, ChangeEvent, FormEvent } from 'react';
 import { useNavigate } from 'react-router-dom';
 import Layout from '../../components/Layout';
 import api from '../../config/axios';
-import { Client } from '../../types';
+import { Client, PageResponse } from '../../types';
 import {
   Paper, TextField, Button, Grid, Alert, Box, FormControl, InputLabel, Select, MenuItem, SelectChangeEvent
 } from '@mui/material';
@@ -11,6 +11,8 @@ function CreateCreditRequest() {
   const navigate = useNavigate();
   const [error, setError] = useState('');
   const [loading, setLoading] = useState(false);
+  // One key per form, so a retried submit after a dropped response cannot create a duplicate
+  const [idempotencyKey] = useState(() => crypto.randomUUID());
   const [clients, setClients] = useState<Client[]>([]);
   
   const [formData, setFormData] = useState({
@@ -26,8 +28,8 @@ function CreateCreditRequest() {
 
   const fetchClients = async () => {
     try {
-      const response = await api.get<Client[]>('/rm/clients');
-      setClients(response.data);
+      const response = await api.get<PageResponse<Client>>('/rm/clients', { params: { limit: 200 } });
+      setClients(response.data.items);
     } catch (err) {
       setError('Failed to fetch clients');
     }
@@ -75,7 +77,7 @@ function CreateCreditRequest() {
         ...formData,
         requestAmount: parseFloat(formData.requestAmount),
         tenureMonths: parseInt(formData.tenureMonths)
-      });
+      }, { headers: { 'Idempotency-Key': idempotencyKey } });
       navigate('/rm/credit-requests');
     } catch (err: any) {
       setError(err.response?.data?.message || 'Failed to create credit request');
@@ -2,7 +2,7 @@ import { useState, useEffect } from 'react';
 import { useNavigate } from 'react-router-dom';
 import Layout from '../../components/Layout';
 import api from '../../config/axios';
-import { CreditRequest } from '../../types';
+import { CreditRequest, PageResponse } from '../../types';
 import {
   Paper, Table, TableBody, TableCell, TableContainer, TableHead,
   TableRow, Button, Box, Alert, Chip
@@ -10,6 +10,7 @@ import {
 
 function CreditRequestList() {
   const [requests, setRequests] = useState<CreditRequest[]>([]);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
   const [loading, setLoading] = useState(false);
   const [error, setError] = useState('');
   const navigate = useNavigate();
@@ -18,11 +19,13 @@ function CreditRequestList() {
     fetchRequests();
   }, []);
 
-  const fetchRequests = async () => {
+  const fetchRequests = async (cursor?: string) => {
     setLoading(true);
     try {
-      const response = await api.get<CreditRequest[]>('/rm/credit-requests');
-      setRequests(response.data);
+      const response = await api.get<PageResponse<CreditRequest>>('/rm/credit-requests', { params: { cursor } });
+      const page = response.data.items;
+      setRequests((current) => (cursor ? [...current, ...page] : page));
+      setNextCursor(response.data.nextCursor);
       setError('');
     } catch (err) {
       setError('Failed to fetch credit requests');
@@ -96,6 +99,14 @@ function CreditRequestList() {
           </TableBody>
         </Table>
       </TableContainer>
+
+      {nextCursor && (
+        <Box sx={{ marginTop: 2, textAlign: 'center' }}>
+          <Button variant="outlined" disabled={loading} onClick={() => fetchRequests(nextCursor)}>
+            Load More
+          </Button>
+        </Box>
+      )}
     </Layout>
   );
 }
@@ -19,7 +19,8 @@ function EditClient() {
     address: '',
     primaryContact: { name: '', email: '', phone: '' },
     annualTurnover: '',
-    documentsSubmitted: false
+    documentsSubmitted: false,
+    parentId: ''
   });
 
   useEffect(() => {
@@ -36,7 +37,8 @@ function EditClient() {
         address: client.address,
         primaryContact: client.primaryContact,
         annualTurnover: client.annualTurnover.toString(),
-        documentsSubmitted: client.documentsSubmitted
+        documentsSubmitted: client.documentsSubmitted,
+        parentId: client.parentId ?? ''
       });
       setFetchLoading(false);
     } catch (err) {
@@ -64,7 +66,8 @@ function EditClient() {
     try {
       await api.put(`/rm/clients/${id}`, {
         ...formData,
-        annualTurnover: parseFloat(formData.annualTurnover)
+        annualTurnover: parseFloat(formData.annualTurnover),
+        parentId: formData.parentId.trim() || null
       });
       navigate('/rm/clients');
     } catch (err: any) {
@@ -110,6 +113,12 @@ function EditClient() {
                 value={formData.address} onChange={handleChange} />
             </Grid>
 
+            <Grid item xs={12}>
+              <TextField fullWidth label="Parent Client ID (optional)" name="parentId"
+                value={formData.parentId} onChange={handleChange}
+                helperText="Set when this client is a subsidiary of another client in the same corporate group" />
+            </Grid>
+
             <Grid item xs={12}>
               <Box sx={{ marginTop: 2, marginBottom: 1 }}>
                 <strong>Primary Contact Details</strong>
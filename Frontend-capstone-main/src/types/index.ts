@@ -13,6 +13,13 @@ export interface AuthResponse {
   email: string;
   role: string;
   userId: string;
+  refreshToken: string;
+}
+
+// Keyset-paged list responses; pass nextCursor back as ?cursor= for the next page
+export interface PageResponse<T> {
+  items: T[];
+  nextCursor: string | null;
 }
 
 // Client types
@@ -31,6 +38,7 @@ export interface Client {
   annualTurnover: number;
   documentsSubmitted: boolean;
   rmId: string;
+  parentId: string | null;
 }
 
 // Credit Request types
@@ -44,4 +52,10 @@ export interface CreditRequest {
   status: 'Pending' | 'Approved' | 'Rejected';
   remarks: string;
   createdAt: string;
+  version: number | null;
+  stage: string | null;
+  nextStages: string[] | null;
+  riskScore: number | null;
+  riskReasons: string[] | null;
+  riskModelVersion: string | null;
 }
\ No newline at end of file